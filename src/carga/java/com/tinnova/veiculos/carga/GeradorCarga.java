@@ -0,0 +1,281 @@
+package com.tinnova.veiculos.carga;
+
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+
+// Usuários virtuais em laço fechado: cada um espera a resposta antes de sortear a próxima operação, então a vazão medida
+// é a que a aplicação sustenta com essa concorrência. Latências do aquecimento são descartadas.
+class GeradorCarga {
+
+    private static final String[] MARCAS = { "Toyota", "Honda", "Ford", "Volkswagen", "Fiat", "Chevrolet", "Hyundai", "Renault" };
+
+    private static final String[] CORES = { "Preto", "Branco", "Prata", "Vermelho", "Azul" };
+
+    private static final String JSON = "application/json";
+
+    private final String baseUrl;
+
+    private final int usuarios;
+
+    private final long semente;
+
+    // /veiculos (MVC + JPA) ou /reativo/veiculos (R2DBC) para listagem, filtro, busca por id e relatório por marca
+    private final String leituras;
+
+    private final HttpClient http = HttpClient.newBuilder().version( HttpClient.Version.HTTP_1_1 ).connectTimeout( Duration.ofSeconds( 5 ) ).build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicInteger sequenciaPlaca = new AtomicInteger();
+
+    private final Frota frota = new Frota();
+
+    private String token;
+
+    GeradorCarga( String baseUrl, int usuarios, long semente, boolean leituraReativa ) {
+
+        this.baseUrl = baseUrl;
+        this.usuarios = usuarios;
+        this.semente = semente;
+        this.leituras = leituraReativa ? "/reativo/veiculos" : "/veiculos";
+    }
+
+
+    // Massa inicial pela importação em lote; os ids são lidos de volta pela exportação NDJSON
+    void popular( int quantidade )
+        throws IOException, InterruptedException {
+
+        token = login( "admin", "admin123" );
+
+        Random random = new Random( semente );
+        StringBuilder ndjson = new StringBuilder();
+        for ( int i = 0; i < quantidade; i++ ) {
+            ndjson.append( veiculo( random ) ).append( '\n' );
+        }
+
+        HttpResponse< String > lote = http.send( autenticada( "/veiculos/lote" ).header( "Content-Type", "application/x-ndjson" )
+            .POST( HttpRequest.BodyPublishers.ofString( ndjson.toString() ) ).build(), HttpResponse.BodyHandlers.ofString() );
+        exigirSucesso( lote, "importação em lote" );
+
+        HttpResponse< Stream< String > > exportacao = http.send( autenticada( "/veiculos/export?formato=NDJSON" ).GET().build(),
+            HttpResponse.BodyHandlers.ofLines() );
+        try ( Stream< String > linhas = exportacao.body() ) {
+            for ( String linha : ( Iterable< String > ) linhas::iterator ) {
+                frota.adicionar( objectMapper.readTree( linha ).path( "id" ).asLong() );
+            }
+        }
+        System.out.printf( "Massa inicial: %d veículos%n", frota.tamanho() );
+    }
+
+
+    ResultadoCarga executar( Duration aquecimento, Duration duracao )
+        throws InterruptedException {
+
+        ResultadoCarga resultado = new ResultadoCarga( duracao );
+        long inicioMedicao = System.nanoTime() + aquecimento.toNanos();
+        long fim = inicioMedicao + duracao.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool( usuarios );
+        for ( int i = 0; i < usuarios; i++ ) {
+            Random random = new Random( semente + i + 1 );
+            executor.execute( () -> executarUsuario( random, inicioMedicao, fim, resultado ) );
+        }
+        executor.shutdown();
+        if ( !executor.awaitTermination( aquecimento.plus( duracao ).toSeconds() + 60, TimeUnit.SECONDS ) ) {
+            executor.shutdownNow();
+        }
+        return resultado;
+    }
+
+
+    private void executarUsuario( Random random, long inicioMedicao, long fim, ResultadoCarga resultado ) {
+
+        long inicio;
+        while ( ( inicio = System.nanoTime() ) < fim ) {
+            Operacao operacao = Operacao.sortear( random );
+            HttpRequest requisicao = montar( operacao, random );
+            if ( requisicao == null ) {
+                continue;
+            }
+
+            HttpResponse< String > resposta;
+            try {
+                resposta = http.send( requisicao, HttpResponse.BodyHandlers.ofString() );
+            } catch ( IOException e ) {
+                resposta = null;
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long duracao = System.nanoTime() - inicio;
+
+            boolean sucesso = resposta != null && resposta.statusCode() / 100 == 2;
+            if ( inicio >= inicioMedicao ) {
+                resultado.registrar( operacao, duracao, !sucesso );
+            }
+            if ( sucesso && operacao == Operacao.CRIAR ) {
+                frota.adicionar( id( resposta.body() ) );
+            }
+        }
+    }
+
+
+    private HttpRequest montar( Operacao operacao, Random random ) {
+
+        return switch ( operacao ) {
+            case LISTAR -> autenticada( leituras + "?page=" + random.nextInt( 20 ) + "&size=20" ).GET().build();
+            case LISTAR_CURSOR -> autenticada( "/veiculos?cursor=&size=20" ).GET().build();
+            case FILTRAR -> autenticada( leituras + "?marca=" + sortear( MARCAS, random ) + "&ano=" + ( 2000 + random.nextInt( 25 ) ) + "&size=20" ).GET()
+                .build();
+            case BUSCAR -> comVeiculo( random, id -> autenticada( leituras + "/" + id ).GET().build() );
+            case RELATORIO_POR_MARCA -> autenticada( leituras + "/relatorios/por-marca" ).GET().build();
+            case RELATORIO_ANALITICO -> autenticada( "/veiculos/relatorios/analitico" ).GET().build();
+            case CRIAR -> autenticada( "/veiculos" ).header( "Content-Type", JSON ).POST( HttpRequest.BodyPublishers.ofString( veiculo( random ) ) )
+                .build();
+            case ATUALIZAR -> comVeiculo( random, id -> autenticada( "/veiculos/" + id ).header( "Content-Type", JSON )
+                .PUT( HttpRequest.BodyPublishers.ofString( veiculo( random ) ) ).build() );
+            case ATUALIZAR_PARCIAL -> comVeiculo( random, id -> autenticada( "/veiculos/" + id ).header( "Content-Type", JSON )
+                .method( "PATCH", HttpRequest.BodyPublishers.ofString( "{\"cor\":\"" + sortear( CORES, random ) + "\"}" ) ).build() );
+            case REMOVER -> {
+                // Sai da frota antes do DELETE para nenhum outro usuário sortear um veículo já removido
+                Long id = frota.remover( random );
+                yield id == null ? null : autenticada( "/veiculos/" + id ).DELETE().build();
+            }
+            case LOGIN -> HttpRequest.newBuilder( URI.create( baseUrl + "/auth/login" ) ).header( "Content-Type", JSON )
+                .POST( HttpRequest.BodyPublishers.ofString( random.nextBoolean() ? credenciais( "admin", "admin123" ) : credenciais( "user", "user123" ) ) )
+                .build();
+        };
+    }
+
+
+    private HttpRequest comVeiculo( Random random, LongFunction< HttpRequest > requisicao ) {
+
+        Long id = frota.sortear( random );
+        return id == null ? null : requisicao.apply( id );
+    }
+
+
+    private HttpRequest.Builder autenticada( String caminho ) {
+
+        return HttpRequest.newBuilder( URI.create( baseUrl + caminho ) ).header( "Authorization", "Bearer " + token ).timeout( Duration.ofSeconds( 30 ) );
+    }
+
+
+    private String login( String username, String password )
+        throws IOException, InterruptedException {
+
+        HttpResponse< String > resposta = http.send( HttpRequest.newBuilder( URI.create( baseUrl + "/auth/login" ) ).header( "Content-Type", JSON )
+            .POST( HttpRequest.BodyPublishers.ofString( credenciais( username, password ) ) ).build(), HttpResponse.BodyHandlers.ofString() );
+        exigirSucesso( resposta, "login" );
+        return objectMapper.readTree( resposta.body() ).path( "token" ).asText();
+    }
+
+
+    private String credenciais( String username, String password ) {
+
+        ObjectNode corpo = objectMapper.createObjectNode();
+        corpo.put( "username", username );
+        corpo.put( "password", password );
+        return corpo.toString();
+    }
+
+
+    // Placa única por requisição (AAA0000), para criações e atualizações nunca colidirem
+    private String veiculo( Random random ) {
+
+        int sequencia = sequenciaPlaca.getAndIncrement();
+        int prefixo = sequencia / 10_000;
+        String placa = "" + ( char ) ( 'A' + prefixo / 676 % 26 ) + ( char ) ( 'A' + prefixo / 26 % 26 ) + ( char ) ( 'A' + prefixo % 26 )
+            + String.format( "%04d", sequencia % 10_000 );
+
+        ObjectNode corpo = objectMapper.createObjectNode();
+        corpo.put( "marca", sortear( MARCAS, random ) );
+        corpo.put( "modelo", "Modelo " + ( char ) ( 'A' + random.nextInt( 26 ) ) );
+        corpo.put( "ano", 2000 + random.nextInt( 25 ) );
+        corpo.put( "cor", sortear( CORES, random ) );
+        corpo.put( "placa", placa );
+        corpo.put( "precoBrl", BigDecimal.valueOf( 3_000_000L + random.nextInt( 30_000_000 ), 2 ) );
+        return corpo.toString();
+    }
+
+
+    private long id( String corpo ) {
+
+        try {
+            return objectMapper.readTree( corpo ).path( "id" ).asLong();
+        } catch ( IOException e ) {
+            throw new IllegalStateException( "Resposta sem id: " + corpo, e );
+        }
+    }
+
+
+    private static String sortear( String[] valores, Random random ) {
+
+        return valores[ random.nextInt( valores.length ) ];
+    }
+
+
+    private static void exigirSucesso( HttpResponse< ? > resposta, String etapa ) {
+
+        if ( resposta.statusCode() / 100 != 2 ) {
+            throw new IllegalStateException( "Falha na etapa de " + etapa + ": HTTP " + resposta.statusCode() + " " + resposta.body() );
+        }
+    }
+
+
+    // Ids dos veículos existentes, compartilhados entre os usuários virtuais
+    private static class Frota {
+
+        private final List< Long > ids = new ArrayList<>();
+
+        synchronized void adicionar( long id ) {
+
+            ids.add( id );
+        }
+
+
+        synchronized Long sortear( Random random ) {
+
+            return ids.isEmpty() ? null : ids.get( random.nextInt( ids.size() ) );
+        }
+
+
+        // Troca com o último para remover em O(1)
+        synchronized Long remover( Random random ) {
+
+            if ( ids.isEmpty() ) {
+                return null;
+            }
+            int indice = random.nextInt( ids.size() );
+            Long id = ids.get( indice );
+            ids.set( indice, ids.get( ids.size() - 1 ) );
+            ids.remove( ids.size() - 1 );
+            return id;
+        }
+
+
+        synchronized int tamanho() {
+
+            return ids.size();
+        }
+    }
+}
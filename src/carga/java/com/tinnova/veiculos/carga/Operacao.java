@@ -0,0 +1,57 @@
+package com.tinnova.veiculos.carga;
+
+
+import java.util.Random;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+// Mix de tráfego do teste de carga: cada usuário virtual sorteia a próxima operação proporcionalmente ao peso
+// (predominantemente leitura, como o uso esperado da API)
+@Getter
+@RequiredArgsConstructor
+enum Operacao {
+
+    LISTAR( "GET /veiculos", 25 ),
+    LISTAR_CURSOR( "GET /veiculos?cursor", 10 ),
+    FILTRAR( "GET /veiculos?marca&ano", 10 ),
+    BUSCAR( "GET /veiculos/{id}", 25 ),
+    RELATORIO_POR_MARCA( "GET /veiculos/relatorios/por-marca", 4 ),
+    RELATORIO_ANALITICO( "GET /veiculos/relatorios/analitico", 4 ),
+    CRIAR( "POST /veiculos", 8 ),
+    ATUALIZAR( "PUT /veiculos/{id}", 5 ),
+    ATUALIZAR_PARCIAL( "PATCH /veiculos/{id}", 4 ),
+    REMOVER( "DELETE /veiculos/{id}", 2 ),
+    LOGIN( "POST /auth/login", 3 );
+
+    private static final Operacao[] OPERACOES = values();
+
+    private static final int PESO_TOTAL = pesoTotal();
+
+    private final String endpoint;
+
+    private final int peso;
+
+    static Operacao sortear( Random random ) {
+
+        int sorteio = random.nextInt( PESO_TOTAL );
+        for ( Operacao operacao : OPERACOES ) {
+            sorteio -= operacao.peso;
+            if ( sorteio < 0 ) {
+                return operacao;
+            }
+        }
+        return LISTAR;
+    }
+
+
+    private static int pesoTotal() {
+
+        int total = 0;
+        for ( Operacao operacao : OPERACOES ) {
+            total += operacao.peso;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,117 @@
+package com.tinnova.veiculos.carga;
+
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+
+// Latências por endpoint em histogramas HDR (microssegundos, 3 dígitos significativos) e contagem de respostas fora de 2xx
+class ResultadoCarga {
+
+    private static final long MAXIMO_MICROS = TimeUnit.MINUTES.toMicros( 1 );
+
+    private static final String CABECALHO_CSV = "endpoint,requisicoes,erros,req_s,p50_ms,p99_ms,p999_ms,max_ms";
+
+    private final Map< Operacao, Histogram > latencias = new EnumMap<>( Operacao.class );
+
+    private final Map< Operacao, LongAdder > erros = new EnumMap<>( Operacao.class );
+
+    private final Duration janela;
+
+    ResultadoCarga( Duration janela ) {
+
+        this.janela = janela;
+        for ( Operacao operacao : Operacao.values() ) {
+            latencias.put( operacao, new ConcurrentHistogram( MAXIMO_MICROS, 3 ) );
+            erros.put( operacao, new LongAdder() );
+        }
+    }
+
+
+    void registrar( Operacao operacao, long duracaoNanos, boolean erro ) {
+
+        latencias.get( operacao ).recordValue( Math.min( TimeUnit.NANOSECONDS.toMicros( duracaoNanos ), MAXIMO_MICROS ) );
+        if ( erro ) {
+            erros.get( operacao ).increment();
+        }
+    }
+
+
+    void imprimir( PrintStream saida ) {
+
+        saida.printf( "%n%-36s %10s %8s %10s %10s %10s %10s %10s%n", "Endpoint", "Req", "Erros", "Req/s", "p50 ms", "p99 ms", "p999 ms", "máx ms" );
+        for ( Linha linha : linhas() ) {
+            saida.printf( Locale.ROOT, "%-36s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n", linha.endpoint, linha.requisicoes, linha.erros, linha.vazao,
+                linha.p50, linha.p99, linha.p999, linha.maximo );
+        }
+        saida.printf( "%nJanela de medição: %ds%n", janela.toSeconds() );
+    }
+
+
+    void gravar( Path diretorio )
+        throws IOException {
+
+        List< String > csv = new ArrayList<>();
+        csv.add( CABECALHO_CSV );
+        for ( Linha linha : linhas() ) {
+            csv.add( String.format( Locale.ROOT, "%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f", linha.endpoint, linha.requisicoes, linha.erros, linha.vazao, linha.p50,
+                linha.p99, linha.p999, linha.maximo ) );
+        }
+        Files.createDirectories( diretorio );
+        Files.write( diretorio.resolve( "resultado.csv" ), csv );
+    }
+
+
+    // Uma linha por endpoint exercitado e o total de todas as requisições no fim
+    private List< Linha > linhas() {
+
+        List< Linha > linhas = new ArrayList<>();
+        Histogram total = new Histogram( MAXIMO_MICROS, 3 );
+        long errosTotal = 0;
+
+        for ( Operacao operacao : Operacao.values() ) {
+            Histogram histograma = latencias.get( operacao );
+            if ( histograma.getTotalCount() == 0 ) {
+                continue;
+            }
+            long errosOperacao = erros.get( operacao ).sum();
+            linhas.add( linha( operacao.getEndpoint(), histograma, errosOperacao ) );
+            total.add( histograma );
+            errosTotal += errosOperacao;
+        }
+
+        linhas.add( linha( "TOTAL", total, errosTotal ) );
+        return linhas;
+    }
+
+
+    private Linha linha( String endpoint, Histogram histograma, long errosOperacao ) {
+
+        double segundos = janela.toMillis() / 1000.0;
+        return new Linha( endpoint, histograma.getTotalCount(), errosOperacao, histograma.getTotalCount() / segundos, milissegundos( histograma, 50 ),
+            milissegundos( histograma, 99 ), milissegundos( histograma, 99.9 ), histograma.getMaxValue() / 1000.0 );
+    }
+
+
+    private static double milissegundos( Histogram histograma, double percentil ) {
+
+        return histograma.getValueAtPercentile( percentil ) / 1000.0;
+    }
+
+
+    private record Linha( String endpoint, long requisicoes, long erros, double vazao, double p50, double p99, double p999, double maximo ) {
+    }
+}
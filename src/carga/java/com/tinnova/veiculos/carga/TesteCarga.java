@@ -0,0 +1,114 @@
+package com.tinnova.veiculos.carga;
+
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.tinnova.veiculos.VeiculosApiApplication;
+import com.tinnova.veiculos.support.StubHttpServer;
+
+import redis.embedded.RedisServer;
+
+
+// Teste de carga ponta a ponta: sobe a aplicação completa (perfil carga) contra H2 em modo PostgreSQL, Redis embarcado e o
+// stub das APIs de câmbio, popula a base pela importação em lote e dispara tráfego misto nos endpoints de veículos e de login.
+// Latências e vazão por endpoint vão para o console e para target/carga/resultado.csv.
+//
+// mvn -Pcarga test-compile exec:exec
+//     -Dcarga.args="--usuarios=32 --aquecimento=PT10S --duracao=PT60S --veiculos=2000 [--atraso-cambio=PT0.05S] [--semente=42]
+//     [--threads-virtuais=true] [--leitura-reativa=true]"
+//
+// Com --threads-virtuais=true a aplicação sobe também com o perfil virtual (exige Java 21, perfil Maven java21); rodar com os
+// mesmos argumentos nos dois modos compara a vazão com threads de plataforma e com virtual threads.
+// Com --leitura-reativa=true listagem, filtro, busca por id e relatório por marca vão para /reativo/veiculos (R2DBC), com o
+// mesmo mix de escritas pelo JPA; comparar com a execução padrão mede a API reativa contra a MVC.
+public final class TesteCarga {
+
+    private static final String COTACAO = """
+        {"USDBRL":{"code":"USD","codein":"BRL","bid":"5.4021","ask":"5.4051","timestamp":"1717797598","create_date":"2024-06-07 18:59:58"}}""";
+
+    private TesteCarga() {
+    }
+
+
+    public static void main( String[] args )
+        throws Exception {
+
+        Map< String, String > opcoes = opcoes( args );
+        int usuarios = Integer.parseInt( opcoes.getOrDefault( "usuarios", "32" ) );
+        Duration aquecimento = Duration.parse( opcoes.getOrDefault( "aquecimento", "PT10S" ) );
+        Duration duracao = Duration.parse( opcoes.getOrDefault( "duracao", "PT60S" ) );
+        int veiculos = Integer.parseInt( opcoes.getOrDefault( "veiculos", "2000" ) );
+        Duration atrasoCambio = Duration.parse( opcoes.getOrDefault( "atraso-cambio", "PT0.05S" ) );
+        long semente = Long.parseLong( opcoes.getOrDefault( "semente", "42" ) );
+        boolean threadsVirtuais = Boolean.parseBoolean( opcoes.getOrDefault( "threads-virtuais", "false" ) );
+        boolean leituraReativa = Boolean.parseBoolean( opcoes.getOrDefault( "leitura-reativa", "false" ) );
+        if ( threadsVirtuais && Runtime.version().feature() < 21 ) {
+            throw new IllegalStateException( "--threads-virtuais exige Java 21 (perfil Maven java21); JVM atual: " + Runtime.version() );
+        }
+
+        // Sem o restart do devtools, que relançaria este main num novo classloader
+        System.setProperty( "spring.devtools.restart.enabled", "false" );
+
+        int portaRedis = portaLivre();
+        RedisServer redis = RedisServer.newRedisServer().bind( "127.0.0.1" ).port( portaRedis ).build();
+        redis.start();
+
+        try ( StubHttpServer cambio = StubHttpServer.iniciar().respondendo( 200, COTACAO ).comAtraso( atrasoCambio ) ) {
+            // Como argumentos de linha de comando, para prevalecerem sobre o application.yml
+            ConfigurableApplicationContext contexto = new SpringApplicationBuilder( VeiculosApiApplication.class )
+                .profiles( threadsVirtuais ? new String[] { "carga", "virtual" } : new String[] { "carga" } )
+                .run( "--server.port=0", "--spring.data.redis.host=127.0.0.1", "--spring.data.redis.port=" + portaRedis,
+                    "--exchange.api.primary.url=" + cambio.url( "/json/last/USD-BRL" ), "--exchange.api.fallback.url=" + cambio.url( "/latest" ) );
+
+            try {
+                int porta = ( ( WebServerApplicationContext ) contexto ).getWebServer().getPort();
+                GeradorCarga gerador = new GeradorCarga( "http://127.0.0.1:" + porta, usuarios, semente, leituraReativa );
+                gerador.popular( veiculos );
+
+                System.out.printf( "%nCarga: %d usuários, aquecimento %ds, medição %ds, Java %s, threads %s, leituras %s%n", usuarios,
+                    aquecimento.toSeconds(), duracao.toSeconds(), Runtime.version().feature(), threadsVirtuais ? "virtuais" : "de plataforma",
+                    leituraReativa ? "reativas (R2DBC)" : "MVC (JPA)" );
+                ResultadoCarga resultado = gerador.executar( aquecimento, duracao );
+                resultado.imprimir( System.out );
+                resultado.gravar( Path.of( "target", "carga" ) );
+            } finally {
+                contexto.close();
+            }
+        } finally {
+            redis.stop();
+        }
+    }
+
+
+    // --chave=valor
+    private static Map< String, String > opcoes( String[] args ) {
+
+        Map< String, String > opcoes = new HashMap<>();
+        for ( String arg : args ) {
+            int separador = arg.indexOf( '=' );
+            if ( !arg.startsWith( "--" ) || separador < 0 ) {
+                throw new IllegalArgumentException( "Argumento inválido: " + arg + " (esperado --chave=valor)" );
+            }
+            opcoes.put( arg.substring( 2, separador ), arg.substring( separador + 1 ) );
+        }
+        return opcoes;
+    }
+
+
+    private static int portaLivre()
+        throws IOException {
+
+        try ( ServerSocket socket = new ServerSocket( 0 ) ) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.tinnova.veiculos.benchmark;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+// Compara dois resultados JMH em JSON (-rf json) benchmark a benchmark: tempo (métrica principal) e bytes alocados por
+// operação (-prof gc). Sai com código 1 se algum piorar além do limite e da margem de erro das duas medições.
+//
+// mvn -Pjmh test-compile exec:exec -Djmh.main=com.tinnova.veiculos.benchmark.ComparadorResultados
+//     -Djmh.args="src/jmh/baseline.json target/jmh-result.json [limite-%]"
+public final class ComparadorResultados {
+
+    private static final String ALOCACAO = "gc.alloc.rate.norm";
+
+    private ComparadorResultados() {
+    }
+
+
+    public static void main( String[] args )
+        throws IOException {
+
+        if ( args.length < 2 ) {
+            System.err.println( "Uso: ComparadorResultados <baseline.json> <atual.json> [limite-%]" );
+            System.exit( 2 );
+        }
+
+        double limite = args.length > 2 ? Double.parseDouble( args[ 2 ] ) / 100 : 0.10;
+        Map< String, Medicao > baseline = ler( new File( args[ 0 ] ) );
+        Map< String, Medicao > atual = ler( new File( args[ 1 ] ) );
+
+        List< String > regressoes = new ArrayList<>();
+        System.out.printf( "%-75s %14s %14s %8s %12s %12s %8s%n", "Benchmark", "Baseline", "Atual", "Δ", "B/op base", "B/op atual", "Δ" );
+
+        for ( Map.Entry< String, Medicao > entrada : atual.entrySet() ) {
+            Medicao depois = entrada.getValue();
+            Medicao antes = baseline.get( entrada.getKey() );
+            if ( antes == null ) {
+                System.out.printf( "%-75s %14s %14.3f %8s%n", entrada.getKey(), "-", depois.score, "novo" );
+                continue;
+            }
+
+            double variacao = variacao( antes.score, depois.score, antes.maiorEMelhor );
+            double variacaoAlocacao = variacao( antes.alocacao, depois.alocacao, false );
+            System.out.printf( "%-75s %14.3f %14.3f %+7.1f%% %12.1f %12.1f %+7.1f%%%n", entrada.getKey(), antes.score, depois.score, variacao * 100,
+                antes.alocacao, depois.alocacao, variacaoAlocacao * 100 );
+
+            // Só conta como regressão o que passa do limite e também da soma das margens de erro (ruído da medição)
+            double piora = antes.maiorEMelhor ? antes.score - depois.score : depois.score - antes.score;
+            if ( variacao > limite && piora > antes.erro + depois.erro ) {
+                regressoes.add( entrada.getKey() + String.format( " (tempo %+.1f%%)", variacao * 100 ) );
+            }
+            if ( variacaoAlocacao > limite && depois.alocacao - antes.alocacao > 16 ) {
+                regressoes.add( entrada.getKey() + String.format( " (alocação %+.1f%%)", variacaoAlocacao * 100 ) );
+            }
+        }
+
+        if ( !regressoes.isEmpty() ) {
+            System.out.printf( "%nRegressões acima de %.0f%%:%n", limite * 100 );
+            regressoes.forEach( regressao -> System.out.println( "  " + regressao ) );
+            System.exit( 1 );
+        }
+        System.out.printf( "%nSem regressões acima de %.0f%%%n", limite * 100 );
+    }
+
+
+    // Variação relativa em que positivo é sempre pior
+    private static double variacao( double antes, double depois, boolean maiorEMelhor ) {
+
+        if ( antes == 0 ) {
+            return 0;
+        }
+        return maiorEMelhor ? ( antes - depois ) / antes : ( depois - antes ) / antes;
+    }
+
+
+    private static Map< String, Medicao > ler( File arquivo )
+        throws IOException {
+
+        Map< String, Medicao > medicoes = new LinkedHashMap<>();
+        for ( JsonNode resultado : new ObjectMapper().readTree( arquivo ) ) {
+            JsonNode principal = resultado.path( "primaryMetric" );
+            String modo = resultado.path( "mode" ).asText();
+
+            double alocacao = 0;
+            for ( Map.Entry< String, JsonNode > secundaria : iterar( resultado.path( "secondaryMetrics" ) ) ) {
+                if ( secundaria.getKey().endsWith( ALOCACAO ) ) {
+                    alocacao = secundaria.getValue().path( "score" ).asDouble();
+                }
+            }
+
+            double erro = principal.path( "scoreError" ).asDouble( 0 );
+            medicoes.put( chave( resultado ), new Medicao( principal.path( "score" ).asDouble(), Double.isNaN( erro ) ? 0 : erro, alocacao,
+                "thrpt".equals( modo ) ) );
+        }
+        return medicoes;
+    }
+
+
+    // Nome curto do benchmark mais os @Param, para casar a mesma configuração nos dois arquivos
+    private static String chave( JsonNode resultado ) {
+
+        String nome = resultado.path( "benchmark" ).asText().replace( "com.tinnova.veiculos.benchmark.", "" );
+        Map< String, String > params = new TreeMap<>();
+        for ( Map.Entry< String, JsonNode > param : iterar( resultado.path( "params" ) ) ) {
+            params.put( param.getKey(), param.getValue().asText() );
+        }
+        return params.isEmpty() ? nome : nome + params;
+    }
+
+
+    private static Iterable< Map.Entry< String, JsonNode > > iterar( JsonNode objeto ) {
+
+        return objeto::fields;
+    }
+
+
+    private record Medicao( double score, double erro, double alocacao, boolean maiorEMelhor ) {
+    }
+}
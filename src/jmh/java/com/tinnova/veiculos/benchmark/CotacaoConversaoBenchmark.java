@@ -0,0 +1,91 @@
+package com.tinnova.veiculos.benchmark;
+
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.tinnova.veiculos.service.CotacaoSnapshot;
+
+
+// Converte uma página de preços com a conta anterior em BigDecimal (multiply/divide + setScale HALF_UP a cada linha)
+// e com o CotacaoSnapshot em ponto fixo
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+public class CotacaoConversaoBenchmark {
+
+    @Param( { "10", "100" } )
+    private int tamanhoPagina;
+
+    private final BigDecimal cotacao = new BigDecimal( "5.2534" );
+
+    private CotacaoSnapshot snapshot;
+
+    private BigDecimal[] precosUsd;
+
+    private BigDecimal[] precosBrl;
+
+    @Setup
+    public void setUp() {
+
+        snapshot = CotacaoSnapshot.of( cotacao );
+
+        // Preços de veículos com centavos, como gravados na coluna preco_usd (escala 2)
+        Random random = new Random( 42 );
+        precosUsd = new BigDecimal[ tamanhoPagina ];
+        precosBrl = new BigDecimal[ tamanhoPagina ];
+        for ( int i = 0; i < tamanhoPagina; i++ ) {
+            precosUsd[ i ] = BigDecimal.valueOf( 500_000L + random.nextInt( 20_000_000 ), 2 );
+            precosBrl[ i ] = BigDecimal.valueOf( 2_500_000L + random.nextInt( 100_000_000 ), 2 );
+        }
+    }
+
+
+    @Benchmark
+    @SuppressWarnings( "deprecation" )
+    public void toBrlBigDecimal( Blackhole blackhole ) {
+
+        for ( BigDecimal valor : precosUsd ) {
+            blackhole.consume( valor.multiply( cotacao ).setScale( 2, BigDecimal.ROUND_HALF_UP ) );
+        }
+    }
+
+
+    @Benchmark
+    public void toBrlPontoFixo( Blackhole blackhole ) {
+
+        for ( BigDecimal valor : precosUsd ) {
+            blackhole.consume( snapshot.toBrl( valor ) );
+        }
+    }
+
+
+    @Benchmark
+    @SuppressWarnings( "deprecation" )
+    public void toUsdBigDecimal( Blackhole blackhole ) {
+
+        for ( BigDecimal valor : precosBrl ) {
+            blackhole.consume( valor.divide( cotacao, 2, BigDecimal.ROUND_HALF_UP ) );
+        }
+    }
+
+
+    @Benchmark
+    public void toUsdPontoFixo( Blackhole blackhole ) {
+
+        for ( BigDecimal valor : precosBrl ) {
+            blackhole.consume( snapshot.toUsd( valor ) );
+        }
+    }
+}
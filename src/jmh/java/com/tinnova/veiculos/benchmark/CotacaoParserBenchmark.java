@@ -0,0 +1,89 @@
+package com.tinnova.veiculos.benchmark;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tinnova.veiculos.service.parser.AwesomeApiCotacaoParser;
+import com.tinnova.veiculos.service.parser.FrankfurterCotacaoParser;
+
+
+// Compara o parsing por String.split (implementação anterior) com os parsers em streaming,
+// sobre respostas reais gravadas dos provedores
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+public class CotacaoParserBenchmark {
+
+    private final AwesomeApiCotacaoParser awesomeApiParser = new AwesomeApiCotacaoParser();
+
+    private final FrankfurterCotacaoParser frankfurterParser = new FrankfurterCotacaoParser();
+
+    private byte[] awesomeApi;
+
+    private byte[] frankfurter;
+
+    @Setup
+    public void setUp()
+        throws IOException {
+
+        awesomeApi = carregar( "/payloads/awesomeapi-usd-brl.json" );
+        frankfurter = carregar( "/payloads/frankfurter-usd-brl.json" );
+    }
+
+
+    @Benchmark
+    public BigDecimal awesomeApiSplit() {
+
+        // Inclui a decodificação do corpo em String, como fazia o bodyToMono( String.class )
+        String response = new String( awesomeApi, StandardCharsets.UTF_8 );
+        String bid = response.split( "\"bid\":\"" )[ 1 ].split( "\"" )[ 0 ];
+        return new BigDecimal( bid );
+    }
+
+
+    @Benchmark
+    public BigDecimal awesomeApiStreaming()
+        throws IOException {
+
+        return awesomeApiParser.parse( new ByteArrayInputStream( awesomeApi ) );
+    }
+
+
+    @Benchmark
+    public BigDecimal frankfurterSplit() {
+
+        String response = new String( frankfurter, StandardCharsets.UTF_8 );
+        String rate = response.split( "\"BRL\":" )[ 1 ].split( "}" )[ 0 ];
+        return new BigDecimal( rate );
+    }
+
+
+    @Benchmark
+    public BigDecimal frankfurterStreaming()
+        throws IOException {
+
+        return frankfurterParser.parse( new ByteArrayInputStream( frankfurter ) );
+    }
+
+
+    private byte[] carregar( String recurso )
+        throws IOException {
+
+        try ( InputStream in = CotacaoParserBenchmark.class.getResourceAsStream( recurso ) ) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.tinnova.veiculos.benchmark;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinnova.veiculos.entity.Veiculo;
+
+
+// Dados dos benchmarks: 100 veículos com marcas, modelos, placas e preços variados, como os da base real
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+
+    // Mesma configuração do ObjectMapper da aplicação (datas ISO-8601, módulos do classpath)
+    static ObjectMapper objectMapper() {
+
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+
+    static List< Veiculo > veiculos( int quantidade ) {
+
+        try ( InputStream in = Fixtures.class.getResourceAsStream( "/fixtures/veiculos.json" ) ) {
+            List< Veiculo > veiculos = objectMapper().readValue( in, new TypeReference< List< Veiculo > >() {
+            } );
+            return veiculos.subList( 0, Math.min( quantidade, veiculos.size() ) );
+        } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+    }
+}
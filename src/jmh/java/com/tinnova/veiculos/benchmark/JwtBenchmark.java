@@ -0,0 +1,72 @@
+package com.tinnova.veiculos.benchmark;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tinnova.veiculos.entity.Usuario;
+import com.tinnova.veiculos.enums.Role;
+import com.tinnova.veiculos.security.JwtUtil;
+import com.tinnova.veiculos.security.TokenVerificado;
+
+
+// Custo do JWT por requisição: emissão, verificação completa da assinatura (cache desligado) e acerto no cache de tokens
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+public class JwtBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-min-256-bits-0123456789abcdefghijklmnopqrstuvwxyz";
+
+    private static final long EXPIRACAO = 86_400_000L;
+
+    private final JwtUtil jwtUtil = new JwtUtil( SECRET, EXPIRACAO, 10_000 );
+
+    // maximumSize 0: toda chamada verifica a assinatura e lê as claims
+    private final JwtUtil jwtUtilSemCache = new JwtUtil( SECRET, EXPIRACAO, 0 );
+
+    private Usuario usuario;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+
+        usuario = new Usuario();
+        usuario.setUsername( "admin" );
+        usuario.setPassword( "senha" );
+        usuario.setRole( Role.ADMIN );
+        usuario.setVersao( 3L );
+
+        token = jwtUtil.generateToken( usuario );
+        jwtUtil.verificarToken( token );
+    }
+
+
+    @Benchmark
+    public String gerarToken() {
+
+        return jwtUtil.generateToken( usuario );
+    }
+
+
+    @Benchmark
+    public TokenVerificado verificarTokenSemCache() {
+
+        return jwtUtilSemCache.verificarToken( token );
+    }
+
+
+    @Benchmark
+    public TokenVerificado verificarTokenEmCache() {
+
+        return jwtUtil.verificarToken( token );
+    }
+}
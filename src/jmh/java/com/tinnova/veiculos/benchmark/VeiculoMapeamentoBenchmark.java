@@ -0,0 +1,77 @@
+package com.tinnova.veiculos.benchmark;
+
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.service.CotacaoSnapshot;
+import com.tinnova.veiculos.service.VeiculoService;
+
+
+// Caminho de resposta da listagem: entidade → VeiculoResponse (com conversão para BRL) e a serialização da Page pelo Jackson
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+public class VeiculoMapeamentoBenchmark {
+
+    @Param( { "10", "100" } )
+    private int tamanhoPagina;
+
+    private final ObjectMapper objectMapper = Fixtures.objectMapper();
+
+    private final CotacaoSnapshot cotacao = CotacaoSnapshot.of( new BigDecimal( "5.2534" ) );
+
+    private Page< Veiculo > veiculos;
+
+    private Page< VeiculoResponse > respostas;
+
+    @Setup
+    public void setUp() {
+
+        List< Veiculo > conteudo = Fixtures.veiculos( tamanhoPagina );
+        veiculos = new PageImpl<>( conteudo, PageRequest.of( 0, tamanhoPagina, Sort.by( "id" ) ), 100_000 );
+        respostas = veiculos.map( veiculo -> VeiculoService.toResponse( veiculo, cotacao ) );
+    }
+
+
+    @Benchmark
+    public Page< VeiculoResponse > toResponsePage() {
+
+        return veiculos.map( veiculo -> VeiculoService.toResponse( veiculo, cotacao ) );
+    }
+
+
+    @Benchmark
+    public byte[] serializarPage()
+        throws JsonProcessingException {
+
+        return objectMapper.writeValueAsBytes( respostas );
+    }
+
+
+    // Caminho completo da listagem depois da consulta: mapeamento + serialização
+    @Benchmark
+    public byte[] mapearESerializarPage()
+        throws JsonProcessingException {
+
+        return objectMapper.writeValueAsBytes( veiculos.map( veiculo -> VeiculoService.toResponse( veiculo, cotacao ) ) );
+    }
+}
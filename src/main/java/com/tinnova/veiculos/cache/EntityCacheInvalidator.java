@@ -0,0 +1,88 @@
+package com.tinnova.veiculos.cache;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+
+// O segundo nível do Hibernate é local a cada nó: o nó que escreve já atualiza a própria região, e após o commit avisa os
+// demais pelo Redis para descartarem a entidade (ou a região inteira, sem id)
+@Slf4j
+public class EntityCacheInvalidator implements MessageListener {
+
+    private static final String SEPARADOR = "|";
+
+    private final SessionFactory sessionFactory;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String canalInvalidacao;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public EntityCacheInvalidator( EntityManagerFactory entityManagerFactory, StringRedisTemplate redisTemplate, String canalInvalidacao ) {
+
+        this.sessionFactory = entityManagerFactory.unwrap( SessionFactory.class );
+        this.redisTemplate = redisTemplate;
+        this.canalInvalidacao = canalInvalidacao;
+    }
+
+
+    public void invalidar( Class< ? > entidade, Long id ) {
+
+        String mensagem = nodeId + SEPARADOR + entidade.getName() + SEPARADOR + ( id != null ? id : "" );
+
+        // Dentro de uma transação, só depois do commit: antes disso os outros nós recarregariam o valor antigo
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+
+                @Override
+                public void afterCommit() {
+
+                    publicar( mensagem );
+                }
+            } );
+        } else {
+            publicar( mensagem );
+        }
+    }
+
+
+    private void publicar( String mensagem ) {
+
+        try {
+            redisTemplate.convertAndSend( canalInvalidacao, mensagem );
+        } catch ( Exception e ) {
+            log.warn( "Falha ao publicar invalidação do segundo nível ({}): {}", mensagem, e.getMessage() );
+        }
+    }
+
+
+    @Override
+    public void onMessage( Message message, byte[] pattern ) {
+
+        String[] partes = new String( message.getBody(), StandardCharsets.UTF_8 ).split( "\\|", -1 );
+        if ( partes.length != 3 || nodeId.equals( partes[ 0 ] ) ) {
+            return;
+        }
+
+        String entidade = partes[ 1 ];
+        if ( partes[ 2 ].isEmpty() ) {
+            log.debug( "Invalidando região de {} (origem: {})", entidade, partes[ 0 ] );
+            sessionFactory.getCache().evictEntityData( entidade );
+        } else {
+            log.debug( "Invalidando {}#{} (origem: {})", entidade, partes[ 2 ], partes[ 0 ] );
+            sessionFactory.getCache().evictEntityData( entidade, Long.valueOf( partes[ 2 ] ) );
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.tinnova.veiculos.cache;
+
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+// Cache em dois níveis: Caffeine local (pequeno e de TTL curto) na frente do Redis compartilhado.
+// Leituras contadas em cache.gets (tags cache, result hit/miss e nivel local/redis)
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+
+    // Guarda o ValueWrapper para que valores nulos cacheados no Redis também sejam servidos localmente. A chave é a forma
+    // textual da chave do Spring, a mesma que segue na mensagem de invalidação para os demais nós
+    private final com.github.benmanes.caffeine.cache.Cache< String, ValueWrapper > local;
+
+    private final Cache remote;
+
+    private final TwoLevelCacheManager cacheManager;
+
+    private final Counter acertosLocais;
+
+    private final Counter acertosRemotos;
+
+    private final Counter faltas;
+
+    public TwoLevelCache(
+        String name,
+        com.github.benmanes.caffeine.cache.Cache< String, ValueWrapper > local,
+        Cache remote,
+        TwoLevelCacheManager cacheManager,
+        MeterRegistry meterRegistry ) {
+
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.cacheManager = cacheManager;
+        this.acertosLocais = contador( meterRegistry, "hit", "local" );
+        this.acertosRemotos = contador( meterRegistry, "hit", "redis" );
+        this.faltas = contador( meterRegistry, "miss", "redis" );
+    }
+
+
+    @Override
+    public String getName() {
+
+        return name;
+    }
+
+
+    @Override
+    public Object getNativeCache() {
+
+        return this;
+    }
+
+
+    @Override
+    public ValueWrapper get( Object key ) {
+
+        ValueWrapper valor = local.getIfPresent( chaveLocal( key ) );
+        if ( valor != null ) {
+            acertosLocais.increment();
+            return valor;
+        }
+
+        valor = remote.get( key );
+        if ( valor != null ) {
+            acertosRemotos.increment();
+            local.put( chaveLocal( key ), valor );
+        } else {
+            faltas.increment();
+        }
+        return valor;
+    }
+
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public < T > T get( Object key, Class< T > type ) {
+
+        ValueWrapper valor = get( key );
+        Object conteudo = valor != null ? valor.get() : null;
+
+        if ( conteudo != null && type != null && !type.isInstance( conteudo ) ) {
+            throw new IllegalStateException( "Valor em cache não é do tipo esperado [" + type.getName() + "]: " + conteudo );
+        }
+        return ( T ) conteudo;
+    }
+
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public < T > T get( Object key, Callable< T > valueLoader ) {
+
+        ValueWrapper valor = get( key );
+        if ( valor != null ) {
+            return ( T ) valor.get();
+        }
+
+        T carregado = remote.get( key, valueLoader );
+        local.put( chaveLocal( key ), new SimpleValueWrapper( carregado ) );
+        return carregado;
+    }
+
+
+    // Leitura assíncrona (@Cacheable em métodos reativos): o nível local responde na hora, o Redis sem bloquear a thread
+    @Override
+    public CompletableFuture< ? > retrieve( Object key ) {
+
+        ValueWrapper valor = local.getIfPresent( chaveLocal( key ) );
+        if ( valor != null ) {
+            acertosLocais.increment();
+            return CompletableFuture.completedFuture( valor );
+        }
+
+        CompletableFuture< ? > remoto = remote.retrieve( key );
+        if ( remoto == null ) {
+            faltas.increment();
+            return null;
+        }
+        return remoto.thenApply( encontrado -> {
+            if ( encontrado == null ) {
+                faltas.increment();
+                return null;
+            }
+            acertosRemotos.increment();
+            ValueWrapper wrapper = encontrado instanceof ValueWrapper valueWrapper ? valueWrapper : new SimpleValueWrapper( encontrado );
+            local.put( chaveLocal( key ), wrapper );
+            return wrapper;
+        } );
+    }
+
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public < T > CompletableFuture< T > retrieve( Object key, Supplier< CompletableFuture< T > > valueLoader ) {
+
+        ValueWrapper valor = local.getIfPresent( chaveLocal( key ) );
+        if ( valor != null ) {
+            acertosLocais.increment();
+            return CompletableFuture.completedFuture( ( T ) valor.get() );
+        }
+
+        // O Redis só chama o valueLoader na falta; sem a chamada, o valor veio dele
+        AtomicBoolean carregou = new AtomicBoolean();
+        Supplier< CompletableFuture< T > > carregar = () -> {
+            carregou.set( true );
+            return valueLoader.get();
+        };
+        return remote.retrieve( key, carregar ).thenApply( carregado -> {
+            ( carregou.get() ? faltas : acertosRemotos ).increment();
+            local.put( chaveLocal( key ), new SimpleValueWrapper( carregado ) );
+            return carregado;
+        } );
+    }
+
+
+    // Alteração de uma chave invalida só essa chave nos demais nós; o restante do nível local deles continua válido
+    @Override
+    public void put( Object key, Object value ) {
+
+        String chave = chaveLocal( key );
+        remote.put( key, value );
+        local.put( chave, new SimpleValueWrapper( value ) );
+        cacheManager.publicarInvalidacao( name, chave );
+    }
+
+
+    @Override
+    public void evict( Object key ) {
+
+        String chave = chaveLocal( key );
+        remote.evict( key );
+        local.invalidate( chave );
+        cacheManager.publicarInvalidacao( name, chave );
+    }
+
+
+    @Override
+    public void clear() {
+
+        remote.clear();
+        local.invalidateAll();
+        cacheManager.publicarInvalidacao( name );
+    }
+
+
+    // Descartam apenas o nível local (usados ao receber invalidação de outro nó)
+    void evictLocal( String chave ) {
+
+        local.invalidate( chave );
+    }
+
+
+    void clearLocal() {
+
+        local.invalidateAll();
+    }
+
+
+    // Mesma conversão do RedisCache para chaves sem conversor registrado: SimpleKey e String já têm forma textual estável
+    private static String chaveLocal( Object key ) {
+
+        return String.valueOf( key );
+    }
+
+
+    private Counter contador( MeterRegistry meterRegistry, String resultado, String nivel ) {
+
+        return Counter.builder( "cache.gets" ).tag( "cache", name ).tag( "result", resultado ).tag( "nivel", nivel ).register( meterRegistry );
+    }
+}
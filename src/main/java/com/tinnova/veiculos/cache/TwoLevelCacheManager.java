@@ -0,0 +1,154 @@
+package com.tinnova.veiculos.cache;
+
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+
+// Monta caches de dois níveis sobre o cache remoto e sincroniza o nível local entre os nós via Redis pub/sub
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private static final String SEPARADOR = "|";
+
+    private final CacheManager remoteCacheManager;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String canalInvalidacao;
+
+    private final long localMaximumSize;
+
+    private final Duration localTtl;
+
+    private final MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap< String, TwoLevelCache > caches = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap< String, Cache > decorados = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(
+        CacheManager remoteCacheManager,
+        StringRedisTemplate redisTemplate,
+        String canalInvalidacao,
+        long localMaximumSize,
+        Duration localTtl,
+        MeterRegistry meterRegistry ) {
+
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.canalInvalidacao = canalInvalidacao;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+        this.meterRegistry = meterRegistry;
+    }
+
+
+    // Dentro de uma transação, put/evict só são aplicados após o commit: uma leitura concorrente não recoloca no cache
+    // um valor anterior à escrita que ainda não foi confirmada
+    @Override
+    public Cache getCache( String name ) {
+
+        return decorados.computeIfAbsent( name, nome -> {
+            TwoLevelCache cache = caches.computeIfAbsent( nome, this::criarCache );
+            return cache != null ? new TransactionAwareCacheDecorator( cache ) : null;
+        } );
+    }
+
+
+    @Override
+    public Collection< String > getCacheNames() {
+
+        return remoteCacheManager.getCacheNames();
+    }
+
+
+    private TwoLevelCache criarCache( String name ) {
+
+        Cache remote = remoteCacheManager.getCache( name );
+        if ( remote == null ) {
+            return null;
+        }
+
+        return new TwoLevelCache( name, Caffeine.newBuilder().maximumSize( localMaximumSize ).expireAfterWrite( localTtl ).build(), remote, this,
+            meterRegistry );
+    }
+
+
+    // Avisa os demais nós que o cache inteiro mudou (clear) para que descartem o nível local
+    void publicarInvalidacao( String cacheName ) {
+
+        publicar( nodeId + SEPARADOR + cacheName, cacheName );
+    }
+
+
+    // Avisa os demais nós que uma chave mudou para que descartem só a cópia local dela
+    void publicarInvalidacao( String cacheName, String chave ) {
+
+        publicar( nodeId + SEPARADOR + cacheName + SEPARADOR + chave, cacheName );
+    }
+
+
+    private void publicar( String mensagem, String cacheName ) {
+
+        try {
+            redisTemplate.convertAndSend( canalInvalidacao, mensagem );
+        } catch ( Exception e ) {
+            log.warn( "Falha ao publicar invalidação do cache {}: {}", cacheName, e.getMessage() );
+        }
+    }
+
+
+    // Formato: origem|cache para o cache inteiro, origem|cache|chave para uma chave (a chave pode conter o separador)
+    @Override
+    public void onMessage( Message message, byte[] pattern ) {
+
+        String corpo = new String( message.getBody(), StandardCharsets.UTF_8 );
+        int separador = corpo.indexOf( SEPARADOR );
+        if ( separador < 0 ) {
+            return;
+        }
+
+        String origem = corpo.substring( 0, separador );
+        String destino = corpo.substring( separador + 1 );
+        int separadorChave = destino.indexOf( SEPARADOR );
+        String cacheName = separadorChave < 0 ? destino : destino.substring( 0, separadorChave );
+
+        // Mensagens publicadas por este nó já foram aplicadas localmente
+        if ( nodeId.equals( origem ) ) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get( cacheName );
+        if ( cache == null ) {
+            return;
+        }
+
+        if ( separadorChave < 0 ) {
+            log.debug( "Invalidando nível local do cache {} (origem: {})", cacheName, origem );
+            cache.clearLocal();
+        } else {
+            String chave = destino.substring( separadorChave + 1 );
+            log.debug( "Invalidando chave {} no nível local do cache {} (origem: {})", chave, cacheName, origem );
+            cache.evictLocal( chave );
+        }
+    }
+}
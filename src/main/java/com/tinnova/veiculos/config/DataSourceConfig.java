@@ -0,0 +1,51 @@
+package com.tinnova.veiculos.config;
+
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+
+// Com o R2DBC no classpath o Spring Boot deixa de configurar o DataSource JDBC (e o script de inicialização passaria a rodar
+// pelo R2DBC, antes do Hibernate criar as tabelas). O JPA continua sendo o caminho principal: DataSource, transações e
+// schema-postgresql.sql são declarados aqui, com as mesmas propriedades spring.datasource.* e spring.sql.init.*
+@Configuration
+@EnableConfigurationProperties( { DataSourceProperties.class, SqlInitializationProperties.class } )
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties( "spring.datasource.hikari" )
+    public HikariDataSource dataSource( DataSourceProperties properties ) {
+
+        return properties.initializeDataSourceBuilder().type( HikariDataSource.class ).build();
+    }
+
+
+    // Principal para os @Transactional e o TransactionTemplate; o R2dbcTransactionManager fica só para o lado reativo
+    @Bean
+    @Primary
+    public JpaTransactionManager transactionManager( EntityManagerFactory entityManagerFactory ) {
+
+        return new JpaTransactionManager( entityManagerFactory );
+    }
+
+
+    // Respeita spring.sql.init.mode e, com spring.jpa.defer-datasource-initialization, roda depois do Hibernate
+    @Bean
+    public SqlDataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer( DataSource dataSource, SqlInitializationProperties properties ) {
+
+        return new SqlDataSourceScriptDatabaseInitializer( dataSource, properties );
+    }
+}
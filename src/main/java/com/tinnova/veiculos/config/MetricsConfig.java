@@ -0,0 +1,20 @@
+package com.tinnova.veiculos.config;
+
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+// Habilita o @Timed nos beans da aplicação (timers por classe e método, publicados em /actuator/prometheus)
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect( MeterRegistry registry ) {
+
+        return new TimedAspect( registry );
+    }
+}
@@ -3,28 +3,103 @@ package com.tinnova.veiculos.config;
 
 import java.time.Duration;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+
+import com.tinnova.veiculos.cache.EntityCacheInvalidator;
+import com.tinnova.veiculos.cache.TwoLevelCacheManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
 
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    @Value( "${cache.local.maximum-size:1000}" )
+    private long localMaximumSize;
+
+    @Value( "${cache.local.ttl:30s}" )
+    private Duration localTtl;
+
+    @Value( "${cache.usuario-status.ttl:30s}" )
+    private Duration usuarioStatusTtl;
+
+    @Value( "${cache.invalidation.channel:cache-invalidation}" )
+    private String canalInvalidacao;
+
+    @Value( "${cache.invalidation.entity-channel:entity-cache-invalidation}" )
+    private String canalInvalidacaoEntidades;
+
     @Bean
-    public RedisCacheManager cacheManager( RedisConnectionFactory connectionFactory ) {
+    @ConditionalOnProperty( name = "spring.cache.type", havingValue = "redis" )
+    public TwoLevelCacheManager cacheManager(
+        RedisConnectionFactory connectionFactory,
+        StringRedisTemplate redisTemplate,
+        MeterRegistry meterRegistry ) {
 
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig().entryTtl( Duration.ofHours( 1 ) )
             .serializeKeysWith( RedisSerializationContext.SerializationPair.fromSerializer( new StringRedisSerializer() ) )
             .serializeValuesWith( RedisSerializationContext.SerializationPair.fromSerializer( new GenericJackson2JsonRedisSerializer() ) );
 
-        return RedisCacheManager.builder( connectionFactory ).cacheDefaults( config ).build();
+        // Situação do usuário com TTL curto: desativação ou troca de papel feita fora de UsuarioService.desativar (direto no
+        // banco, por exemplo) chega aos tokens já emitidos em no máximo esse TTL mais o do nível local
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder( connectionFactory ).cacheDefaults( config )
+            .withCacheConfiguration( "usuario-status", config.entryTtl( usuarioStatusTtl ) ).build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoLevelCacheManager( redisCacheManager, redisTemplate, canalInvalidacao, localMaximumSize, localTtl, meterRegistry );
+    }
+
+
+    @Bean
+    @ConditionalOnProperty( name = "spring.cache.type", havingValue = "redis" )
+    public EntityCacheInvalidator entityCacheInvalidator( EntityManagerFactory entityManagerFactory, StringRedisTemplate redisTemplate ) {
+
+        return new EntityCacheInvalidator( entityManagerFactory, redisTemplate, canalInvalidacaoEntidades );
+    }
+
+
+    // Recebe as invalidações publicadas pelos outros nós e limpa o nível local correspondente (caches do Spring e
+    // segundo nível do Hibernate)
+    @Bean
+    @ConditionalOnProperty( name = "spring.cache.type", havingValue = "redis" )
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+        RedisConnectionFactory connectionFactory,
+        TwoLevelCacheManager cacheManager,
+        EntityCacheInvalidator entityCacheInvalidator ) {
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory( connectionFactory );
+        container.addMessageListener( cacheManager, new ChannelTopic( canalInvalidacao ) );
+        container.addMessageListener( entityCacheInvalidator, new ChannelTopic( canalInvalidacaoEntidades ) );
+        return container;
+    }
+
+
+    // Leitor do stream de eventos de veículos repassados por SSE (VeiculoEventoStream): uma conexão dedicada por nó,
+    // iniciada e parada junto com o contexto (o container não tem auto-startup)
+    @Bean( initMethod = "start" )
+    @ConditionalOnProperty( name = "veiculos.eventos.sse.enabled", havingValue = "true", matchIfMissing = true )
+    public StreamMessageListenerContainer< String, MapRecord< String, String, String > > veiculoEventoListenerContainer(
+        RedisConnectionFactory connectionFactory ) {
+
+        return StreamMessageListenerContainer.create( connectionFactory,
+            StreamMessageListenerContainer.StreamMessageListenerContainerOptions.builder().pollTimeout( Duration.ofSeconds( 1 ) ).build() );
     }
-}
\ No newline at end of file
+}
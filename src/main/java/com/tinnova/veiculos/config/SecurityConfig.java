@@ -21,6 +21,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 import com.tinnova.veiculos.security.JwtAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 
@@ -50,10 +51,13 @@ public class SecurityConfig {
                 response.getWriter().write( json );
             } ) )
             .authorizeHttpRequests(
-                auth -> auth.requestMatchers( "/auth/**" ).permitAll().requestMatchers( "/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html" ).permitAll()
-                    .requestMatchers( "/actuator/**" ).permitAll()
+                // O redespacho ASYNC da exportação em streaming não passa pelo filtro JWT; a requisição original já foi autorizada
+                auth -> auth.dispatcherTypeMatchers( DispatcherType.ASYNC ).permitAll().requestMatchers( "/auth/**" ).permitAll().requestMatchers( "/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html" ).permitAll()
+                    // Só o health fica aberto (probes do balanceador); métricas e prometheus revelam rotas, usuários e volumes
+                    .requestMatchers( "/actuator/health", "/actuator/health/**" ).permitAll().requestMatchers( "/actuator/**" ).hasRole( "ADMIN" )
+                    .requestMatchers( "/usuarios/**" ).hasRole( "ADMIN" )
                     // Regras de acesso por Role
-                    .requestMatchers( HttpMethod.GET, "/veiculos/**" ).hasAnyRole( "USER", "ADMIN" ).requestMatchers( HttpMethod.POST, "/veiculos/**" )
+                    .requestMatchers( HttpMethod.GET, "/veiculos/**", "/reativo/veiculos/**" ).hasAnyRole( "USER", "ADMIN" ).requestMatchers( HttpMethod.POST, "/veiculos/**" )
                     .hasRole( "ADMIN" ).requestMatchers( HttpMethod.PUT, "/veiculos/**" ).hasRole( "ADMIN" ).requestMatchers( HttpMethod.PATCH, "/veiculos/**" )
                     .hasRole( "ADMIN" ).requestMatchers( HttpMethod.DELETE, "/veiculos/**" ).hasRole( "ADMIN" ).anyRequest().authenticated() )
             .authenticationProvider( authenticationProvider() ).addFilterBefore( jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class );
@@ -1,17 +1,75 @@
 package com.tinnova.veiculos.config;
 
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
 
 @Configuration
 public class WebClientConfig {
 
+    @Value( "${exchange.http.max-connections:20}" )
+    private int maxConnections;
+
+    @Value( "${exchange.http.pending-acquire-max-count:100}" )
+    private int pendingAcquireMaxCount;
+
+    @Value( "${exchange.http.pending-acquire-timeout:PT2S}" )
+    private Duration pendingAcquireTimeout;
+
+    @Value( "${exchange.http.max-idle-time:PT30S}" )
+    private Duration maxIdleTime;
+
+    @Value( "${exchange.http.max-life-time:PT5M}" )
+    private Duration maxLifeTime;
+
+    @Value( "${exchange.http.connect-timeout:PT1S}" )
+    private Duration connectTimeout;
+
+    @Value( "${exchange.http.response-timeout:PT2S}" )
+    private Duration responseTimeout;
+
+    @Value( "${exchange.http.max-in-memory-size:64KB}" )
+    private DataSize maxInMemorySize;
+
     @Bean
     public WebClient.Builder webClientBuilder() {
 
         return WebClient.builder();
     }
-}
\ No newline at end of file
+
+
+    // Pool dedicado às APIs de câmbio (um pool por host remoto), com métricas publicadas no Micrometer
+    @Bean( destroyMethod = "dispose" )
+    public ConnectionProvider cambioConnectionProvider() {
+
+        return ConnectionProvider.builder( "cambio" ).maxConnections( maxConnections ).pendingAcquireMaxCount( pendingAcquireMaxCount )
+            .pendingAcquireTimeout( pendingAcquireTimeout ).maxIdleTime( maxIdleTime ).maxLifeTime( maxLifeTime ).evictInBackground( maxIdleTime )
+            .metrics( true ).build();
+    }
+
+
+    @Bean
+    public WebClient cambioWebClient( WebClient.Builder webClientBuilder, ConnectionProvider cambioConnectionProvider ) {
+
+        HttpClient httpClient = HttpClient.create( cambioConnectionProvider ).keepAlive( true )
+            .option( ChannelOption.CONNECT_TIMEOUT_MILLIS, ( int ) connectTimeout.toMillis() ).option( ChannelOption.SO_KEEPALIVE, true )
+            .responseTimeout( responseTimeout );
+
+        // Inicializa event loop, transporte nativo e resolvedor DNS na subida, fora do caminho da primeira requisição
+        httpClient.warmup().block();
+
+        return webClientBuilder.clone().clientConnector( new ReactorClientHttpConnector( httpClient ) )
+            .codecs( codecs -> codecs.defaultCodecs().maxInMemorySize( ( int ) maxInMemorySize.toBytes() ) ).build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.tinnova.veiculos.controller;
+
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tinnova.veiculos.service.UsuarioService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+
+@RestController
+@RequestMapping( "/usuarios" )
+@RequiredArgsConstructor
+@Tag( name = "Usuários", description = "Administração de usuários" )
+@SecurityRequirement( name = "bearerAuth" )
+public class UsuarioController {
+
+    private final UsuarioService usuarioService;
+
+    @PostMapping( "/{username}/desativar" )
+    @Operation( summary = "Desativar usuário",
+        description = "Apenas ADMIN. Os tokens já emitidos para o usuário passam a ser recusados na próxima requisição" )
+    public ResponseEntity< Void > desativar( @PathVariable String username ) {
+
+        usuarioService.desativar( username );
+
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,25 +1,44 @@
 package com.tinnova.veiculos.controller;
 
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.tinnova.veiculos.dto.request.FormatoExportacao;
+import com.tinnova.veiculos.dto.request.VeiculoFiltro;
 import com.tinnova.veiculos.dto.request.VeiculoRequest;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinnova.veiculos.dto.response.CursorPageResponse;
+import com.tinnova.veiculos.dto.response.LoteResponse;
+import com.tinnova.veiculos.dto.response.RelatorioAnaliticoResponse;
 import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
+import com.tinnova.veiculos.dto.response.RemocaoLoteResponse;
 import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.exception.VersaoDivergenteException;
+import com.tinnova.veiculos.service.VeiculoExportService;
+import com.tinnova.veiculos.service.VeiculoLoteService;
 import com.tinnova.veiculos.service.VeiculoService;
+import com.tinnova.veiculos.service.Versionado;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -33,36 +52,58 @@ public class VeiculoController {
 
     private final VeiculoService veiculoService;
 
+    private final VeiculoLoteService veiculoLoteService;
+
+    private final VeiculoExportService veiculoExportService;
+
+    private final ObjectMapper objectMapper;
+
     @GetMapping
-    @Operation( summary = "Listar todos os veículos", description = "Retorna todos os veículos com paginação e ordenação" )
+    @Operation( summary = "Listar todos os veículos",
+        description = "Retorna os veículos com paginação e ordenação; marca, ano, cor e faixa de preço (minPreco/maxPreco, em BRL) podem ser combinados. "
+            + "Com If-None-Match igual ao ETag atual, responde 304 sem corpo" )
     public ResponseEntity< Page< VeiculoResponse > > findAll(
         @PageableDefault( size = 10, sort = "id", direction = Sort.Direction.ASC ) Pageable pageable,
-        @RequestParam( required = false ) String marca,
-        @RequestParam( required = false ) Integer ano,
-        @RequestParam( required = false ) String cor,
-        @RequestParam( required = false ) BigDecimal minPreco,
-        @RequestParam( required = false ) BigDecimal maxPreco ) {
-
-        Page< VeiculoResponse > response;
-
-        if ( minPreco != null || maxPreco != null ) {
-            response = veiculoService.findByPrecoRange( minPreco, maxPreco, pageable );
-        } else if ( marca != null || ano != null || cor != null ) {
-            response = veiculoService.findByFiltros( marca, ano, cor, pageable );
-        } else {
-            response = veiculoService.findAll( pageable );
-        }
+        VeiculoFiltro filtro,
+        WebRequest request ) {
+
+        Versionado< Page< VeiculoResponse > > response = filtro.isVazio() ? veiculoService.findAll( pageable ) : veiculoService.buscar( filtro, pageable );
+        return responder( response, request );
+    }
 
+
+    @GetMapping( params = "cursor" )
+    @Operation( summary = "Listar veículos por cursor",
+        description = "Paginação por cursor (keyset), sem contagem total: envie cursor vazio na primeira página e o nextCursor retornado nas seguintes" )
+    public ResponseEntity< CursorPageResponse< VeiculoResponse > > findAllCursor(
+        @RequestParam String cursor,
+        @PageableDefault( size = 10, sort = "id", direction = Sort.Direction.ASC ) Pageable pageable,
+        VeiculoFiltro filtro ) {
+
+        CursorPageResponse< VeiculoResponse > response =
+            filtro.isVazio() ? veiculoService.findAllCursor( cursor, pageable ) : veiculoService.buscarCursor( filtro, cursor, pageable );
         return ResponseEntity.ok( response );
     }
 
 
+    @GetMapping( "/export" )
+    @Operation( summary = "Exportar veículos",
+        description = "Exporta todos os veículos ativos em NDJSON ou CSV (formato=NDJSON|CSV), escritos em streaming à medida que são lidos do banco" )
+    public ResponseEntity< StreamingResponseBody > exportar( @RequestParam( defaultValue = "NDJSON" ) FormatoExportacao formato ) {
+
+        StreamingResponseBody corpo = veiculoExportService.exportar( formato );
+        return ResponseEntity.ok().contentType( formato.getMediaType() )
+            .header( HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"veiculos." + formato.getExtensao() + "\"" ).body( corpo );
+    }
+
+
     @GetMapping( "/{id}" )
-    @Operation( summary = "Buscar veículo por ID", description = "Retorna os detalhes de um veículo específico" )
-    public ResponseEntity< VeiculoResponse > findById( @PathVariable Long id ) {
+    @Operation( summary = "Buscar veículo por ID",
+        description = "Retorna os detalhes de um veículo específico; com If-None-Match igual ao ETag atual, responde 304 sem corpo" )
+    public ResponseEntity< VeiculoResponse > findById( @PathVariable Long id, WebRequest request ) {
 
-        VeiculoResponse response = veiculoService.findById( id );
-        return ResponseEntity.ok( response );
+        Versionado< VeiculoResponse > response = veiculoService.findById( id );
+        return responder( response, request );
     }
 
 
@@ -75,21 +116,44 @@ public class VeiculoController {
     }
 
 
-    @PutMapping( "/{id}" )
-    @Operation( summary = "Atualizar veículo", description = "Atualiza todos os dados de um veículo (apenas ADMIN)" )
-    public ResponseEntity< VeiculoResponse > update( @PathVariable Long id, @Valid @RequestBody VeiculoRequest request ) {
+    @PostMapping( value = "/lote", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE } )
+    @Operation( summary = "Importar veículos em lote",
+        description = "Cadastra vários veículos de uma vez, enviados como array JSON ou NDJSON (um por linha); "
+            + "os registros rejeitados são listados com o motivo (apenas ADMIN)" )
+    public ResponseEntity< LoteResponse > createLote( HttpServletRequest request )
+        throws IOException {
 
-        VeiculoResponse response = veiculoService.update( id, request );
-        return ResponseEntity.ok( response );
+        // O corpo é lido em streaming, registro a registro, sem materializar o lote inteiro em memória
+        try ( MappingIterator< VeiculoRequest > veiculos = objectMapper.readerFor( VeiculoRequest.class ).readValues( request.getInputStream() ) ) {
+            LoteResponse response = veiculoLoteService.importar( veiculos );
+            return ResponseEntity.ok( response );
+        }
     }
 
 
-    @PatchMapping( "/{id}" )
-    @Operation( summary = "Atualizar parcialmente veículo", description = "Atualiza parcialmente os dados de um veículo (apenas ADMIN)" )
-    public ResponseEntity< VeiculoResponse > partialUpdate( @PathVariable Long id, @RequestBody VeiculoRequest request ) {
+    @PutMapping( "/{id}" )
+    @Operation( summary = "Atualizar veículo",
+        description = "Atualiza todos os dados de um veículo (apenas ADMIN); com If-Match (ETag do GET), só grava se o veículo não tiver mudado (412)" )
+    public ResponseEntity< VeiculoResponse > update(
+        @PathVariable Long id,
+        @RequestHeader( value = HttpHeaders.IF_MATCH, required = false ) String ifMatch,
+        @Valid @RequestBody VeiculoRequest request ) {
+
+        Versionado< VeiculoResponse > response = veiculoService.update( id, request, versaoEsperada( ifMatch ) );
+        return ResponseEntity.ok().eTag( response.getEtag() ).body( response.getCorpo() );
+    }
 
-        VeiculoResponse response = veiculoService.partialUpdate( id, request );
-        return ResponseEntity.ok( response );
+
+    @PatchMapping( "/{id}" )
+    @Operation( summary = "Atualizar parcialmente veículo",
+        description = "Atualiza parcialmente os dados de um veículo (apenas ADMIN); com If-Match (ETag do GET), só grava se o veículo não tiver mudado (412)" )
+    public ResponseEntity< VeiculoResponse > partialUpdate(
+        @PathVariable Long id,
+        @RequestHeader( value = HttpHeaders.IF_MATCH, required = false ) String ifMatch,
+        @RequestBody VeiculoRequest request ) {
+
+        Versionado< VeiculoResponse > response = veiculoService.partialUpdate( id, request, versaoEsperada( ifMatch ) );
+        return ResponseEntity.ok().eTag( response.getEtag() ).body( response.getCorpo() );
     }
 
 
@@ -102,6 +166,17 @@ public class VeiculoController {
     }
 
 
+    @DeleteMapping( "/lote" )
+    @Operation( summary = "Remover veículos em lote",
+        description = "Remove (soft delete) os veículos informados num único comando; ids inexistentes ou já removidos são ignorados e a resposta "
+            + "informa quantos foram removidos (apenas ADMIN)" )
+    public ResponseEntity< RemocaoLoteResponse > deleteLote( @RequestParam List< Long > ids ) {
+
+        RemocaoLoteResponse response = veiculoService.removerLote( ids );
+        return ResponseEntity.ok( response );
+    }
+
+
     @GetMapping( "/relatorios/por-marca" )
     @Operation( summary = "Relatório por marca", description = "Retorna a quantidade de veículos agrupados por marca" )
     public ResponseEntity< List< RelatorioMarcaResponse > > getRelatorioPorMarca() {
@@ -109,4 +184,44 @@ public class VeiculoController {
         List< RelatorioMarcaResponse > response = veiculoService.getRelatorioPorMarca();
         return ResponseEntity.ok( response );
     }
-}
\ No newline at end of file
+
+
+    @GetMapping( "/relatorios/analitico" )
+    @Operation( summary = "Relatório analítico",
+        description = "Retorna preço médio, mínimo e máximo por marca e a distribuição dos veículos por ano, década e cor" )
+    public ResponseEntity< RelatorioAnaliticoResponse > getRelatorioAnalitico() {
+
+        RelatorioAnaliticoResponse response = veiculoService.getRelatorioAnalitico();
+        return ResponseEntity.ok( response );
+    }
+
+
+    // Versão exigida pelo If-Match; "*" (ou ausente) aceita qualquer versão. Um ETag que não é deste recurso nunca confere
+    private Long versaoEsperada( String ifMatch ) {
+
+        if ( ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals( "*" ) ) {
+            return null;
+        }
+
+        Long versao = Versionado.versao( ifMatch );
+        if ( versao == null ) {
+            throw new VersaoDivergenteException( "If-Match inválido: " + ifMatch );
+        }
+        return versao;
+    }
+
+
+    // GET condicional: 304 (só com ETag e Last-Modified) quando o cliente já tem esta versão, sem montar o corpo; senão o corpo é
+    // montado pelo serviço, numa transação. no-cache: o cliente pode guardar a resposta, mas revalida a cada uso
+    private < T > ResponseEntity< T > responder( Versionado< T > versao, WebRequest request ) {
+
+        Instant ultimaModificacao = versao.getUltimaModificacao();
+        boolean naoModificado = ultimaModificacao != null ? request.checkNotModified( versao.getEtag(), ultimaModificacao.toEpochMilli() )
+            : request.checkNotModified( versao.getEtag() );
+        if ( naoModificado ) {
+            return null;
+        }
+
+        return ResponseEntity.ok().cacheControl( CacheControl.noCache().cachePrivate() ).body( veiculoService.corpo( versao ) );
+    }
+}
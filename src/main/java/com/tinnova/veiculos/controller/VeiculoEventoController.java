@@ -0,0 +1,41 @@
+package com.tinnova.veiculos.controller;
+
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tinnova.veiculos.service.VeiculoEventoStream;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+
+// Alterações de veículos empurradas ao cliente (Server-Sent Events) no lugar de consultas periódicas a GET /veiculos.
+// A conexão é assíncrona: nenhuma thread do Tomcat fica presa a um cliente parado
+@RestController
+@RequestMapping( "/veiculos/eventos" )
+@RequiredArgsConstructor
+@Tag( name = "Veículos", description = "Endpoints para gerenciamento de veículos" )
+@SecurityRequirement( name = "bearerAuth" )
+@ConditionalOnProperty( name = "veiculos.eventos.sse.enabled", havingValue = "true", matchIfMissing = true )
+public class VeiculoEventoController {
+
+    private final VeiculoEventoStream veiculoEventoStream;
+
+    @GetMapping( produces = MediaType.TEXT_EVENT_STREAM_VALUE )
+    @Operation( summary = "Acompanhar alterações de veículos",
+        description = "Stream SSE com os eventos CRIADO, ATUALIZADO e REMOVIDO; com Last-Event-ID, reenvia antes os eventos perdidos desde esse id. "
+            + "Se eles não estiverem mais disponíveis, envia o evento resync: recarregue os veículos e siga com os eventos seguintes" )
+    public Flux< ServerSentEvent< Object > > assinar( @RequestHeader( value = "Last-Event-ID", required = false ) String ultimoId ) {
+
+        return veiculoEventoStream.assinar( ultimoId );
+    }
+}
@@ -0,0 +1,61 @@
+package com.tinnova.veiculos.controller;
+
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tinnova.veiculos.dto.request.VeiculoFiltro;
+import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
+import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.service.VeiculoReativoService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+// Leituras com Mono/Flux: a thread do Tomcat é liberada enquanto o R2DBC e a cotação respondem (processamento assíncrono do
+// Servlet) e o resultado é escrito quando fica pronto. Mesmo contrato JSON de GET /veiculos
+@RestController
+@RequestMapping( "/reativo/veiculos" )
+@RequiredArgsConstructor
+@Tag( name = "Veículos (reativo)", description = "Consultas de veículos não bloqueantes (R2DBC)" )
+@SecurityRequirement( name = "bearerAuth" )
+public class VeiculoReativoController {
+
+    private final VeiculoReativoService veiculoReativoService;
+
+    @GetMapping
+    @Operation( summary = "Listar veículos (reativo)", description = "Mesma paginação, ordenação e filtros de GET /veiculos, sem bloquear threads" )
+    public Mono< Page< VeiculoResponse > > findAll(
+        @PageableDefault( size = 10, sort = "id", direction = Sort.Direction.ASC ) Pageable pageable,
+        VeiculoFiltro filtro ) {
+
+        return filtro.isVazio() ? veiculoReativoService.findAll( pageable ) : veiculoReativoService.buscar( filtro, pageable );
+    }
+
+
+    @GetMapping( "/{id}" )
+    @Operation( summary = "Buscar veículo por ID (reativo)", description = "Retorna os detalhes de um veículo específico" )
+    public Mono< VeiculoResponse > findById( @PathVariable Long id ) {
+
+        return veiculoReativoService.findById( id );
+    }
+
+
+    @GetMapping( "/relatorios/por-marca" )
+    @Operation( summary = "Relatório por marca (reativo)", description = "Retorna a quantidade de veículos agrupados por marca" )
+    public Flux< RelatorioMarcaResponse > getRelatorioPorMarca() {
+
+        return veiculoReativoService.getRelatorioPorMarca();
+    }
+}
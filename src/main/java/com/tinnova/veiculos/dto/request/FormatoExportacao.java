@@ -0,0 +1,22 @@
+package com.tinnova.veiculos.dto.request;
+
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.MediaType;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+@Getter
+@RequiredArgsConstructor
+public enum FormatoExportacao {
+
+    NDJSON( MediaType.APPLICATION_NDJSON, "ndjson" ),
+    CSV( new MediaType( "text", "csv", StandardCharsets.UTF_8 ), "csv" );
+
+    private final MediaType mediaType;
+
+    private final String extensao;
+}
@@ -0,0 +1,37 @@
+package com.tinnova.veiculos.dto.request;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+
+// Critérios de busca de GET /veiculos (query string); todos opcionais e aplicados em conjunto
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VeiculoFiltro {
+
+    private String marca;
+
+    private Integer ano;
+
+    private String cor;
+
+    private BigDecimal minPreco; // Em reais
+
+    private BigDecimal maxPreco; // Em reais
+
+    public boolean isVazio() {
+
+        return marca == null && ano == null && cor == null && !hasFaixaDePreco();
+    }
+
+
+    public boolean hasFaixaDePreco() {
+
+        return minPreco != null || maxPreco != null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.tinnova.veiculos.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContagemCorResponse {
+
+    private String cor;
+
+    private Long quantidade;
+}
@@ -0,0 +1,17 @@
+package com.tinnova.veiculos.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContagemDecadaResponse {
+
+    private Integer decada; // Ex.: 2010 para 2010-2019
+
+    private Long quantidade;
+}
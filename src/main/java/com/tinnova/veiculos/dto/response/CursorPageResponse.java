@@ -0,0 +1,26 @@
+package com.tinnova.veiculos.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+// Página no modo cursor: sem total de elementos/páginas, apenas o cursor da próxima página
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse< T > {
+
+    private List< T > content;
+
+    private Integer size;
+
+    private Boolean hasNext;
+
+    private String nextCursor;
+}
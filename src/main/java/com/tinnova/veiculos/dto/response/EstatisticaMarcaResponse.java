@@ -0,0 +1,25 @@
+package com.tinnova.veiculos.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstatisticaMarcaResponse {
+
+    private String marca;
+
+    private Long quantidade;
+
+    private BigDecimal precoMedioUsd;
+
+    private BigDecimal precoMinimoUsd;
+
+    private BigDecimal precoMaximoUsd;
+}
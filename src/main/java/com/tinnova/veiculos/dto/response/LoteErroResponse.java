@@ -0,0 +1,23 @@
+package com.tinnova.veiculos.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteErroResponse {
+
+    private Integer linha; // Posição do registro no lote (1 = primeiro)
+
+    private String placa;
+
+    private List< String > mensagens;
+}
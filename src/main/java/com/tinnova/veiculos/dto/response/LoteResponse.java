@@ -0,0 +1,26 @@
+package com.tinnova.veiculos.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+// Resultado da importação em lote: registros lidos, gravados e os rejeitados com o motivo
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteResponse {
+
+    private Integer total;
+
+    private Integer inseridos;
+
+    @Builder.Default
+    private List< LoteErroResponse > erros = new ArrayList<>();
+}
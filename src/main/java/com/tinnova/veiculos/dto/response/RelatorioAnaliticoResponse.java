@@ -0,0 +1,30 @@
+package com.tinnova.veiculos.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatorioAnaliticoResponse {
+
+    @Builder.Default
+    private List< EstatisticaMarcaResponse > porMarca = new ArrayList<>();
+
+    @Builder.Default
+    private List< ContagemAnoResponse > porAno = new ArrayList<>();
+
+    @Builder.Default
+    private List< ContagemDecadaResponse > porDecada = new ArrayList<>();
+
+    @Builder.Default
+    private List< ContagemCorResponse > porCor = new ArrayList<>();
+}
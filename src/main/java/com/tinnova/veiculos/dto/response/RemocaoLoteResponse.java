@@ -0,0 +1,20 @@
+package com.tinnova.veiculos.dto.response;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+// Resultado da remoção em lote: ids recebidos (sem repetição) e quantos estavam ativos e foram removidos
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RemocaoLoteResponse {
+
+    private Integer solicitados;
+
+    private Integer removidos;
+}
@@ -0,0 +1,35 @@
+package com.tinnova.veiculos.dto.response;
+
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.tinnova.veiculos.enums.TipoEventoVeiculo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+
+// Evento enviado pelo SSE de GET /veiculos/eventos; o id do SSE é o id da entrada no Redis Stream (Last-Event-ID)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VeiculoEventoResponse {
+
+    private Long id;
+
+    private TipoEventoVeiculo tipo;
+
+    private Long veiculoId;
+
+    private Long versao;
+
+    private LocalDateTime ocorridoEm;
+
+    // VeiculoResponse já serializado no outbox: repassado sem reprocessar
+    @JsonRawValue
+    private String veiculo;
+}
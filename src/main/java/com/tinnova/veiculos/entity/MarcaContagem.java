@@ -0,0 +1,24 @@
+package com.tinnova.veiculos.entity;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+// Agregado do relatório por marca: quantidade de veículos ativos, mantida a cada escrita em VeiculoService
+@Entity
+@Table( name = "marca_contagem" )
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarcaContagem {
+
+    @Id
+    @Column( nullable = false )
+    private String marca;
+
+    @Column( nullable = false )
+    private Long quantidade;
+}
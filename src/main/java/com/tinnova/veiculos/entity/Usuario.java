@@ -38,6 +38,10 @@ public class Usuario implements UserDetails {
     @Column( nullable = false )
     private Boolean ativo = true;
 
+    // Incrementada quando o usuário é desativado ou muda de papel: invalida os tokens já emitidos
+    @Column( nullable = false, columnDefinition = "bigint default 0" )
+    private Long versao = 0L;
+
     @Override
     public Collection< ? extends GrantedAuthority > getAuthorities() {
 
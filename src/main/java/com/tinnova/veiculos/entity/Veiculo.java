@@ -5,22 +5,32 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 
+// Leituras por id servidas pelo segundo nível do Hibernate (região "veiculos", ver application.conf)
 @Entity
 @Table( name = "veiculos" )
+@Cacheable
+@Cache( usage = CacheConcurrencyStrategy.READ_WRITE, region = Veiculo.REGIAO_CACHE )
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Veiculo {
 
+    public static final String REGIAO_CACHE = "veiculos";
+
+    // Ids por sequência (reservados de 50 em 50) para o Hibernate poder agrupar os INSERTs em batch
     @Id
-    @GeneratedValue( strategy = GenerationType.IDENTITY )
+    @GeneratedValue( strategy = GenerationType.SEQUENCE, generator = "veiculos_seq" )
+    @SequenceGenerator( name = "veiculos_seq", sequenceName = "veiculos_seq", allocationSize = 50 )
     private Long id;
 
     @Column( nullable = false )
@@ -35,6 +45,13 @@ public class Veiculo {
     @Column( nullable = false )
     private String cor;
 
+    // Cópias normalizadas (minúsculas, sem espaços nas pontas) usadas nos filtros e nos índices parciais
+    @Column( name = "marca_normalizada" )
+    private String marcaNormalizada;
+
+    @Column( name = "cor_normalizada" )
+    private String corNormalizada;
+
     @Column( nullable = false, unique = true, length = 7 )
     private String placa;
 
@@ -44,6 +61,10 @@ public class Veiculo {
     @Column( nullable = false )
     private Boolean ativo = true; // Soft delete
 
+    // Bloqueio otimista: cada escrita confere e incrementa a versão (UPDATE ... WHERE versao = ?); base do ETag e do If-Match
+    @Version
+    private Long versao;
+
     @CreationTimestamp
     @Column( nullable = false, updatable = false )
     private LocalDateTime createdAt;
@@ -51,4 +72,18 @@ public class Veiculo {
     @UpdateTimestamp
     @Column( nullable = false )
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void normalizar() {
+
+        marcaNormalizada = normalizar( marca );
+        corNormalizada = normalizar( cor );
+    }
+
+
+    public static String normalizar( String valor ) {
+
+        return valor == null ? null : valor.trim().toLowerCase( Locale.ROOT );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.tinnova.veiculos.entity;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+import com.tinnova.veiculos.enums.TipoEventoVeiculo;
+
+
+// Outbox das alterações de veículos: gravado na mesma transação da escrita e publicado depois no Redis Stream pelo relay.
+// Os registros publicados ficam como trilha de auditoria pelo período de retenção (veiculos.eventos.relay.retencao)
+@Entity
+@Table( name = "veiculo_eventos" )
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VeiculoEvento {
+
+    // Ids por sequência, como em veiculos: os eventos da importação em lote entram no mesmo batch de INSERTs
+    @Id
+    @GeneratedValue( strategy = GenerationType.SEQUENCE, generator = "veiculo_eventos_seq" )
+    @SequenceGenerator( name = "veiculo_eventos_seq", sequenceName = "veiculo_eventos_seq", allocationSize = 50 )
+    private Long id;
+
+    @Enumerated( EnumType.STRING )
+    @Column( nullable = false, length = 20 )
+    private TipoEventoVeiculo tipo;
+
+    @Column( name = "veiculo_id", nullable = false )
+    private Long veiculoId;
+
+    // Versão do veículo após a alteração: os consumidores descartam eventos de versão já vista
+    @Column( nullable = false )
+    private Long versao;
+
+    // VeiculoResponse em JSON no momento da escrita (na remoção, só id, marca e placa)
+    @Column( nullable = false, length = 4000 )
+    private String dados;
+
+    @CreationTimestamp
+    @Column( name = "ocorrido_em", nullable = false, updatable = false )
+    private LocalDateTime ocorridoEm;
+
+    // Nulo até o relay publicar
+    @Column( name = "publicado_em" )
+    private LocalDateTime publicadoEm;
+}
@@ -0,0 +1,46 @@
+package com.tinnova.veiculos.entity;
+
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+// Mesma tabela do Veiculo, mapeada pelo Spring Data R2DBC para a API reativa de leitura; as escritas seguem pelo JPA
+@Table( "veiculos" )
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VeiculoLeitura {
+
+    @Id
+    private Long id;
+
+    private String marca;
+
+    private String modelo;
+
+    private Integer ano;
+
+    private String cor;
+
+    private String marcaNormalizada;
+
+    private String corNormalizada;
+
+    private String placa;
+
+    private BigDecimal precoUsd;
+
+    private Boolean ativo;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.tinnova.veiculos.enums;
+
+
+public enum TipoEventoVeiculo {
+    CRIADO,
+    ATUALIZADO,
+    REMOVIDO
+}
@@ -0,0 +1,10 @@
+package com.tinnova.veiculos.exception;
+
+
+public class CursorInvalidoException extends RuntimeException {
+
+    public CursorInvalidoException( String message ) {
+
+        super( message );
+    }
+}
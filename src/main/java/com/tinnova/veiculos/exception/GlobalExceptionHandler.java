@@ -5,16 +5,21 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.tinnova.veiculos.dto.response.ErrorResponse;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -49,6 +54,85 @@ public class GlobalExceptionHandler {
     }
 
 
+    // If-Match de uma versão que não é mais a atual
+    @ExceptionHandler( VersaoDivergenteException.class )
+    public ResponseEntity< ErrorResponse > handleVersaoDivergente( VersaoDivergenteException ex, HttpServletRequest request ) {
+
+        log.warn( "Pré-condição falhou: {}", ex.getMessage() );
+
+        ErrorResponse error = ErrorResponse.builder().timestamp( LocalDateTime.now() ).status( HttpStatus.PRECONDITION_FAILED.value() )
+            .error( HttpStatus.PRECONDITION_FAILED.getReasonPhrase() ).message( ex.getMessage() ).path( request.getRequestURI() ).build();
+
+        return ResponseEntity.status( HttpStatus.PRECONDITION_FAILED ).body( error );
+    }
+
+
+    // Outra escrita no mesmo veículo foi confirmada entre a leitura e o UPDATE (@Version)
+    @ExceptionHandler( OptimisticLockingFailureException.class )
+    public ResponseEntity< ErrorResponse > handleEscritaConcorrente( OptimisticLockingFailureException ex, HttpServletRequest request ) {
+
+        log.warn( "Escrita concorrente: {}", ex.getMessage() );
+
+        ErrorResponse error = ErrorResponse.builder().timestamp( LocalDateTime.now() ).status( HttpStatus.CONFLICT.value() )
+            .error( HttpStatus.CONFLICT.getReasonPhrase() ).message( "O registro foi alterado por outra requisição; leia-o novamente e repita a operação" )
+            .path( request.getRequestURI() ).build();
+
+        return ResponseEntity.status( HttpStatus.CONFLICT ).body( error );
+    }
+
+
+    // Restrição do banco violada fora das validações do serviço (ex.: corrida entre duas gravações)
+    @ExceptionHandler( DataIntegrityViolationException.class )
+    public ResponseEntity< ErrorResponse > handleViolacaoDeRestricao( DataIntegrityViolationException ex, HttpServletRequest request ) {
+
+        log.warn( "Violação de restrição: {}", ex.getMostSpecificCause().getMessage() );
+
+        ErrorResponse error = ErrorResponse.builder().timestamp( LocalDateTime.now() ).status( HttpStatus.CONFLICT.value() )
+            .error( HttpStatus.CONFLICT.getReasonPhrase() ).message( "Conflito com um registro existente" ).path( request.getRequestURI() ).build();
+
+        return ResponseEntity.status( HttpStatus.CONFLICT ).body( error );
+    }
+
+
+    @ExceptionHandler( CursorInvalidoException.class )
+    public ResponseEntity< ErrorResponse > handleCursorInvalido( CursorInvalidoException ex, HttpServletRequest request ) {
+
+        log.error( "Cursor inválido: {}", ex.getMessage() );
+
+        ErrorResponse error = ErrorResponse.builder().timestamp( LocalDateTime.now() ).status( HttpStatus.BAD_REQUEST.value() )
+            .error( HttpStatus.BAD_REQUEST.getReasonPhrase() ).message( ex.getMessage() ).path( request.getRequestURI() ).build();
+
+        return ResponseEntity.status( HttpStatus.BAD_REQUEST ).body( error );
+    }
+
+
+    // Corpo malformado lido diretamente pelo controller (importação em lote)
+    @ExceptionHandler( JsonProcessingException.class )
+    public ResponseEntity< ErrorResponse > handleJsonInvalido( JsonProcessingException ex, HttpServletRequest request ) {
+
+        log.error( "JSON inválido: {}", ex.getOriginalMessage() );
+
+        ErrorResponse error = ErrorResponse.builder().timestamp( LocalDateTime.now() ).status( HttpStatus.BAD_REQUEST.value() )
+            .error( HttpStatus.BAD_REQUEST.getReasonPhrase() ).message( "JSON inválido: " + ex.getOriginalMessage() ).path( request.getRequestURI() )
+            .build();
+
+        return ResponseEntity.status( HttpStatus.BAD_REQUEST ).body( error );
+    }
+
+
+    @ExceptionHandler( MethodArgumentTypeMismatchException.class )
+    public ResponseEntity< ErrorResponse > handleParametroInvalido( MethodArgumentTypeMismatchException ex, HttpServletRequest request ) {
+
+        log.error( "Parâmetro inválido: {}", ex.getMessage() );
+
+        ErrorResponse error = ErrorResponse.builder().timestamp( LocalDateTime.now() ).status( HttpStatus.BAD_REQUEST.value() )
+            .error( HttpStatus.BAD_REQUEST.getReasonPhrase() ).message( "Valor inválido para o parâmetro " + ex.getName() + ": " + ex.getValue() )
+            .path( request.getRequestURI() ).build();
+
+        return ResponseEntity.status( HttpStatus.BAD_REQUEST ).body( error );
+    }
+
+
     @ExceptionHandler( MethodArgumentNotValidException.class )
     public ResponseEntity< ErrorResponse > handleValidationErrors( MethodArgumentNotValidException ex, HttpServletRequest request ) {
 
@@ -67,6 +151,19 @@ public class GlobalExceptionHandler {
     }
 
 
+    // Vem da administração de usuários (UsuarioController); no login, o Spring Security já a converte em BadCredentialsException
+    @ExceptionHandler( UsernameNotFoundException.class )
+    public ResponseEntity< ErrorResponse > handleUsuarioNaoEncontrado( UsernameNotFoundException ex, HttpServletRequest request ) {
+
+        log.error( "Usuário não encontrado: {}", ex.getMessage() );
+
+        ErrorResponse error = ErrorResponse.builder().timestamp( LocalDateTime.now() ).status( HttpStatus.NOT_FOUND.value() )
+            .error( HttpStatus.NOT_FOUND.getReasonPhrase() ).message( ex.getMessage() ).path( request.getRequestURI() ).build();
+
+        return ResponseEntity.status( HttpStatus.NOT_FOUND ).body( error );
+    }
+
+
     @ExceptionHandler( AuthenticationException.class )
     public ResponseEntity< ErrorResponse > handleAuthenticationException( AuthenticationException ex, HttpServletRequest request ) {
 
@@ -0,0 +1,11 @@
+package com.tinnova.veiculos.exception;
+
+
+// If-Match que não corresponde à versão atual do veículo (412)
+public class VersaoDivergenteException extends RuntimeException {
+
+    public VersaoDivergenteException( String message ) {
+
+        super( message );
+    }
+}
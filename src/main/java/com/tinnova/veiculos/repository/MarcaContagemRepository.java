@@ -0,0 +1,49 @@
+package com.tinnova.veiculos.repository;
+
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
+import com.tinnova.veiculos.entity.MarcaContagem;
+
+
+@Repository
+public interface MarcaContagemRepository extends JpaRepository< MarcaContagem, String > {
+
+    // Incremento atômico no banco (sem ler-alterar-gravar), seguro com escritas concorrentes
+    @Modifying( flushAutomatically = true )
+    @Query( "UPDATE MarcaContagem m SET m.quantidade = m.quantidade + :delta WHERE m.marca = :marca" )
+    int incrementar( @Param( "marca" ) String marca, @Param( "delta" ) long delta );
+
+
+    // INSERT simples (sem o SELECT do merge): a linha que outra transação já criou resulta em violação de chave, nunca
+    // em sobrescrita da contagem dela
+    @Modifying
+    @Query( "INSERT INTO MarcaContagem (marca, quantidade) VALUES (:marca, :quantidade)" )
+    int inserir( @Param( "marca" ) String marca, @Param( "quantidade" ) long quantidade );
+
+
+    // Linha zerada de uma marca nova, na transação de quem chama. Com outra transação criando a mesma marca, o INSERT espera
+    // por ela e, se ela confirmar, não faz nada: sem violação de chave que derrube a escrita do veículo
+    @Modifying
+    @Query( value = "INSERT INTO marca_contagem (marca, quantidade) VALUES (:marca, 0) ON CONFLICT DO NOTHING", nativeQuery = true )
+    int criarSeAusente( @Param( "marca" ) String marca );
+
+
+    // Bloqueia as linhas do agregado na ordem das marcas (a mesma em que as escritas as incrementam). SQL nativo: o FOR UPDATE
+    // vale igual no PostgreSQL e no H2, enquanto o PESSIMISTIC_WRITE do dialeto PostgreSQL vira FOR NO KEY UPDATE, que o H2 recusa
+    @Query( value = "SELECT * FROM marca_contagem ORDER BY marca FOR UPDATE", nativeQuery = true )
+    List< MarcaContagem > findAllParaAtualizar();
+
+
+    // Relatório servido do agregado: O(marcas) em vez de GROUP BY sobre todos os veículos
+    @Query( "SELECT new com.tinnova.veiculos.dto.response.RelatorioMarcaResponse(m.marca, m.quantidade) "
+        + "FROM MarcaContagem m WHERE m.quantidade > 0 ORDER BY m.quantidade DESC" )
+    List< RelatorioMarcaResponse > findRelatorio();
+}
@@ -0,0 +1,89 @@
+package com.tinnova.veiculos.repository;
+
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Comparator;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import com.tinnova.veiculos.dto.response.ContagemAnoResponse;
+import com.tinnova.veiculos.dto.response.ContagemCorResponse;
+import com.tinnova.veiculos.dto.response.ContagemDecadaResponse;
+import com.tinnova.veiculos.dto.response.EstatisticaMarcaResponse;
+import com.tinnova.veiculos.dto.response.RelatorioAnaliticoResponse;
+
+import lombok.RequiredArgsConstructor;
+
+
+// Todos os agregados do relatório analítico numa única varredura de veiculos: cada linha é combinada com os quatro
+// conjuntos de agrupamento (marca, ano, década, cor) e agrupada pelo conjunto. Mesmo resultado de GROUPING SETS, mas em
+// SQL que o H2 dos testes também executa, então a consulta testada é a de produção
+@Repository
+@RequiredArgsConstructor
+public class RelatorioAnaliticoRepository {
+
+    private static final int MARCA = 1;
+
+    private static final int ANO = 2;
+
+    private static final int DECADA = 3;
+
+    private static final int COR = 4;
+
+    private static final String MARCA_DO_CONJUNTO = "CASE WHEN g.conjunto = " + MARCA + " THEN v.marca END";
+
+    private static final String ANO_DO_CONJUNTO = "CASE WHEN g.conjunto = " + ANO + " THEN v.ano END";
+
+    private static final String DECADA_DO_CONJUNTO = "CASE WHEN g.conjunto = " + DECADA + " THEN (v.ano / 10) * 10 END";
+
+    private static final String COR_DO_CONJUNTO = "CASE WHEN g.conjunto = " + COR + " THEN v.cor END";
+
+    private static final String SQL = "SELECT g.conjunto, " + MARCA_DO_CONJUNTO + " AS marca, " + ANO_DO_CONJUNTO + " AS ano, " + DECADA_DO_CONJUNTO
+        + " AS decada, " + COR_DO_CONJUNTO + " AS cor, "
+        + "COUNT(*) AS quantidade, AVG(v.preco_usd) AS preco_medio, MIN(v.preco_usd) AS preco_minimo, MAX(v.preco_usd) AS preco_maximo "
+        + "FROM veiculos v CROSS JOIN (VALUES (" + MARCA + "), (" + ANO + "), (" + DECADA + "), (" + COR + ")) AS g(conjunto) WHERE v.ativo = true "
+        + "GROUP BY g.conjunto, " + MARCA_DO_CONJUNTO + ", " + ANO_DO_CONJUNTO + ", " + DECADA_DO_CONJUNTO + ", " + COR_DO_CONJUNTO;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RelatorioAnaliticoResponse gerar() {
+
+        RelatorioAnaliticoResponse relatorio = RelatorioAnaliticoResponse.builder().build();
+        jdbcTemplate.query( SQL, ( RowCallbackHandler ) rs -> acumular( relatorio, rs ) );
+
+        relatorio.getPorMarca().sort( Comparator.comparing( EstatisticaMarcaResponse::getQuantidade ).reversed()
+            .thenComparing( EstatisticaMarcaResponse::getMarca ) );
+        relatorio.getPorAno().sort( Comparator.comparing( ContagemAnoResponse::getAno ) );
+        relatorio.getPorDecada().sort( Comparator.comparing( ContagemDecadaResponse::getDecada ) );
+        relatorio.getPorCor().sort( Comparator.comparing( ContagemCorResponse::getQuantidade ).reversed().thenComparing( ContagemCorResponse::getCor ) );
+        return relatorio;
+    }
+
+
+    // Cada linha pertence a um único conjunto de agrupamento, identificado pela coluna conjunto
+    private void acumular( RelatorioAnaliticoResponse relatorio, ResultSet rs )
+        throws SQLException {
+
+        long quantidade = rs.getLong( "quantidade" );
+
+        switch ( rs.getInt( "conjunto" ) ) {
+            case MARCA -> relatorio.getPorMarca().add( new EstatisticaMarcaResponse( rs.getString( "marca" ), quantidade,
+                escala( rs.getBigDecimal( "preco_medio" ) ), escala( rs.getBigDecimal( "preco_minimo" ) ), escala( rs.getBigDecimal( "preco_maximo" ) ) ) );
+            case ANO -> relatorio.getPorAno().add( new ContagemAnoResponse( rs.getInt( "ano" ), quantidade ) );
+            case DECADA -> relatorio.getPorDecada().add( new ContagemDecadaResponse( rs.getInt( "decada" ), quantidade ) );
+            case COR -> relatorio.getPorCor().add( new ContagemCorResponse( rs.getString( "cor" ), quantidade ) );
+            default -> throw new IllegalStateException( "Conjunto de agrupamento desconhecido: " + rs.getInt( "conjunto" ) );
+        }
+    }
+
+
+    private BigDecimal escala( BigDecimal valor ) {
+
+        return valor != null ? valor.setScale( 2, RoundingMode.HALF_UP ) : null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.tinnova.veiculos.repository;
+
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tinnova.veiculos.entity.VeiculoEvento;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+
+@Repository
+public interface VeiculoEventoRepository extends JpaRepository< VeiculoEvento, Long > {
+
+    // Próximo lote ainda não publicado, travado até o fim da transação do relay. SKIP LOCKED (timeout -2): com vários nós,
+    // cada relay pega eventos diferentes em vez de esperar o outro
+    @Lock( LockModeType.PESSIMISTIC_WRITE )
+    @QueryHints( @QueryHint( name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2" ) )
+    List< VeiculoEvento > findByPublicadoEmIsNullOrderByIdAsc( Limit limit );
+
+
+    @Modifying( flushAutomatically = true )
+    @Query( "UPDATE VeiculoEvento e SET e.publicadoEm = :agora WHERE e.id IN :ids" )
+    int marcarPublicados( @Param( "ids" ) Collection< Long > ids, @Param( "agora" ) LocalDateTime agora );
+
+
+    // Limpeza do outbox: o que já está no stream só fica no banco pelo período de retenção
+    @Modifying
+    @Query( "DELETE FROM VeiculoEvento e WHERE e.publicadoEm < :limite" )
+    int removerPublicadosAntesDe( @Param( "limite" ) LocalDateTime limite );
+
+
+    long countByPublicadoEmIsNull();
+}
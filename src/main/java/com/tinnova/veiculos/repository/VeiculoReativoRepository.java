@@ -0,0 +1,32 @@
+package com.tinnova.veiculos.repository;
+
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+
+import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
+import com.tinnova.veiculos.entity.VeiculoLeitura;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+// Consultas do VeiculoRepository usadas pela API reativa, executadas pelo R2DBC sem bloquear threads
+@Repository
+public interface VeiculoReativoRepository extends R2dbcRepository< VeiculoLeitura, Long >, VeiculoReativoRepositoryCustom {
+
+    Flux< VeiculoLeitura > findByAtivoTrue( Pageable pageable );
+
+
+    Mono< Long > countByAtivoTrue();
+
+
+    Mono< VeiculoLeitura > findByIdAndAtivoTrue( Long id );
+
+
+    // Relatório por marca a partir do agregado mantido pelas escritas (mesma fonte do MarcaContagemService)
+    @Query( "SELECT marca, quantidade FROM marca_contagem WHERE quantidade > 0 ORDER BY quantidade DESC" )
+    Flux< RelatorioMarcaResponse > findRelatorioPorMarca();
+}
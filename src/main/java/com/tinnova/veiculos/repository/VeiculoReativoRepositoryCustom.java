@@ -0,0 +1,21 @@
+package com.tinnova.veiculos.repository;
+
+
+import java.math.BigDecimal;
+
+import org.springframework.data.domain.Pageable;
+
+import com.tinnova.veiculos.entity.VeiculoLeitura;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+public interface VeiculoReativoRepositoryCustom {
+
+    // Filtros e faixa de preço (USD) combinados como no VeiculoSpecifications.comCriterios
+    Flux< VeiculoLeitura > findByCriterios( String marca, Integer ano, String cor, BigDecimal minPrecoUsd, BigDecimal maxPrecoUsd, Pageable pageable );
+
+
+    Mono< Long > countByCriterios( String marca, Integer ano, String cor, BigDecimal minPrecoUsd, BigDecimal maxPrecoUsd );
+}
@@ -0,0 +1,61 @@
+package com.tinnova.veiculos.repository;
+
+
+import java.math.BigDecimal;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.entity.VeiculoLeitura;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+@RequiredArgsConstructor
+class VeiculoReativoRepositoryCustomImpl implements VeiculoReativoRepositoryCustom {
+
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Flux< VeiculoLeitura > findByCriterios( String marca, Integer ano, String cor, BigDecimal minPrecoUsd, BigDecimal maxPrecoUsd,
+        Pageable pageable ) {
+
+        return template.select( VeiculoLeitura.class ).matching( Query.query( criterios( marca, ano, cor, minPrecoUsd, maxPrecoUsd ) ).with( pageable ) )
+            .all();
+    }
+
+
+    @Override
+    public Mono< Long > countByCriterios( String marca, Integer ano, String cor, BigDecimal minPrecoUsd, BigDecimal maxPrecoUsd ) {
+
+        return template.count( Query.query( criterios( marca, ano, cor, minPrecoUsd, maxPrecoUsd ) ), VeiculoLeitura.class );
+    }
+
+
+    // Só os filtros informados entram no SQL, comparando com as colunas normalizadas (mesmos índices parciais do JPA)
+    private static Criteria criterios( String marca, Integer ano, String cor, BigDecimal minPrecoUsd, BigDecimal maxPrecoUsd ) {
+
+        Criteria criteria = Criteria.where( "ativo" ).isTrue();
+        if ( marca != null ) {
+            criteria = criteria.and( "marcaNormalizada" ).is( Veiculo.normalizar( marca ) );
+        }
+        if ( ano != null ) {
+            criteria = criteria.and( "ano" ).is( ano );
+        }
+        if ( cor != null ) {
+            criteria = criteria.and( "corNormalizada" ).is( Veiculo.normalizar( cor ) );
+        }
+        if ( minPrecoUsd != null ) {
+            criteria = criteria.and( "precoUsd" ).greaterThanOrEquals( minPrecoUsd );
+        }
+        if ( maxPrecoUsd != null ) {
+            criteria = criteria.and( "precoUsd" ).lessThanOrEquals( maxPrecoUsd );
+        }
+        return criteria;
+    }
+}
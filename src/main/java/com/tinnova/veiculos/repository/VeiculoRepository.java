@@ -3,44 +3,118 @@ package com.tinnova.veiculos.repository;
 
 import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
 import com.tinnova.veiculos.entity.Veiculo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 
 @Repository
-public interface VeiculoRepository extends JpaRepository< Veiculo, Long > {
+public interface VeiculoRepository extends JpaRepository< Veiculo, Long >, JpaSpecificationExecutor< Veiculo > {
 
     // Buscar apenas veículos ativos
     Page< Veiculo > findByAtivoTrue( Pageable pageable );
 
 
-    Optional< Veiculo > findByIdAndAtivoTrue( Long id );
+    // Pelo id (segundo nível do Hibernate) em vez de consulta, que sempre iria ao banco
+    default Optional< Veiculo > findByIdAndAtivoTrue( Long id ) {
 
+        return findById( id ).filter( Veiculo::getAtivo );
+    }
 
-    boolean existsByPlacaAndAtivoTrue( String placa );
 
+    // Sempre do banco: depois de um UPDATE em massa o segundo nível ainda devolve a linha anterior até o commit
+    @Query( "SELECT v FROM Veiculo v WHERE v.id = :id AND v.ativo = true" )
+    Optional< Veiculo > recarregarAtivo( @Param( "id" ) Long id );
 
-    boolean existsByPlacaAndAtivoTrueAndIdNot( String placa, Long id );
 
+    // Só versão e data de alteração do veículo ativo: bastam para o ETag de GET /veiculos/{id}, sem carregar a entidade
+    Optional< VeiculoVersao > findVersaoByIdAndAtivoTrue( Long id );
 
-    // Filtros combinados
-    @Query( "SELECT v FROM Veiculo v WHERE v.ativo = true " + "AND (:marca IS NULL OR LOWER(v.marca) = LOWER(:marca)) " + "AND (:ano IS NULL OR v.ano = :ano) "
-        + "AND (:cor IS NULL OR LOWER(v.cor) = LOWER(:cor))" )
-    Page< Veiculo > findByFiltros( @Param( "marca" ) String marca, @Param( "ano" ) Integer ano, @Param( "cor" ) String cor, Pageable pageable );
 
+    // Marca, placa e versão dos ativos dentre os ids, travados até o fim da transação: o UPDATE da remoção desativa exatamente
+    // estas linhas, cada uma na versão lida + 1. SQL nativo: o FOR UPDATE vale igual no PostgreSQL e no H2
+    @Query( value = "SELECT id, marca, placa, versao FROM veiculos WHERE id IN (:ids) AND ativo = true ORDER BY id FOR UPDATE", nativeQuery = true )
+    List< VeiculoResumo > findResumoParaDesativar( @Param( "ids" ) Collection< Long > ids );
 
-    // Filtro por range de preço
-    @Query( "SELECT v FROM Veiculo v WHERE v.ativo = true " + "AND (:minPreco IS NULL OR v.precoUsd >= :minPreco) "
-        + "AND (:maxPreco IS NULL OR v.precoUsd <= :maxPreco)" )
-    Page< Veiculo > findByPrecoRange( @Param( "minPreco" ) BigDecimal minPreco, @Param( "maxPreco" ) BigDecimal maxPreco, Pageable pageable );
+
+    // Soft delete num único UPDATE, sem carregar as entidades; as linhas afetadas dizem quantos ainda estavam ativos
+    @Modifying( flushAutomatically = true )
+    @Query( "UPDATE Veiculo v SET v.ativo = false, v.versao = v.versao + 1, v.updatedAt = :agora WHERE v.id IN :ids AND v.ativo = true" )
+    int desativar( @Param( "ids" ) Collection< Long > ids, @Param( "agora" ) LocalDateTime agora );
+
+
+    // Atualização parcial das colunas sem regra de negócio (nulo mantém o valor atual), condicionada à versão quando informada.
+    // Zero linhas: veículo inexistente/removido ou versão divergente
+    @Modifying( flushAutomatically = true )
+    @Query( "UPDATE Veiculo v SET v.modelo = COALESCE(:modelo, v.modelo), v.ano = COALESCE(:ano, v.ano), v.cor = COALESCE(:cor, v.cor), "
+        + "v.corNormalizada = COALESCE(:corNormalizada, v.corNormalizada), v.precoUsd = COALESCE(:precoUsd, v.precoUsd), "
+        + "v.versao = v.versao + 1, v.updatedAt = :agora WHERE v.id = :id AND v.ativo = true AND (:versao IS NULL OR v.versao = :versao)" )
+    int atualizarColunas( @Param( "id" ) Long id, @Param( "modelo" ) String modelo, @Param( "ano" ) Integer ano, @Param( "cor" ) String cor,
+        @Param( "corNormalizada" ) String corNormalizada, @Param( "precoUsd" ) BigDecimal precoUsd, @Param( "versao" ) Long versao,
+        @Param( "agora" ) LocalDateTime agora );
+
+
+    @Query( "SELECT v.id FROM Veiculo v WHERE v.placa = :placa AND v.ativo = true" )
+    Optional< Long > findIdByPlacaAtivo( @Param( "placa" ) String placa );
+
+
+    // Placas já gravadas (ativas ou não, a coluna é única) dentre as informadas, numa única consulta
+    @Query( "SELECT v.placa FROM Veiculo v WHERE v.placa IN :placas" )
+    Set< String > findPlacasExistentes( @Param( "placas" ) Collection< String > placas );
+
+
+    // Filtros e faixa de preço (USD) aplicados juntos num único SQL
+    default Page< Veiculo > findByCriterios( String marca, Integer ano, String cor, BigDecimal minPrecoUsd, BigDecimal maxPrecoUsd, Pageable pageable ) {
+
+        return findAll( VeiculoSpecifications.comCriterios( marca, ano, cor, minPrecoUsd, maxPrecoUsd ), pageable );
+    }
+
+
+    // Paginação por cursor (keyset): WHERE (chave, id) > (último visto) com LIMIT, sem OFFSET nem COUNT
+    default Window< Veiculo > scrollByAtivoTrue( KeysetScrollPosition posicao, Sort sort, int limite ) {
+
+        return scroll( VeiculoSpecifications.ativo(), posicao, sort, limite );
+    }
+
+
+    default Window< Veiculo > scrollByCriterios( String marca, Integer ano, String cor, BigDecimal minPrecoUsd, BigDecimal maxPrecoUsd,
+        KeysetScrollPosition posicao, Sort sort, int limite ) {
+
+        return scroll( VeiculoSpecifications.comCriterios( marca, ano, cor, minPrecoUsd, maxPrecoUsd ), posicao, sort, limite );
+    }
+
+
+    private Window< Veiculo > scroll( Specification< Veiculo > spec, KeysetScrollPosition posicao, Sort sort, int limite ) {
+
+        return findBy( spec, query -> query.sortBy( sort ).limit( limite ).scroll( posicao ) );
+    }
+
+
+    // Exportação: cursor no banco lido de 500 em 500 linhas, sem snapshot de alteração (somente leitura); exige transação aberta.
+    // O modo de cache vai na sessão (VeiculoExportService): como dica da consulta ele não vale para as linhas lidas pelo cursor
+    @QueryHints( { @QueryHint( name = HibernateHints.HINT_FETCH_SIZE, value = "500" ), @QueryHint( name = HibernateHints.HINT_READ_ONLY, value = "true" ) } )
+    @Query( "SELECT v FROM Veiculo v WHERE v.ativo = true ORDER BY v.id" )
+    Stream< Veiculo > streamByAtivoTrue();
 
 
     // Relatório por marca
@@ -0,0 +1,17 @@
+package com.tinnova.veiculos.repository;
+
+
+// Projeção com o que a remoção de um veículo precisa ajustar fora da tabela (agregado por marca, cache de placas e evento de remoção)
+public interface VeiculoResumo {
+
+    Long getId();
+
+
+    String getMarca();
+
+
+    String getPlaca();
+
+
+    Long getVersao();
+}
@@ -0,0 +1,75 @@
+package com.tinnova.veiculos.repository;
+
+
+import java.math.BigDecimal;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.tinnova.veiculos.entity.Veiculo;
+
+
+// Predicados equivalentes às consultas de VeiculoRepository, usados onde é preciso compor a consulta (ex.: paginação por cursor)
+public final class VeiculoSpecifications {
+
+    private VeiculoSpecifications() {
+
+    }
+
+
+    public static Specification< Veiculo > ativo() {
+
+        return ( root, query, cb ) -> cb.isTrue( root.get( "ativo" ) );
+    }
+
+
+    public static Specification< Veiculo > comFiltros( String marca, Integer ano, String cor ) {
+
+        return ativo().and( igualNormalizado( "marcaNormalizada", marca ) ).and( anoIgual( ano ) ).and( igualNormalizado( "corNormalizada", cor ) );
+    }
+
+
+    // Filtros e faixa de preço (em USD) combinados numa única consulta
+    public static Specification< Veiculo > comCriterios( String marca, Integer ano, String cor, BigDecimal minPrecoUsd, BigDecimal maxPrecoUsd ) {
+
+        return comFiltros( marca, ano, cor ).and( precoMinimo( minPrecoUsd ) ).and( precoMaximo( maxPrecoUsd ) );
+    }
+
+
+    // Filtro ausente não gera predicado algum; o valor é comparado com a coluna já normalizada na escrita,
+    // sem LOWER() na coluna, para o Postgres usar o índice parcial
+    private static Specification< Veiculo > igualNormalizado( String atributo, String valor ) {
+
+        if ( valor == null ) {
+            return null;
+        }
+        String normalizado = Veiculo.normalizar( valor );
+        return ( root, query, cb ) -> cb.equal( root.get( atributo ), normalizado );
+    }
+
+
+    private static Specification< Veiculo > anoIgual( Integer ano ) {
+
+        if ( ano == null ) {
+            return null;
+        }
+        return ( root, query, cb ) -> cb.equal( root.get( "ano" ), ano );
+    }
+
+
+    private static Specification< Veiculo > precoMinimo( BigDecimal minPreco ) {
+
+        if ( minPreco == null ) {
+            return null;
+        }
+        return ( root, query, cb ) -> cb.greaterThanOrEqualTo( root.get( "precoUsd" ), minPreco );
+    }
+
+
+    private static Specification< Veiculo > precoMaximo( BigDecimal maxPreco ) {
+
+        if ( maxPreco == null ) {
+            return null;
+        }
+        return ( root, query, cb ) -> cb.lessThanOrEqualTo( root.get( "precoUsd" ), maxPreco );
+    }
+}
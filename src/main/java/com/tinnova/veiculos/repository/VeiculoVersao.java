@@ -0,0 +1,14 @@
+package com.tinnova.veiculos.repository;
+
+
+import java.time.LocalDateTime;
+
+
+// Projeção com as colunas que identificam a versão de um veículo
+public interface VeiculoVersao {
+
+    Long getVersao();
+
+
+    LocalDateTime getUpdatedAt();
+}
@@ -5,13 +5,17 @@ import java.io.IOException;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.tinnova.veiculos.service.UsuarioService;
+import com.tinnova.veiculos.service.UsuarioStatus;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -29,38 +33,79 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final UsuarioService usuarioService;
 
+    private final MeterRegistry meterRegistry;
+
     @Override
     protected void doFilterInternal( HttpServletRequest request, HttpServletResponse response, FilterChain filterChain )
         throws ServletException,
         IOException {
 
+        // Só a autenticação entra no timer jwt.filtro; o restante da cadeia já é medido em http.server.requests
+        Timer.Sample inicio = Timer.start( meterRegistry );
+        String resultado = autenticar( request );
+        inicio.stop( Timer.builder( "jwt.filtro" ).tag( "resultado", resultado ).register( meterRegistry ) );
+
+        filterChain.doFilter( request, response );
+    }
+
+
+    private String autenticar( HttpServletRequest request ) {
+
         final String authorizationHeader = request.getHeader( "Authorization" );
 
-        String username = null;
-        String jwt = null;
+        if ( authorizationHeader == null || !authorizationHeader.startsWith( "Bearer " ) ) {
+            return "sem-token";
+        }
+
+        TokenVerificado token = null;
 
-        if ( authorizationHeader != null && authorizationHeader.startsWith( "Bearer " ) ) {
-            jwt = authorizationHeader.substring( 7 );
-            try {
-                username = jwtUtil.extractUsername( jwt );
-            } catch ( Exception e ) {
-                log.error( "Erro ao extrair username do token: {}", e.getMessage() );
-            }
+        String jwt = authorizationHeader.substring( 7 );
+        try {
+            // Assinatura verificada uma vez por token; requisições seguintes com o mesmo token vêm do cache
+            token = jwtUtil.verificarToken( jwt );
+        } catch ( Exception e ) {
+            log.error( "Erro ao extrair username do token: {}", e.getMessage() );
         }
 
-        if ( username != null && SecurityContextHolder.getContext().getAuthentication() == null ) {
-            UserDetails userDetails = usuarioService.loadUserByUsername( username );
+        if ( token == null || token.isExpirado() ) {
+            return "invalido";
+        }
+        if ( SecurityContextHolder.getContext().getAuthentication() != null ) {
+            return "autenticado";
+        }
+
+        UserDetails userDetails = carregarUsuario( token );
+        if ( userDetails == null ) {
+            return "revogado";
+        }
+
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken( userDetails, null, userDetails.getAuthorities() );
+
+        authToken.setDetails( new WebAuthenticationDetailsSource().buildDetails( request ) );
+        SecurityContextHolder.getContext().setAuthentication( authToken );
+
+        log.debug( "Usuário autenticado: {}", token.getUsername() );
+        return "autenticado";
+    }
 
-            if ( jwtUtil.validateToken( jwt, userDetails ) ) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken( userDetails, null, userDetails.getAuthorities() );
 
-                authToken.setDetails( new WebAuthenticationDetailsSource().buildDetails( request ) );
-                SecurityContextHolder.getContext().setAuthentication( authToken );
+    // Com papéis e versão nas claims, basta conferir a situação do usuário (em cache) para manter a revogação;
+    // tokens antigos, sem essas claims, ainda carregam o usuário do banco
+    private UserDetails carregarUsuario( TokenVerificado token ) {
 
-                log.debug( "Usuário autenticado: {}", username );
-            }
+        String username = token.getUsername();
+
+        if ( !token.hasClaimsDeAutorizacao() ) {
+            UserDetails userDetails = usuarioService.loadUserByUsername( username );
+            return username.equals( userDetails.getUsername() ) ? userDetails : null;
         }
 
-        filterChain.doFilter( request, response );
+        UsuarioStatus status = usuarioService.getStatus( username );
+        if ( status == null || !Boolean.TRUE.equals( status.getAtivo() ) || !token.getVersao().equals( status.getVersao() ) ) {
+            log.debug( "Token revogado para o usuário: {}", username );
+            return null;
+        }
+
+        return User.withUsername( username ).password( "" ).authorities( token.getRoles().toArray( String[]::new ) ).build();
     }
-}
\ No newline at end of file
+}
@@ -5,12 +5,25 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.tinnova.veiculos.entity.Usuario;
+
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -18,15 +31,34 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
-    @Value( "${jwt.secret}" )
-    private String secret;
+    private static final String CLAIM_ROLES = "roles";
+
+    private static final String CLAIM_VERSAO = "versao";
+
+    private final SecretKey signingKey;
+
+    private final Long expiration;
+
+    // Tokens já verificados, indexados pelo SHA-256 do token e expirados junto com o próprio JWT
+    private final Cache< String, TokenVerificado > tokensVerificados;
+
+    public JwtUtil( @Value( "${jwt.secret}" ) String secret, @Value( "${jwt.expiration}" ) Long expiration,
+        @Value( "${jwt.cache.maximum-size:10000}" ) long cacheMaximumSize ) {
+
+        this.signingKey = Keys.hmacShaKeyFor( secret.getBytes() );
+        this.expiration = expiration;
+        this.tokensVerificados = Caffeine.newBuilder().maximumSize( cacheMaximumSize ).expireAfter( new ExpiraComToken() ).build();
+    }
 
-    @Value( "${jwt.expiration}" )
-    private Long expiration;
 
-    private SecretKey getSigningKey() {
+    // Devolve o token verificado do cache; em caso de falta, valida a assinatura uma única vez
+    public TokenVerificado verificarToken( String token ) {
 
-        return Keys.hmacShaKeyFor( secret.getBytes() );
+        return tokensVerificados.get( digest( token ), chave -> {
+            Claims claims = extractAllClaims( token );
+            return TokenVerificado.of( claims.getSubject(), claims.getExpiration().toInstant(), extractRoles( claims ),
+                claims.get( CLAIM_VERSAO, Long.class ) );
+        } );
     }
 
 
@@ -51,19 +83,25 @@ public class JwtUtil {
 
     private Claims extractAllClaims( String token ) {
 
-        return Jwts.parser().verifyWith( getSigningKey() ).build().parseSignedClaims( token ).getPayload();
+        return Jwts.parser().verifyWith( signingKey ).build().parseSignedClaims( token ).getPayload();
     }
 
 
-    private Boolean isTokenExpired( String token ) {
+    private List< String > extractRoles( Claims claims ) {
 
-        return extractExpiration( token ).before( new Date() );
+        List< ? > roles = claims.get( CLAIM_ROLES, List.class );
+        return roles == null ? null : roles.stream().map( String::valueOf ).toList();
     }
 
 
+    // Papéis e versão do usuário vão no token para o filtro montar as authorities sem consultar o banco
     public String generateToken( UserDetails userDetails ) {
 
         Map< String, Object > claims = new HashMap<>();
+        claims.put( CLAIM_ROLES, userDetails.getAuthorities().stream().map( GrantedAuthority::getAuthority ).toList() );
+        if ( userDetails instanceof Usuario usuario ) {
+            claims.put( CLAIM_VERSAO, usuario.getVersao() );
+        }
         return createToken( claims, userDetails.getUsername() );
     }
 
@@ -73,14 +111,14 @@ public class JwtUtil {
         Date now = new Date();
         Date expirationDate = new Date( now.getTime() + expiration );
 
-        return Jwts.builder().claims( claims ).subject( subject ).issuedAt( now ).expiration( expirationDate ).signWith( getSigningKey() ).compact();
+        return Jwts.builder().claims( claims ).subject( subject ).issuedAt( now ).expiration( expirationDate ).signWith( signingKey ).compact();
     }
 
 
     public Boolean validateToken( String token, UserDetails userDetails ) {
 
-        final String username = extractUsername( token );
-        return ( username.equals( userDetails.getUsername() ) && !isTokenExpired( token ) );
+        final TokenVerificado verificado = verificarToken( token );
+        return ( verificado.getUsername().equals( userDetails.getUsername() ) && !verificado.isExpirado() );
     }
 
 
@@ -88,4 +126,39 @@ public class JwtUtil {
 
         return expiration;
     }
-}
\ No newline at end of file
+
+
+    private static String digest( String token ) {
+
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance( "SHA-256" );
+            return HexFormat.of().formatHex( sha256.digest( token.getBytes( StandardCharsets.US_ASCII ) ) );
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+
+    private static class ExpiraComToken implements Expiry< String, TokenVerificado > {
+
+        @Override
+        public long expireAfterCreate( String chave, TokenVerificado token, long currentTime ) {
+
+            return Math.max( 0L, Duration.between( Instant.now(), token.getExpiraEm() ).toNanos() );
+        }
+
+
+        @Override
+        public long expireAfterUpdate( String chave, TokenVerificado token, long currentTime, long currentDuration ) {
+
+            return currentDuration;
+        }
+
+
+        @Override
+        public long expireAfterRead( String chave, TokenVerificado token, long currentTime, long currentDuration ) {
+
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.tinnova.veiculos.security;
+
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+// Resultado de um token cuja assinatura já foi verificada: o que o filtro precisa sem reabrir o JWT
+@Getter
+@RequiredArgsConstructor( staticName = "of" )
+public class TokenVerificado {
+
+    private final String username;
+
+    private final Instant expiraEm;
+
+    // Ausentes (null) em tokens emitidos antes de os papéis e a versão irem para as claims
+    private final List< String > roles;
+
+    private final Long versao;
+
+    public boolean isExpirado() {
+
+        return !expiraEm.isAfter( Instant.now() );
+    }
+
+
+    public boolean hasClaimsDeAutorizacao() {
+
+        return roles != null && versao != null;
+    }
+}
@@ -4,11 +4,32 @@ package com.tinnova.veiculos.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.client.reactive.ClientHttpRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.tinnova.veiculos.service.parser.AwesomeApiCotacaoParser;
+import com.tinnova.veiculos.service.parser.CotacaoParser;
+import com.tinnova.veiculos.service.parser.FrankfurterCotacaoParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 
 @Service
@@ -16,7 +37,13 @@ import java.math.BigDecimal;
 @RequiredArgsConstructor
 public class CambioService {
 
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient cambioWebClient;
+
+    private final AwesomeApiCotacaoParser awesomeApiParser;
+
+    private final FrankfurterCotacaoParser frankfurterParser;
+
+    private final MeterRegistry meterRegistry;
 
     @Value( "${exchange.api.primary.url}" )
     private String primaryApiUrl;
@@ -24,70 +51,139 @@ public class CambioService {
     @Value( "${exchange.api.fallback.url}" )
     private String fallbackApiUrl;
 
+    @Value( "${exchange.api.primary.timeout:PT2S}" )
+    private Duration primaryTimeout;
+
+    @Value( "${exchange.api.fallback.timeout:PT2S}" )
+    private Duration fallbackTimeout;
+
+    // Orçamento de latência da API principal antes de disparar o fallback em paralelo
+    @Value( "${exchange.api.hedge-delay:PT0.5S}" )
+    private Duration hedgeDelay;
+
+    // Cotação vista por último neste nó e desde quando: a "versão" da cotação no Last-Modified das leituras
+    private final AtomicReference< CotacaoObservada > ultimaCotacao = new AtomicReference<>();
+
     @Cacheable( value = "cotacao-dolar", unless = "#result == null" )
     public BigDecimal getCotacaoDolar() {
 
         log.info( "Buscando cotação do dólar..." );
+        return buscarCotacao().block();
+    }
 
-        try {
-            return getCotacaoAwesomeApi();
-        } catch ( Exception e ) {
-            log.warn( "Falha ao buscar cotação na API principal, tentando fallback...", e );
-            return getCotacaoFrankfurter();
-        }
+
+    // Versão não bloqueante para a API reativa: mesma entrada de cache do getCotacaoDolar (método sem argumentos, mesma chave),
+    // lida e, numa falta, gravada de forma assíncrona (Cache.retrieve)
+    @Cacheable( value = "cotacao-dolar", sync = true )
+    public Mono< BigDecimal > getCotacaoDolarReativa() {
+
+        log.info( "Buscando cotação do dólar (reativo)..." );
+        return buscarCotacao();
     }
 
 
-    private BigDecimal getCotacaoAwesomeApi() {
+    // Chamado em segundo plano: grava a nova cotação nos dois níveis do cache antes do TTL expirar
+    @CachePut( value = "cotacao-dolar", unless = "#result == null" )
+    public BigDecimal atualizarCotacao() {
 
-        try {
-            WebClient webClient = webClientBuilder.build();
-            String response = webClient.get().uri( primaryApiUrl ).retrieve().bodyToMono( String.class ).block();
+        log.info( "Atualizando cotação do dólar em segundo plano..." );
+        return buscarCotacao().block();
+    }
 
-            // Parse da resposta: {"USDBRL":{"bid":"5.1234"}}
-            String bid = response.split( "\"bid\":\"" )[ 1 ].split( "\"" )[ 0 ];
-            BigDecimal cotacao = new BigDecimal( bid );
 
-            log.info( "Cotação obtida da AwesomeAPI: {}", cotacao );
-            return cotacao;
+    // Consulta a API principal e, se ela falhar ou não responder dentro do hedge-delay, também o fallback;
+    // vence a primeira cotação válida
+    public Mono< BigDecimal > buscarCotacao() {
 
-        } catch ( Exception e ) {
-            log.error( "Erro ao buscar cotação na AwesomeAPI", e );
-            throw new RuntimeException( "Erro ao buscar cotação do dólar", e );
-        }
+        Mono< BigDecimal > principal = getCotacaoAwesomeApi().cache();
+
+        Mono< Long > falhaPrincipal = principal.then( Mono.< Long > never() ).onErrorResume( e -> Mono.just( 0L ) );
+        Mono< BigDecimal > fallback = Mono.firstWithSignal( Mono.delay( hedgeDelay ), falhaPrincipal )
+            .then( getCotacaoFrankfurter().doOnSubscribe( s -> Counter.builder( "cambio.fallback" ).register( meterRegistry ).increment() ) );
+
+        return Mono.firstWithValue( principal, fallback ).onErrorMap( e -> new RuntimeException( "Erro ao buscar cotação do dólar", e ) );
     }
 
 
-    private BigDecimal getCotacaoFrankfurter() {
+    private Mono< BigDecimal > getCotacaoAwesomeApi() {
 
-        try {
-            WebClient webClient = webClientBuilder.build();
-            String response = webClient.get().uri( fallbackApiUrl ).retrieve().bodyToMono( String.class ).block();
+        return buscarNoProvedor( "AwesomeAPI", primaryApiUrl, primaryTimeout, awesomeApiParser );
+    }
 
-            // Parse da resposta: {"rates":{"BRL":5.1234}}
-            String rate = response.split( "\"BRL\":" )[ 1 ].split( "}" )[ 0 ];
-            BigDecimal cotacao = new BigDecimal( rate );
 
-            log.info( "Cotação obtida da Frankfurter: {}", cotacao );
-            return cotacao;
+    private Mono< BigDecimal > getCotacaoFrankfurter() {
 
-        } catch ( Exception e ) {
-            log.error( "Erro ao buscar cotação na Frankfurter", e );
-            throw new RuntimeException( "Erro ao buscar cotação do dólar no fallback", e );
+        return buscarNoProvedor( "Frankfurter", fallbackApiUrl, fallbackTimeout, frankfurterParser );
+    }
+
+
+    // Latência por provedor no timer cambio.provedor; resultado "cancelado" quando a outra API respondeu antes.
+    // Registrado no primeiro sinal (a cotação, o erro ou o cancelamento), antes de o valor seguir adiante
+    private Mono< BigDecimal > buscarNoProvedor( String provedor, String url, Duration timeout, CotacaoParser parser ) {
+
+        return Mono.defer( () -> {
+            Timer.Sample inicio = Timer.start( meterRegistry );
+            AtomicBoolean registrado = new AtomicBoolean();
+            Consumer< String > registrar = resultado -> {
+                if ( registrado.compareAndSet( false, true ) ) {
+                    inicio.stop( Timer.builder( "cambio.provedor" ).tag( "provedor", provedor ).tag( "resultado", resultado ).register( meterRegistry ) );
+                }
+            };
+
+            // O corpo chega como DataBuffer (buffer do Netty) e é lido em streaming pelo parser do provedor
+            return cambioWebClient.get().uri( url ).httpRequest( request -> responseTimeout( request, timeout ) ).retrieve()
+                .bodyToMono( DataBuffer.class ).map( corpo -> lerCotacao( corpo, parser ) ).filter( cotacao -> cotacao.signum() > 0 )
+                .switchIfEmpty( Mono.error( () -> new IllegalStateException( "Cotação inválida" ) ) ).timeout( timeout )
+                .doOnNext( cotacao -> {
+                    registrar.accept( "sucesso" );
+                    log.info( "Cotação obtida da {}: {}", provedor, cotacao );
+                } ).doOnError( e -> {
+                    registrar.accept( "erro" );
+                    log.warn( "Erro ao buscar cotação na {}: {}", provedor, e.toString() );
+                } ).doOnCancel( () -> registrar.accept( "cancelado" ) );
+        } );
+    }
+
+
+    private BigDecimal lerCotacao( DataBuffer corpo, CotacaoParser parser ) {
+
+        try ( InputStream in = corpo.asInputStream( true ) ) {
+            return parser.parse( in );
+        } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
         }
     }
 
 
+    // Timeout de resposta por provedor, aplicado na própria conexão do Reactor Netty
+    private void responseTimeout( ClientHttpRequest request, Duration timeout ) {
+
+        HttpClientRequest nativeRequest = request.getNativeRequest();
+        nativeRequest.responseTimeout( timeout );
+    }
+
+
+    // Instante em que este nó passou a ver esta cotação (a do cache, já resolvida pelo chamador); o valor em si entra no ETag
+    public Instant observadaDesde( BigDecimal cotacao ) {
+
+        return ultimaCotacao.updateAndGet(
+            atual -> atual != null && atual.cotacao().compareTo( cotacao ) == 0 ? atual : new CotacaoObservada( cotacao, Instant.now() ) ).desde();
+    }
+
+
     public BigDecimal convertBrlToUsd( BigDecimal valorBrl ) {
 
-        BigDecimal cotacao = getCotacaoDolar();
-        return valorBrl.divide( cotacao, 2, BigDecimal.ROUND_HALF_UP );
+        return CotacaoSnapshot.of( getCotacaoDolar() ).toUsd( valorBrl );
     }
 
 
     public BigDecimal convertUsdToBrl( BigDecimal valorUsd ) {
 
-        BigDecimal cotacao = getCotacaoDolar();
-        return valorUsd.multiply( cotacao ).setScale( 2, BigDecimal.ROUND_HALF_UP );
+        return CotacaoSnapshot.of( getCotacaoDolar() ).toBrl( valorUsd );
+    }
+
+
+    private record CotacaoObservada( BigDecimal cotacao, Instant desde ) {
+
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.tinnova.veiculos.service;
+
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+// Renova a cotação antes do TTL do Redis expirar, para que nenhuma requisição espere pelas APIs externas
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty( name = "exchange.refresh.enabled", havingValue = "true", matchIfMissing = true )
+public class CotacaoRefreshScheduler {
+
+    private final CambioService cambioService;
+
+    @Scheduled( fixedDelayString = "${exchange.refresh.interval:PT30M}", initialDelayString = "${exchange.refresh.initial-delay:PT0S}" )
+    public void atualizarCotacao() {
+
+        try {
+            cambioService.atualizarCotacao();
+        } catch ( Exception e ) {
+            // Mantém o valor atual em cache; a próxima execução tenta novamente
+            log.warn( "Falha ao atualizar a cotação em segundo plano: {}", e.getMessage() );
+        }
+    }
+}
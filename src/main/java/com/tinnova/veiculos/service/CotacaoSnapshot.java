@@ -0,0 +1,157 @@
+package com.tinnova.veiculos.service;
+
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import lombok.Getter;
+
+
+// Cotação do dólar resolvida uma única vez e reaproveitada em toda a página/requisição.
+// A cotação é pré-convertida em ponto fixo (mantissa long + escala) e os centavos são convertidos em aritmética de long;
+// BigDecimal só entra quando algum valor não cabe em long (mesmo arredondamento HALF_UP nos dois caminhos)
+public class CotacaoSnapshot {
+
+    private static final int ESCALA_MOEDA = 2;
+
+    // Caminho rápido: preços em centavos com até 9 dígitos e mantissa da cotação < 10^9 (produtos < 10^18, sem estouro)
+    private static final int PRECISAO_RAPIDA = 9;
+
+    private static final long LIMITE_RAPIDO = 1_000_000_000L;
+
+    private static final long[] POTENCIAS_DE_DEZ = new long[ 19 ];
+
+    static {
+        POTENCIAS_DE_DEZ[ 0 ] = 1L;
+        for ( int i = 1; i < POTENCIAS_DE_DEZ.length; i++ ) {
+            POTENCIAS_DE_DEZ[ i ] = POTENCIAS_DE_DEZ[ i - 1 ] * 10;
+        }
+    }
+
+    @Getter
+    private final BigDecimal cotacao;
+
+    // cotacao = mantissa / 10^escala; pontoFixo = false quando a cotação não cabe em long
+    private final boolean pontoFixo;
+
+    private final long mantissa;
+
+    private final int escala;
+
+    private final boolean rapido;
+
+    // 10^escala: divisor de usd * cotacao (escala 2 + escala) de volta para centavos, e multiplicador de brl antes de dividir
+    private final long fatorEscala;
+
+    private CotacaoSnapshot( BigDecimal cotacao ) {
+
+        this.cotacao = cotacao;
+        this.pontoFixo = cotacao.signum() > 0 && cotacao.scale() >= 0 && cotacao.scale() < POTENCIAS_DE_DEZ.length && cotacao.precision() < 19;
+        this.mantissa = pontoFixo ? cotacao.unscaledValue().longValue() : 0L;
+        this.escala = pontoFixo ? cotacao.scale() : 0;
+        this.rapido = pontoFixo && mantissa < LIMITE_RAPIDO && escala <= PRECISAO_RAPIDA;
+        this.fatorEscala = POTENCIAS_DE_DEZ[ escala ];
+    }
+
+
+    public static CotacaoSnapshot of( BigDecimal cotacao ) {
+
+        return new CotacaoSnapshot( cotacao );
+    }
+
+
+    public BigDecimal toBrl( BigDecimal valorUsd ) {
+
+        if ( rapido && valorUsd.scale() == ESCALA_MOEDA && valorUsd.precision() <= PRECISAO_RAPIDA ) {
+            return BigDecimal.valueOf( dividirHalfUp( valorUsd.unscaledValue().longValue() * mantissa, fatorEscala ), ESCALA_MOEDA );
+        }
+        return toBrlGeral( valorUsd );
+    }
+
+
+    public BigDecimal toUsd( BigDecimal valorBrl ) {
+
+        if ( rapido && valorBrl.scale() == ESCALA_MOEDA && valorBrl.precision() <= PRECISAO_RAPIDA ) {
+            return BigDecimal.valueOf( dividirHalfUp( valorBrl.unscaledValue().longValue() * fatorEscala, mantissa ), ESCALA_MOEDA );
+        }
+        return toUsdGeral( valorBrl );
+    }
+
+
+    // Qualquer escala: ainda em long enquanto os produtos couberem, senão BigDecimal
+    private BigDecimal toBrlGeral( BigDecimal valorUsd ) {
+
+        if ( pontoFixo && cabeEmLong( valorUsd ) ) {
+            long produto = multiplicar( valorUsd.unscaledValue().longValue(), mantissa );
+            long centavos = produto != Long.MIN_VALUE ? reescalar( produto, valorUsd.scale() + escala ) : Long.MIN_VALUE;
+            if ( centavos != Long.MIN_VALUE ) {
+                return BigDecimal.valueOf( centavos, ESCALA_MOEDA );
+            }
+        }
+
+        return valorUsd.multiply( cotacao ).setScale( ESCALA_MOEDA, RoundingMode.HALF_UP );
+    }
+
+
+    private BigDecimal toUsdGeral( BigDecimal valorBrl ) {
+
+        if ( pontoFixo && cabeEmLong( valorBrl ) ) {
+            // brl / cotacao em centavos = (brl * 10^(escala + 2)) / (mantissa * 10^escalaBrl), com os expoentes compensados de um lado só
+            int expoente = escala + ESCALA_MOEDA - valorBrl.scale();
+            long dividendo = valorBrl.unscaledValue().longValue();
+            long divisor = mantissa;
+            if ( expoente >= 0 ) {
+                dividendo = expoente < POTENCIAS_DE_DEZ.length ? multiplicar( dividendo, POTENCIAS_DE_DEZ[ expoente ] ) : Long.MIN_VALUE;
+            } else {
+                divisor = -expoente < POTENCIAS_DE_DEZ.length ? multiplicar( divisor, POTENCIAS_DE_DEZ[ -expoente ] ) : Long.MIN_VALUE;
+            }
+            if ( dividendo != Long.MIN_VALUE && divisor != Long.MIN_VALUE ) {
+                return BigDecimal.valueOf( dividirHalfUp( dividendo, divisor ), ESCALA_MOEDA );
+            }
+        }
+
+        return valorBrl.divide( cotacao, ESCALA_MOEDA, RoundingMode.HALF_UP );
+    }
+
+
+    private static boolean cabeEmLong( BigDecimal valor ) {
+
+        return valor.scale() >= 0 && valor.precision() < 19;
+    }
+
+
+    // Produto exato ou Long.MIN_VALUE quando estoura (sentinela: nenhum produto válido aqui chega a esse valor)
+    private static long multiplicar( long a, long b ) {
+
+        long alto = Math.multiplyHigh( a, b );
+        long baixo = a * b;
+        if ( ( alto == 0 && baixo >= 0 ) || ( alto == -1 && baixo < 0 ) ) {
+            return baixo;
+        }
+        return Long.MIN_VALUE;
+    }
+
+
+    // Leva um valor da escala informada para centavos com HALF_UP, como BigDecimal.setScale( 2, HALF_UP )
+    private static long reescalar( long valor, int escalaAtual ) {
+
+        int diferenca = escalaAtual - ESCALA_MOEDA;
+        if ( diferenca < 0 ) {
+            return -diferenca < POTENCIAS_DE_DEZ.length ? multiplicar( valor, POTENCIAS_DE_DEZ[ -diferenca ] ) : Long.MIN_VALUE;
+        }
+        return diferenca < POTENCIAS_DE_DEZ.length ? dividirHalfUp( valor, POTENCIAS_DE_DEZ[ diferenca ] ) : Long.MIN_VALUE;
+    }
+
+
+    // Divisão inteira arredondada HALF_UP (meio para longe do zero); divisor sempre positivo
+    private static long dividirHalfUp( long dividendo, long divisor ) {
+
+        long modulo = Math.abs( dividendo );
+        long quociente = modulo / divisor;
+        long resto = modulo - quociente * divisor;
+        if ( resto >= divisor - resto ) {
+            quociente++;
+        }
+        return dividendo < 0 ? -quociente : quociente;
+    }
+}
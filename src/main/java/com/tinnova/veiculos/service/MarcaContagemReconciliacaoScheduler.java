@@ -0,0 +1,33 @@
+package com.tinnova.veiculos.service;
+
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+// Confere periodicamente o agregado do relatório por marca contra a tabela de veículos e corrige divergências
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty( name = "relatorio.reconciliacao.enabled", havingValue = "true", matchIfMissing = true )
+public class MarcaContagemReconciliacaoScheduler {
+
+    private final MarcaContagemService marcaContagemService;
+
+    @Scheduled( fixedDelayString = "${relatorio.reconciliacao.interval:PT10M}", initialDelayString = "${relatorio.reconciliacao.initial-delay:PT0S}" )
+    public void reconciliar() {
+
+        try {
+            int divergentes = marcaContagemService.reconciliar();
+            if ( divergentes > 0 ) {
+                log.warn( "Reconciliação do relatório por marca corrigiu {} marca(s)", divergentes );
+            }
+        } catch ( Exception e ) {
+            log.warn( "Falha na reconciliação do relatório por marca: {}", e.getMessage() );
+        }
+    }
+}
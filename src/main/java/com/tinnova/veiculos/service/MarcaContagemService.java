@@ -0,0 +1,111 @@
+package com.tinnova.veiculos.service;
+
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
+import com.tinnova.veiculos.entity.MarcaContagem;
+import com.tinnova.veiculos.repository.MarcaContagemRepository;
+import com.tinnova.veiculos.repository.VeiculoRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MarcaContagemService {
+
+    private final MarcaContagemRepository marcaContagemRepository;
+
+    private final VeiculoRepository veiculoRepository;
+
+
+    // Chamado dentro da transação da escrita do veículo: o agregado é confirmado junto com ela
+    @Transactional
+    public void registrar( String marca, long delta ) {
+
+        if ( marcaContagemRepository.incrementar( marca, delta ) == 0 && delta > 0 ) {
+            // Primeira ocorrência da marca: a linha nasce zerada nesta mesma transação e o incremento é refeito. Na corrida
+            // entre duas escritas, o INSERT de quem perde espera o da outra e não faz nada, e o incremento cai na linha dela
+            marcaContagemRepository.criarSeAusente( marca );
+            marcaContagemRepository.incrementar( marca, delta );
+        }
+    }
+
+
+    // Vários deltas na mesma transação, aplicados na ordem das marcas (a mesma da reconciliação): duas transações nunca
+    // bloqueiam as mesmas linhas em ordens opostas
+    @Transactional
+    public void registrarPorMarca( Map< String, Long > deltas ) {
+
+        new TreeMap<>( deltas ).forEach( this::registrar );
+    }
+
+
+    @Transactional
+    public void alterarMarca( String marcaAnterior, String novaMarca ) {
+
+        if ( !Objects.equals( marcaAnterior, novaMarca ) ) {
+            registrarPorMarca( Map.of( marcaAnterior, -1L, novaMarca, 1L ) );
+        }
+    }
+
+
+    @Transactional( readOnly = true )
+    public List< RelatorioMarcaResponse > getRelatorio() {
+
+        return marcaContagemRepository.findRelatorio();
+    }
+
+
+    // Recalcula as contagens a partir de veiculos e corrige o agregado; devolve quantas marcas estavam divergentes.
+    // As linhas do agregado são bloqueadas antes da contagem: incremento ainda não confirmado termina antes (e a contagem
+    // já enxerga o veículo dele), e os que chegarem depois esperam a correção e se somam a ela
+    @Transactional
+    public int reconciliar() {
+
+        Map< String, MarcaContagem > agregadas =
+            marcaContagemRepository.findAllParaAtualizar().stream().collect( Collectors.toMap( MarcaContagem::getMarca, Function.identity() ) );
+        Map< String, Long > reais = veiculoRepository.findRelatorioPorMarca().stream()
+            .collect( Collectors.toMap( RelatorioMarcaResponse::getMarca, RelatorioMarcaResponse::getQuantidade ) );
+
+        int divergentes = 0;
+
+        for ( Map.Entry< String, Long > real : reais.entrySet() ) {
+            MarcaContagem contagem = agregadas.remove( real.getKey() );
+            if ( contagem == null ) {
+                // Linha criada depois do bloqueio pertence às escritas em andamento: fica para a próxima reconciliação
+                if ( !marcaContagemRepository.existsById( real.getKey() ) ) {
+                    marcaContagemRepository.inserir( real.getKey(), real.getValue() );
+                    divergentes++;
+                }
+            } else if ( !contagem.getQuantidade().equals( real.getValue() ) ) {
+                log.warn( "Contagem divergente para a marca {}: agregado {}, real {}", real.getKey(), contagem.getQuantidade(), real.getValue() );
+                contagem.setQuantidade( real.getValue() );
+                divergentes++;
+            }
+        }
+
+        // Marcas sem nenhum veículo ativo
+        for ( MarcaContagem contagem : agregadas.values() ) {
+            if ( contagem.getQuantidade() != 0 ) {
+                log.warn( "Contagem divergente para a marca {}: agregado {}, real 0", contagem.getMarca(), contagem.getQuantidade() );
+                divergentes++;
+            }
+            marcaContagemRepository.delete( contagem );
+        }
+
+        return divergentes;
+    }
+
+}
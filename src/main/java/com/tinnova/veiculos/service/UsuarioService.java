@@ -1,15 +1,21 @@
 package com.tinnova.veiculos.service;
 
 
+import com.tinnova.veiculos.entity.Usuario;
 import com.tinnova.veiculos.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class UsuarioService implements UserDetailsService {
 
@@ -21,4 +27,30 @@ public class UsuarioService implements UserDetailsService {
 
         return usuarioRepository.findByUsername( username ).orElseThrow( () -> new UsernameNotFoundException( "Usuário não encontrado: " + username ) );
     }
-}
\ No newline at end of file
+
+
+    // Consultado pelo filtro JWT no lugar do SELECT por requisição; removido do cache ao desativar o usuário por aqui e, se a
+    // mudança vier de fora da aplicação, vencido pelo TTL curto do cache (cache.usuario-status.ttl)
+    @Cacheable( value = "usuario-status", key = "#username", unless = "#result == null" )
+    public UsuarioStatus getStatus( String username ) {
+
+        return usuarioRepository.findByUsername( username ).map( usuario -> new UsuarioStatus( usuario.isEnabled(), usuario.getVersao() ) )
+            .orElse( null );
+    }
+
+
+    // Chamado por POST /usuarios/{username}/desativar: a versão incrementada invalida os tokens já emitidos
+    @Transactional
+    @CacheEvict( value = "usuario-status", key = "#username" )
+    public void desativar( String username ) {
+
+        Usuario usuario = usuarioRepository.findByUsername( username )
+            .orElseThrow( () -> new UsernameNotFoundException( "Usuário não encontrado: " + username ) );
+
+        usuario.setAtivo( false );
+        usuario.setVersao( usuario.getVersao() + 1 );
+        usuarioRepository.save( usuario );
+
+        log.info( "Usuário desativado: {}", username );
+    }
+}
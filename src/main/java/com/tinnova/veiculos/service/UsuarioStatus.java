@@ -0,0 +1,18 @@
+package com.tinnova.veiculos.service;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+// Situação do usuário consultada a cada requisição autenticada; fica no cache "usuario-status"
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsuarioStatus {
+
+    private Boolean ativo;
+
+    private Long versao;
+}
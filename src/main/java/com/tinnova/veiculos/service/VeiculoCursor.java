@@ -0,0 +1,122 @@
+package com.tinnova.veiculos.service;
+
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import com.tinnova.veiculos.exception.CursorInvalidoException;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+// Cursor opaco da paginação keyset: a ordenação e os valores da última linha (sempre com o id como desempate),
+// serializados como query string em Base64 URL-safe. Só aceita as colunas abaixo, convertidas para o tipo da entidade.
+@Getter
+@RequiredArgsConstructor( access = AccessLevel.PRIVATE )
+public final class VeiculoCursor {
+
+    private static final String ID = "id";
+
+    private static final String ORDENACAO = "_sort";
+
+    private static final Map< String, Function< String, Object > > CHAVES = Map.of( ID, Long::valueOf, "marca", valor -> valor, "modelo", valor -> valor, "ano",
+        Integer::valueOf, "cor", valor -> valor, "placa", valor -> valor, "precoUsd", BigDecimal::new, "createdAt", LocalDateTime::parse, "updatedAt",
+        LocalDateTime::parse );
+
+    private final Sort sort;
+
+    private final KeysetScrollPosition posicao;
+
+    // Primeira página: ordenação pedida na requisição, acrescida do id para tornar a chave única
+    public static VeiculoCursor inicio( Sort sort ) {
+
+        Sort ordenacao = Sort.unsorted();
+        for ( Sort.Order order : sort ) {
+            validarChave( order.getProperty() );
+            ordenacao = ordenacao.and( Sort.by( order.getDirection(), order.getProperty() ) );
+        }
+        if ( ordenacao.getOrderFor( ID ) == null ) {
+            ordenacao = ordenacao.and( Sort.by( ID ) );
+        }
+        return new VeiculoCursor( ordenacao, ScrollPosition.keyset() );
+    }
+
+
+    public static VeiculoCursor decode( String cursor ) {
+
+        Map< String, String > campos;
+        try {
+            String texto = new String( Base64.getUrlDecoder().decode( cursor ), StandardCharsets.UTF_8 );
+            campos = new LinkedHashMap<>();
+            for ( String par : texto.split( "&" ) ) {
+                int separador = par.indexOf( '=' );
+                campos.put( URLDecoder.decode( par.substring( 0, separador ), StandardCharsets.UTF_8 ),
+                    URLDecoder.decode( par.substring( separador + 1 ), StandardCharsets.UTF_8 ) );
+            }
+        } catch ( RuntimeException e ) {
+            throw new CursorInvalidoException( "Cursor inválido" );
+        }
+
+        String ordenacao = campos.remove( ORDENACAO );
+        if ( ordenacao == null ) {
+            throw new CursorInvalidoException( "Cursor inválido" );
+        }
+
+        Sort sort = Sort.unsorted();
+        for ( String order : ordenacao.split( "," ) ) {
+            String[] partes = order.split( ":" );
+            validarChave( partes[ 0 ] );
+            sort = sort.and( Sort.by( Sort.Direction.fromOptionalString( partes.length > 1 ? partes[ 1 ] : null ).orElse( Sort.Direction.ASC ), partes[ 0 ] ) );
+        }
+
+        Map< String, Object > chaves = new LinkedHashMap<>();
+        for ( Sort.Order order : sort ) {
+            String valor = campos.get( order.getProperty() );
+            if ( valor == null ) {
+                throw new CursorInvalidoException( "Cursor inválido" );
+            }
+            try {
+                chaves.put( order.getProperty(), CHAVES.get( order.getProperty() ).apply( valor ) );
+            } catch ( RuntimeException e ) {
+                throw new CursorInvalidoException( "Cursor inválido" );
+            }
+        }
+
+        return new VeiculoCursor( sort, ScrollPosition.forward( chaves ) );
+    }
+
+
+    public static String encode( Sort sort, KeysetScrollPosition ultimaLinha ) {
+
+        Map< String, String > campos = new LinkedHashMap<>();
+        campos.put( ORDENACAO, sort.stream().map( order -> order.getProperty() + ":" + order.getDirection() ).collect( Collectors.joining( "," ) ) );
+        ultimaLinha.getKeys().forEach( ( chave, valor ) -> campos.put( chave, String.valueOf( valor ) ) );
+
+        String texto = campos.entrySet().stream()
+            .map( campo -> URLEncoder.encode( campo.getKey(), StandardCharsets.UTF_8 ) + "=" + URLEncoder.encode( campo.getValue(), StandardCharsets.UTF_8 ) )
+            .collect( Collectors.joining( "&" ) );
+        return Base64.getUrlEncoder().withoutPadding().encodeToString( texto.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+
+    private static void validarChave( String propriedade ) {
+
+        if ( !CHAVES.containsKey( propriedade ) ) {
+            throw new CursorInvalidoException( "Ordenação não suportada no modo cursor: " + propriedade );
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.tinnova.veiculos.service;
+
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+
+// Esvazia o outbox de eventos de veículos no Redis Stream. Cada ciclo publica lotes seguidos enquanto eles vierem cheios;
+// com o Redis fora, os eventos esperam no banco e saem no primeiro ciclo depois que ele voltar. Os já publicados são
+// removidos após a retenção (veiculos.eventos.relay.retencao), para o outbox não crescer sem limite
+@Component
+@Slf4j
+@ConditionalOnProperty( name = "veiculos.eventos.relay.enabled", havingValue = "true", matchIfMissing = true )
+public class VeiculoEventoRelay {
+
+    private final VeiculoEventoService veiculoEventoService;
+
+    private final Counter publicados;
+
+    @Value( "${veiculos.eventos.relay.tamanho-lote:500}" )
+    private int tamanhoLote;
+
+    @Value( "${veiculos.eventos.relay.retencao:P7D}" )
+    private Duration retencao;
+
+    public VeiculoEventoRelay( VeiculoEventoService veiculoEventoService, MeterRegistry meterRegistry ) {
+
+        this.veiculoEventoService = veiculoEventoService;
+        this.publicados = Counter.builder( "veiculo.eventos.publicados" ).description( "Eventos do outbox publicados no Redis Stream" ).register( meterRegistry );
+    }
+
+
+    @Scheduled( fixedDelayString = "${veiculos.eventos.relay.interval:PT1S}", initialDelayString = "${veiculos.eventos.relay.initial-delay:PT0S}" )
+    public void publicar() {
+
+        try {
+            int publicadosNoLote;
+            do {
+                publicadosNoLote = veiculoEventoService.publicarPendentes( tamanhoLote );
+                publicados.increment( publicadosNoLote );
+            } while ( publicadosNoLote == tamanhoLote );
+        } catch ( Exception e ) {
+            log.warn( "Falha ao publicar eventos de veículos; nova tentativa no próximo ciclo: {}", e.getMessage() );
+        }
+    }
+
+
+    @Scheduled( fixedDelayString = "${veiculos.eventos.relay.limpeza-interval:PT1H}", initialDelayString = "${veiculos.eventos.relay.limpeza-interval:PT1H}" )
+    public void limpar() {
+
+        try {
+            veiculoEventoService.removerPublicados( retencao );
+        } catch ( Exception e ) {
+            log.warn( "Falha ao remover eventos de veículos já publicados; nova tentativa no próximo ciclo: {}", e.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.tinnova.veiculos.service;
+
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.entity.VeiculoEvento;
+import com.tinnova.veiculos.enums.TipoEventoVeiculo;
+import com.tinnova.veiculos.repository.VeiculoEventoRepository;
+import com.tinnova.veiculos.repository.VeiculoResumo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+// Outbox das escritas de veículos. O registro entra na transação da própria escrita (MANDATORY): o evento existe se, e
+// somente se, a alteração foi confirmada. A publicação no Redis Stream fica para o VeiculoEventoRelay, em lotes
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class VeiculoEventoService {
+
+    private final VeiculoEventoRepository veiculoEventoRepository;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    @Value( "${veiculos.eventos.stream:veiculos:eventos}" )
+    private String stream;
+
+    @Value( "${veiculos.eventos.stream-max-len:100000}" )
+    private long streamMaxLen;
+
+    @Transactional( propagation = Propagation.MANDATORY )
+    public void registrar( TipoEventoVeiculo tipo, Veiculo veiculo, CotacaoSnapshot cotacao ) {
+
+        veiculoEventoRepository.save( evento( tipo, veiculo.getId(), veiculo.getVersao(), VeiculoService.toResponse( veiculo, cotacao ) ) );
+    }
+
+
+    // Importação em lote: os eventos do bloco vão no mesmo flush (INSERTs em batch) dos veículos
+    @Transactional( propagation = Propagation.MANDATORY )
+    public void registrarCriados( List< Veiculo > veiculos, CotacaoSnapshot cotacao ) {
+
+        veiculoEventoRepository.saveAll( veiculos.stream()
+            .map( veiculo -> evento( TipoEventoVeiculo.CRIADO, veiculo.getId(), veiculo.getVersao(), VeiculoService.toResponse( veiculo, cotacao ) ) ).toList() );
+    }
+
+
+    // Remoção por UPDATE em massa: a versão de cada veículo avançou uma vez além da lida na projeção
+    @Transactional( propagation = Propagation.MANDATORY )
+    public void registrarRemovidos( List< VeiculoResumo > resumos ) {
+
+        veiculoEventoRepository.saveAll( resumos.stream()
+            .map( resumo -> evento( TipoEventoVeiculo.REMOVIDO, resumo.getId(), resumo.getVersao() + 1,
+                VeiculoResponse.builder().id( resumo.getId() ).marca( resumo.getMarca() ).placa( resumo.getPlaca() ).build() ) )
+            .toList() );
+    }
+
+
+    // Publica até tamanhoLote eventos pendentes num único pipeline (um XADD por evento e um XTRIM aproximado) e os marca
+    // como publicados; devolve quantos foram. Falha no Redis desfaz a marcação e o lote volta no próximo ciclo, então a
+    // entrega é pelo menos uma vez: os consumidores deduplicam pelo id do evento
+    @Transactional
+    public int publicarPendentes( int tamanhoLote ) {
+
+        List< VeiculoEvento > pendentes = veiculoEventoRepository.findByPublicadoEmIsNullOrderByIdAsc( Limit.of( tamanhoLote ) );
+        if ( pendentes.isEmpty() ) {
+            return 0;
+        }
+
+        redisTemplate.executePipelined( ( RedisCallback< Object > ) connection -> {
+            StringRedisConnection conexao = ( StringRedisConnection ) connection;
+            for ( VeiculoEvento evento : pendentes ) {
+                conexao.xAdd( StreamRecords.string( campos( evento ) ).withStreamKey( stream ) );
+            }
+            conexao.xTrim( stream, streamMaxLen, true );
+            return null;
+        } );
+        veiculoEventoRepository.marcarPublicados( pendentes.stream().map( VeiculoEvento::getId ).toList(), LocalDateTime.now() );
+
+        log.debug( "Publicados {} eventos de veículos no stream {}", pendentes.size(), stream );
+        return pendentes.size();
+    }
+
+
+    // Remove os eventos publicados há mais que a retenção; os pendentes nunca saem daqui
+    @Transactional
+    public int removerPublicados( Duration retencao ) {
+
+        int removidos = veiculoEventoRepository.removerPublicadosAntesDe( LocalDateTime.now().minus( retencao ) );
+
+        log.debug( "Removidos {} eventos de veículos publicados há mais de {}", removidos, retencao );
+        return removidos;
+    }
+
+
+    private VeiculoEvento evento( TipoEventoVeiculo tipo, Long veiculoId, Long versao, VeiculoResponse dados ) {
+
+        VeiculoEvento evento = new VeiculoEvento();
+        evento.setTipo( tipo );
+        evento.setVeiculoId( veiculoId );
+        evento.setVersao( versao );
+        evento.setDados( json( dados ) );
+        return evento;
+    }
+
+
+    private String json( VeiculoResponse dados ) {
+
+        try {
+            return objectMapper.writeValueAsString( dados );
+        } catch ( JsonProcessingException e ) {
+            throw new IllegalStateException( "Falha ao serializar o evento do veículo " + dados.getId(), e );
+        }
+    }
+
+
+    // Campos da entrada no stream; lidos de volta por VeiculoEventoStream
+    private static Map< String, String > campos( VeiculoEvento evento ) {
+
+        Map< String, String > campos = new HashMap<>();
+        campos.put( "id", evento.getId().toString() );
+        campos.put( "tipo", evento.getTipo().name() );
+        campos.put( "veiculoId", evento.getVeiculoId().toString() );
+        campos.put( "versao", evento.getVersao().toString() );
+        campos.put( "ocorridoEm", evento.getOcorridoEm().toString() );
+        campos.put( "veiculo", evento.getDados() );
+        return campos;
+    }
+}
@@ -0,0 +1,197 @@
+package com.tinnova.veiculos.service;
+
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamReadRequest;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+
+import com.tinnova.veiculos.dto.response.VeiculoEventoResponse;
+import com.tinnova.veiculos.enums.TipoEventoVeiculo;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+
+// Um único leitor do Redis Stream por nó (XREAD BLOCK numa conexão dedicada do container), repassado a todos os assinantes
+// SSE do nó: o número de clientes não muda a carga no Redis nem no banco. Quem reconecta com Last-Event-ID recebe antes o
+// que perdeu, lido do próprio stream; se isso não for mais possível, recebe um evento "resync" e deve recarregar o estado
+@Service
+@Slf4j
+@ConditionalOnProperty( name = "veiculos.eventos.sse.enabled", havingValue = "true", matchIfMissing = true )
+public class VeiculoEventoStream {
+
+    public static final String RESYNC = "resync";
+
+    private static final int PAGINA_REPLAY = 200;
+
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+
+    private final String stream;
+
+    private final int replayMax;
+
+    private final int bufferAssinante;
+
+    private final Duration heartbeat;
+
+    private final Sinks.Many< MapRecord< String, String, String > > eventos = Sinks.many().multicast().directBestEffort();
+
+    public VeiculoEventoStream(
+        StreamMessageListenerContainer< String, MapRecord< String, String, String > > veiculoEventoListenerContainer,
+        ReactiveStringRedisTemplate reactiveRedisTemplate,
+        @Value( "${veiculos.eventos.stream:veiculos:eventos}" ) String stream,
+        @Value( "${veiculos.eventos.sse.replay-max:1000}" ) int replayMax,
+        @Value( "${veiculos.eventos.sse.buffer-assinante:1024}" ) int bufferAssinante,
+        @Value( "${veiculos.eventos.sse.heartbeat:PT15S}" ) Duration heartbeat ) {
+
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.stream = stream;
+        this.replayMax = replayMax;
+        this.bufferAssinante = bufferAssinante;
+        this.heartbeat = heartbeat;
+
+        // Sem cancelar no erro: com o Redis fora, a leitura é retomada do último id recebido quando ele voltar
+        veiculoEventoListenerContainer.register( StreamReadRequest.builder( StreamOffset.latest( stream ) ).cancelOnError( erro -> false )
+            .errorHandler( erro -> log.debug( "Falha na leitura do stream {}: {}", stream, erro.getMessage() ) ).build(), this::repassar );
+    }
+
+
+    // ultimoId: Last-Event-ID da reconexão (nulo ou inválido: só os eventos a partir de agora). O ao vivo é assinado antes
+    // da releitura e fica retido até ela terminar, então nada se perde entre os dois; o que aparece nos dois sai uma vez só.
+    // Assinante que não acompanha o ritmo estoura o buffer e é desconectado, e volta pelo Last-Event-ID
+    public Flux< ServerSentEvent< Object > > assinar( String ultimoId ) {
+
+        return Flux.defer( () -> {
+            RecordId inicio = recordId( ultimoId );
+            Sinks.Many< MapRecord< String, String, String > > retidos =
+                Sinks.many().unicast().onBackpressureBuffer( Queues.< MapRecord< String, String, String > > get( bufferAssinante ).get() );
+            Disposable aoVivo = eventos.asFlux().subscribe( registro -> {
+                if ( retidos.tryEmitNext( registro ).isFailure() ) {
+                    retidos.tryEmitError( new IllegalStateException( "Assinante de eventos não acompanhou o ritmo do stream" ) );
+                }
+            } );
+
+            AtomicReference< RecordId > ultimoEnviado = new AtomicReference<>( inicio );
+            Flux< ServerSentEvent< Object > > registros = Flux.concat( historico( inicio, ultimoEnviado ),
+                retidos.asFlux().filter( registro -> avancou( ultimoEnviado, registro.getId() ) ).map( VeiculoEventoStream::toEvento ) );
+
+            // Comentários periódicos mantêm a conexão aberta em proxies e revelam clientes que já foram embora
+            Flux< ServerSentEvent< Object > > batimentos =
+                Flux.interval( heartbeat, heartbeat ).map( tique -> ServerSentEvent.builder().comment( "keep-alive" ).build() );
+
+            return Flux.merge( registros, batimentos ).doFinally( sinal -> aoVivo.dispose() );
+        } );
+    }
+
+
+    private void repassar( MapRecord< String, String, String > registro ) {
+
+        // Sem assinantes neste nó o evento é simplesmente descartado
+        eventos.tryEmitNext( registro );
+    }
+
+
+    // Relê o que veio depois do Last-Event-ID, em páginas, até o fim atual do stream (o que chegar depois vem pelo ao vivo retido).
+    // Falta de eventos vira "resync": o id já foi descartado pelo XTRIM (o stream começa depois dele) ou a releitura passaria
+    // de replayMax. Um descarte que levou só o próprio id também conta, pois não há como saber se havia algo logo depois dele
+    private Flux< ServerSentEvent< Object > > historico( RecordId inicio, AtomicReference< RecordId > ultimoEnviado ) {
+
+        if ( inicio == null ) {
+            return Flux.empty();
+        }
+
+        Flux< ServerSentEvent< Object > > releitura = pagina( inicio )
+            .expand( registros -> registros.size() < PAGINA_REPLAY ? Mono.empty() : pagina( registros.get( registros.size() - 1 ).getId() ) )
+            .flatMapIterable( Function.identity() ).take( replayMax + 1L ).index()
+            .concatMap( numerado -> numerado.getT1() < replayMax ? Mono.just( numerado.getT2() ).filter( registro -> avancou( ultimoEnviado, registro.getId() ) )
+                .map( VeiculoEventoStream::toEvento ) : resync( ultimoEnviado ) );
+
+        return reactiveRedisTemplate.< String, String > opsForStream().range( stream, Range.unbounded(), Limit.limit().count( 1 ) ).next()
+            .map( primeiro -> anterior( inicio, primeiro.getId() ) ).defaultIfEmpty( false )
+            .flatMapMany( descartado -> descartado ? resync( ultimoEnviado ) : releitura );
+    }
+
+
+    private Mono< List< MapRecord< String, String, String > > > pagina( RecordId depoisDe ) {
+
+        return reactiveRedisTemplate.< String, String > opsForStream()
+            .range( stream, Range.rightUnbounded( Range.Bound.exclusive( depoisDe.getValue() ) ), Limit.limit().count( PAGINA_REPLAY ) ).collectList();
+    }
+
+
+    // O cliente deve recarregar o estado (GET /veiculos) e seguir dali: o id é o do fim atual do stream, então nem o ao vivo
+    // retido até esse ponto (já refletido no que ele vai recarregar) nem uma nova reconexão repetem o que ficou para trás
+    private Mono< ServerSentEvent< Object > > resync( AtomicReference< RecordId > ultimoEnviado ) {
+
+        return reactiveRedisTemplate.< String, String > opsForStream().reverseRange( stream, Range.unbounded(), Limit.limit().count( 1 ) ).next()
+            .map( ultimo -> {
+                ultimoEnviado.set( ultimo.getId() );
+                return ServerSentEvent.< Object > builder( "Eventos perdidos não estão mais disponíveis; recarregue os veículos" ).id( ultimo.getId().getValue() )
+                    .event( RESYNC ).build();
+            } );
+    }
+
+
+    private static RecordId recordId( String valor ) {
+
+        if ( valor == null || valor.isBlank() ) {
+            return null;
+        }
+        try {
+            RecordId id = RecordId.of( valor.trim() );
+            return id.shouldBeAutoGenerated() ? null : id;
+        } catch ( IllegalArgumentException e ) {
+            return null;
+        }
+    }
+
+
+    private static boolean avancou( AtomicReference< RecordId > ultimoEnviado, RecordId id ) {
+
+        RecordId enviado = ultimoEnviado.get();
+        if ( enviado != null && !anterior( enviado, id ) ) {
+            return false;
+        }
+        ultimoEnviado.set( id );
+        return true;
+    }
+
+
+    // Ids do stream crescem por timestamp e sequência
+    private static boolean anterior( RecordId id, RecordId outro ) {
+
+        return id.getTimestamp() < outro.getTimestamp() || ( id.getTimestamp().equals( outro.getTimestamp() ) && id.getSequence() < outro.getSequence() );
+    }
+
+
+    private static ServerSentEvent< Object > toEvento( MapRecord< String, String, String > registro ) {
+
+        Map< String, String > campos = registro.getValue();
+        VeiculoEventoResponse evento = VeiculoEventoResponse.builder().id( Long.valueOf( campos.get( "id" ) ) )
+            .tipo( TipoEventoVeiculo.valueOf( campos.get( "tipo" ) ) ).veiculoId( Long.valueOf( campos.get( "veiculoId" ) ) )
+            .versao( Long.valueOf( campos.get( "versao" ) ) ).ocorridoEm( LocalDateTime.parse( campos.get( "ocorridoEm" ) ) ).veiculo( campos.get( "veiculo" ) )
+            .build();
+
+        return ServerSentEvent.< Object > builder( evento ).id( registro.getId().getValue() ).event( evento.getTipo().name() ).build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.tinnova.veiculos.service;
+
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinnova.veiculos.dto.request.FormatoExportacao;
+import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.repository.VeiculoRepository;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+
+@Service
+@Slf4j
+public class VeiculoExportService {
+
+    private static final String CABECALHO_CSV = "id,marca,modelo,ano,cor,placa,precoUsd,precoBrl,createdAt,updatedAt";
+
+    private final VeiculoRepository veiculoRepository;
+
+    private final CambioService cambioService;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public VeiculoExportService( VeiculoRepository veiculoRepository, CambioService cambioService, EntityManager entityManager, ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager ) {
+
+        this.veiculoRepository = veiculoRepository;
+        this.cambioService = cambioService;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate( transactionManager );
+        this.transactionTemplate.setReadOnly( true );
+    }
+
+
+    // A cotação é resolvida aqui, antes de a resposta começar (falha de câmbio ainda vira erro HTTP normal);
+    // as linhas são lidas por cursor e escritas uma a uma na thread assíncrona, com memória constante
+    public StreamingResponseBody exportar( FormatoExportacao formato ) {
+
+        CotacaoSnapshot cotacao = CotacaoSnapshot.of( cambioService.getCotacaoDolar() );
+
+        return saida -> {
+            log.info( "Exportando veículos ativos - formato: {}", formato );
+            transactionTemplate.executeWithoutResult( status -> escrever( formato, cotacao, saida ) );
+        };
+    }
+
+
+    private void escrever( FormatoExportacao formato, CotacaoSnapshot cotacao, OutputStream saida ) {
+
+        // A varredura completa não passa pelo segundo nível nem expulsa dele as entradas quentes. Na sessão, e não só na consulta:
+        // com o cursor o Hibernate monta as entidades depois de a consulta devolver o controle, já com o modo de cache da sessão
+        entityManager.unwrap( Session.class ).setCacheMode( CacheMode.IGNORE );
+
+        try ( Stream< Veiculo > veiculos = veiculoRepository.streamByAtivoTrue() ) {
+            Writer writer = new BufferedWriter( new OutputStreamWriter( saida, StandardCharsets.UTF_8 ) );
+            LinhaExportacao linha = formato == FormatoExportacao.CSV ? csv( writer ) : ndjson( writer );
+
+            for ( Veiculo veiculo : ( Iterable< Veiculo > ) veiculos::iterator ) {
+                linha.escrever( VeiculoService.toResponse( veiculo, cotacao ) );
+                // Sem isso o contexto de persistência guardaria todas as entidades lidas até o fim da exportação
+                entityManager.detach( veiculo );
+            }
+            writer.flush();
+        } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+
+    private LinhaExportacao ndjson( Writer writer )
+        throws IOException {
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator( writer );
+        // O flush por linha só esvazia o buffer do gerador no BufferedWriter, sem forçar um envio de rede por registro
+        generator.disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET ).disable( JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM );
+        generator.setRootValueSeparator( null );
+
+        return veiculo -> {
+            objectMapper.writeValue( generator, veiculo );
+            generator.writeRaw( '\n' );
+            generator.flush();
+        };
+    }
+
+
+    private LinhaExportacao csv( Writer writer )
+        throws IOException {
+
+        writer.write( CABECALHO_CSV );
+        writer.write( '\n' );
+
+        return veiculo -> {
+            writer.write( veiculo.getId() + "," + campoCsv( veiculo.getMarca() ) + "," + campoCsv( veiculo.getModelo() ) + "," + veiculo.getAno() + ","
+                + campoCsv( veiculo.getCor() ) + "," + campoCsv( veiculo.getPlaca() ) + "," + veiculo.getPrecoUsd().toPlainString() + ","
+                + veiculo.getPrecoBrl().toPlainString() + "," + veiculo.getCreatedAt() + "," + veiculo.getUpdatedAt() );
+            writer.write( '\n' );
+        };
+    }
+
+
+    // RFC 4180: aspas só quando o valor tem separador, aspas ou quebra de linha
+    static String campoCsv( String valor ) {
+
+        if ( valor == null ) {
+            return "";
+        }
+        if ( valor.indexOf( ',' ) < 0 && valor.indexOf( '"' ) < 0 && valor.indexOf( '\n' ) < 0 && valor.indexOf( '\r' ) < 0 ) {
+            return valor;
+        }
+        return "\"" + valor.replace( "\"", "\"\"" ) + "\"";
+    }
+
+
+    @FunctionalInterface
+    private interface LinhaExportacao {
+
+        void escrever( VeiculoResponse veiculo )
+            throws IOException;
+    }
+}
@@ -0,0 +1,233 @@
+package com.tinnova.veiculos.service;
+
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.tinnova.veiculos.dto.request.VeiculoRequest;
+import com.tinnova.veiculos.dto.response.LoteErroResponse;
+import com.tinnova.veiculos.dto.response.LoteResponse;
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.repository.VeiculoRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+
+@Service
+@Slf4j
+public class VeiculoLoteService {
+
+    private final VeiculoRepository veiculoRepository;
+
+    private final CambioService cambioService;
+
+    private final MarcaContagemService marcaContagemService;
+
+    private final VeiculoEventoService veiculoEventoService;
+
+    private final Validator validator;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value( "${veiculos.lote.tamanho-bloco:1000}" )
+    private int tamanhoBloco;
+
+    public VeiculoLoteService( VeiculoRepository veiculoRepository, CambioService cambioService, MarcaContagemService marcaContagemService,
+        VeiculoEventoService veiculoEventoService, Validator validator, EntityManager entityManager, PlatformTransactionManager transactionManager ) {
+
+        this.veiculoRepository = veiculoRepository;
+        this.cambioService = cambioService;
+        this.marcaContagemService = marcaContagemService;
+        this.veiculoEventoService = veiculoEventoService;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate( transactionManager );
+    }
+
+
+    // Lê o lote em streaming e grava em blocos: uma cotação para o lote inteiro, uma consulta de placas e um flush (INSERTs em batch)
+    // por bloco; registros inválidos ou com placa repetida são devolvidos como erro sem interromper os demais.
+    // Cada bloco é confirmado na sua própria transação: uma falha no banco desfaz só aquele bloco, que é refeito linha a linha
+    // para apontar os registros recusados. Corpo malformado antes do primeiro bloco gravado recusa o lote inteiro; depois dele,
+    // os registros lidos até ali são gravados e o erro de leitura é devolvido na linha seguinte
+    @Caching( evict = { @CacheEvict( value = VeiculoService.RELATORIO_ANALITICO, allEntries = true ),
+        @CacheEvict( value = VeiculoPlacaService.PLACAS, allEntries = true ) } )
+    public LoteResponse importar( MappingIterator< VeiculoRequest > veiculos )
+        throws IOException {
+
+        log.info( "Importando lote de veículos" );
+
+        CotacaoSnapshot cotacao = CotacaoSnapshot.of( cambioService.getCotacaoDolar() );
+        Set< String > placasDoLote = new HashSet<>();
+        List< LoteErroResponse > erros = new ArrayList<>();
+        List< ItemLote > bloco = new ArrayList<>( tamanhoBloco );
+        int total = 0;
+        int inseridos = 0;
+
+        boolean gravouBloco = false;
+
+        try {
+            while ( veiculos.hasNextValue() ) {
+                VeiculoRequest request = veiculos.nextValue();
+                int linha = ++total;
+
+                List< String > violacoes = validar( request );
+                if ( !violacoes.isEmpty() ) {
+                    erros.add( erro( linha, request.getPlaca(), violacoes ) );
+                    continue;
+                }
+
+                String placa = request.getPlaca().toUpperCase();
+                if ( !placasDoLote.add( placa ) ) {
+                    erros.add( erro( linha, placa, List.of( "Placa repetida no lote: " + placa ) ) );
+                    continue;
+                }
+
+                bloco.add( new ItemLote( linha, placa, request ) );
+                if ( bloco.size() == tamanhoBloco ) {
+                    inseridos += gravar( bloco, cotacao, erros );
+                    gravouBloco = true;
+                    bloco.clear();
+                }
+            }
+        } catch ( JsonProcessingException e ) {
+            if ( !gravouBloco ) {
+                throw e;
+            }
+            erros.add( erro( total + 1, null, List.of( "JSON inválido: " + e.getOriginalMessage() ) ) );
+        }
+
+        if ( !bloco.isEmpty() ) {
+            inseridos += gravar( bloco, cotacao, erros );
+        }
+
+        erros.sort( Comparator.comparing( LoteErroResponse::getLinha ) );
+
+        log.info( "Lote importado - total: {}, inseridos: {}, erros: {}", total, inseridos, erros.size() );
+        return LoteResponse.builder().total( total ).inseridos( inseridos ).erros( erros ).build();
+    }
+
+
+    // Bloco numa transação; recusado pelo banco (placa gravada por outra requisição depois da consulta, restrição de coluna),
+    // cada linha é refeita na sua própria transação e só as recusadas viram erro
+    private int gravar( List< ItemLote > bloco, CotacaoSnapshot cotacao, List< LoteErroResponse > erros ) {
+
+        try {
+            return gravarEmTransacao( bloco, cotacao, erros );
+        } catch ( DataIntegrityViolationException e ) {
+            log.warn( "Bloco de {} veículos recusado pelo banco, gravando linha a linha: {}", bloco.size(), e.getMostSpecificCause().getMessage() );
+        }
+
+        int inseridos = 0;
+        for ( ItemLote item : bloco ) {
+            try {
+                inseridos += gravarEmTransacao( List.of( item ), cotacao, erros );
+            } catch ( DataIntegrityViolationException e ) {
+                log.warn( "Linha {} do lote recusada pelo banco: {}", item.linha(), e.getMostSpecificCause().getMessage() );
+                erros.add( erro( item.linha(), item.placa(), List.of( "Conflito com um registro existente" ) ) );
+            }
+        }
+        return inseridos;
+    }
+
+
+    // Os erros do bloco só valem se ele for confirmado; desfeito, o bloco é refeito e os erros apurados de novo
+    private int gravarEmTransacao( List< ItemLote > bloco, CotacaoSnapshot cotacao, List< LoteErroResponse > erros ) {
+
+        List< LoteErroResponse > errosDoBloco = new ArrayList<>();
+        try {
+            int inseridos = transactionTemplate.execute( status -> gravarBloco( bloco, cotacao, errosDoBloco ) );
+            erros.addAll( errosDoBloco );
+            return inseridos;
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+
+    private int gravarBloco( List< ItemLote > bloco, CotacaoSnapshot cotacao, List< LoteErroResponse > erros ) {
+
+        Set< String > existentes = veiculoRepository.findPlacasExistentes( bloco.stream().map( ItemLote::placa ).toList() );
+
+        List< Veiculo > novos = new ArrayList<>( bloco.size() );
+        Map< String, Long > porMarca = new HashMap<>();
+        for ( ItemLote item : bloco ) {
+            if ( existentes.contains( item.placa() ) ) {
+                erros.add( erro( item.linha(), item.placa(), List.of( "Já existe um veículo cadastrado com a placa: " + item.placa() ) ) );
+                continue;
+            }
+            Veiculo veiculo = toEntity( item, cotacao );
+            novos.add( veiculo );
+            porMarca.merge( veiculo.getMarca(), 1L, Long::sum );
+        }
+
+        veiculoRepository.saveAll( novos );
+        veiculoEventoService.registrarCriados( novos, cotacao );
+        // Envia os INSERTs do bloco (veículos e eventos) já aqui, pelo repositório para a falha chegar traduzida
+        veiculoRepository.flush();
+
+        marcaContagemService.registrarPorMarca( porMarca );
+        return novos.size();
+    }
+
+
+    private List< String > validar( VeiculoRequest request ) {
+
+        List< String > mensagens = new ArrayList<>();
+        for ( ConstraintViolation< VeiculoRequest > violacao : validator.validate( request ) ) {
+            mensagens.add( violacao.getPropertyPath() + ": " + violacao.getMessage() );
+        }
+        mensagens.sort( Comparator.naturalOrder() );
+        return mensagens;
+    }
+
+
+    private LoteErroResponse erro( int linha, String placa, List< String > mensagens ) {
+
+        return LoteErroResponse.builder().linha( linha ).placa( placa ).mensagens( mensagens ).build();
+    }
+
+
+    private Veiculo toEntity( ItemLote item, CotacaoSnapshot cotacao ) {
+
+        VeiculoRequest request = item.request();
+        BigDecimal precoUsd = cotacao.toUsd( request.getPrecoBrl() );
+
+        Veiculo veiculo = new Veiculo();
+        veiculo.setMarca( request.getMarca() );
+        veiculo.setModelo( request.getModelo() );
+        veiculo.setAno( request.getAno() );
+        veiculo.setCor( request.getCor() );
+        veiculo.setPlaca( item.placa() );
+        veiculo.setPrecoUsd( precoUsd );
+        veiculo.setAtivo( true );
+
+        return veiculo;
+    }
+
+
+    private record ItemLote( int linha, String placa, VeiculoRequest request ) {
+    }
+}
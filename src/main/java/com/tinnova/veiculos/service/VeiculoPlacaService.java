@@ -0,0 +1,45 @@
+package com.tinnova.veiculos.service;
+
+
+import java.util.Optional;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import com.tinnova.veiculos.repository.VeiculoRepository;
+
+import lombok.RequiredArgsConstructor;
+
+
+// Placa → id do veículo ativo, consultado nas validações de duplicidade. A ausência (vazio) também fica em cache, já que
+// o caso comum é a placa ainda não existir; as escritas do VeiculoService removem as placas que mudaram de dono
+@Service
+@RequiredArgsConstructor
+public class VeiculoPlacaService {
+
+    static final String PLACAS = "veiculo-placa";
+
+    private final VeiculoRepository veiculoRepository;
+
+    @Cacheable( value = PLACAS, key = "#placa" )
+    public Optional< Long > findIdAtivo( String placa ) {
+
+        return veiculoRepository.findIdByPlacaAtivo( placa );
+    }
+
+
+    @CacheEvict( value = PLACAS, key = "#placa" )
+    public void evict( String placa ) {
+
+        // Só a remoção da entrada
+    }
+
+
+    // Remoções em lote: uma limpeza só no lugar de uma remoção (e uma mensagem entre nós) por placa
+    @CacheEvict( value = PLACAS, allEntries = true )
+    public void evictAll() {
+
+        // Só a limpeza do cache
+    }
+}
@@ -0,0 +1,117 @@
+package com.tinnova.veiculos.service;
+
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.tinnova.veiculos.dto.request.VeiculoFiltro;
+import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
+import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.entity.VeiculoLeitura;
+import com.tinnova.veiculos.exception.VeiculoNotFoundException;
+import com.tinnova.veiculos.repository.VeiculoReativoRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+// Mesmas leituras do VeiculoService sobre R2DBC e cotação não bloqueante: nenhuma thread fica parada esperando banco ou câmbio
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class VeiculoReativoService {
+
+    private final VeiculoReativoRepository veiculoReativoRepository;
+
+    private final CambioService cambioService;
+
+    public Mono< Page< VeiculoResponse > > findAll( Pageable pageable ) {
+
+        log.info( "Buscando todos os veículos ativos (reativo) - página: {}", pageable.getPageNumber() );
+        return toResponsePage( veiculoReativoRepository.findByAtivoTrue( pageable ), veiculoReativoRepository.countByAtivoTrue(), pageable, null );
+    }
+
+
+    public Mono< Page< VeiculoResponse > > buscar( VeiculoFiltro filtro, Pageable pageable ) {
+
+        log.info( "Buscando veículos (reativo) - marca: {}, ano: {}, cor: {}, min: {}, max: {}", filtro.getMarca(), filtro.getAno(), filtro.getCor(),
+            filtro.getMinPreco(), filtro.getMaxPreco() );
+
+        if ( !filtro.hasFaixaDePreco() ) {
+            return buscar( filtro, null, pageable );
+        }
+        // Com faixa de preço, a mesma cotação converte os limites e as linhas da página
+        return cotacaoAtual().flatMap( cotacao -> buscar( filtro, cotacao, pageable ) );
+    }
+
+
+    public Mono< VeiculoResponse > findById( Long id ) {
+
+        log.info( "Buscando veículo por ID (reativo): {}", id );
+        return veiculoReativoRepository.findByIdAndAtivoTrue( id )
+            .switchIfEmpty( Mono.error( () -> new VeiculoNotFoundException( "Veículo não encontrado com ID: " + id ) ) )
+            .zipWith( cotacaoAtual(), VeiculoReativoService::toResponse );
+    }
+
+
+    public Flux< RelatorioMarcaResponse > getRelatorioPorMarca() {
+
+        log.info( "Gerando relatório de veículos por marca (reativo)" );
+        return veiculoReativoRepository.findRelatorioPorMarca();
+    }
+
+
+    private Mono< Page< VeiculoResponse > > buscar( VeiculoFiltro filtro, CotacaoSnapshot cotacao, Pageable pageable ) {
+
+        BigDecimal minPrecoUsd = toUsd( filtro.getMinPreco(), cotacao );
+        BigDecimal maxPrecoUsd = toUsd( filtro.getMaxPreco(), cotacao );
+
+        return toResponsePage(
+            veiculoReativoRepository.findByCriterios( filtro.getMarca(), filtro.getAno(), filtro.getCor(), minPrecoUsd, maxPrecoUsd, pageable ),
+            veiculoReativoRepository.countByCriterios( filtro.getMarca(), filtro.getAno(), filtro.getCor(), minPrecoUsd, maxPrecoUsd ), pageable, cotacao );
+    }
+
+
+    // Página e COUNT consultados em paralelo; a cotação só é buscada se houver linhas e ainda não tiver sido resolvida
+    private Mono< Page< VeiculoResponse > > toResponsePage( Flux< VeiculoLeitura > conteudo, Mono< Long > total, Pageable pageable,
+        CotacaoSnapshot cotacao ) {
+
+        return Mono.zip( conteudo.collectList(), total ).flatMap( pagina -> {
+            List< VeiculoLeitura > veiculos = pagina.getT1();
+            if ( veiculos.isEmpty() ) {
+                return Mono.just( new PageImpl<>( List.< VeiculoResponse > of(), pageable, pagina.getT2() ) );
+            }
+
+            Mono< CotacaoSnapshot > snapshot = cotacao != null ? Mono.just( cotacao ) : cotacaoAtual();
+            return snapshot.map( atual -> new PageImpl<>( veiculos.stream().map( veiculo -> toResponse( veiculo, atual ) ).toList(), pageable,
+                pagina.getT2() ) );
+        } );
+    }
+
+
+    private Mono< CotacaoSnapshot > cotacaoAtual() {
+
+        return cambioService.getCotacaoDolarReativa().map( CotacaoSnapshot::of );
+    }
+
+
+    private BigDecimal toUsd( BigDecimal valorBrl, CotacaoSnapshot cotacao ) {
+
+        return valorBrl != null ? cotacao.toUsd( valorBrl ) : null;
+    }
+
+
+    static VeiculoResponse toResponse( VeiculoLeitura veiculo, CotacaoSnapshot cotacao ) {
+
+        return VeiculoResponse.builder().id( veiculo.getId() ).marca( veiculo.getMarca() ).modelo( veiculo.getModelo() ).ano( veiculo.getAno() )
+            .cor( veiculo.getCor() ).placa( veiculo.getPlaca() ).precoUsd( veiculo.getPrecoUsd() ).precoBrl( cotacao.toBrl( veiculo.getPrecoUsd() ) )
+            .createdAt( veiculo.getCreatedAt() ).updatedAt( veiculo.getUpdatedAt() ).build();
+    }
+}
@@ -2,119 +2,248 @@ package com.tinnova.veiculos.service;
 
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.tinnova.veiculos.cache.EntityCacheInvalidator;
+import com.tinnova.veiculos.dto.request.VeiculoFiltro;
 import com.tinnova.veiculos.dto.request.VeiculoRequest;
+import com.tinnova.veiculos.dto.response.CursorPageResponse;
+import com.tinnova.veiculos.dto.response.RelatorioAnaliticoResponse;
+import com.tinnova.veiculos.dto.response.RemocaoLoteResponse;
 import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
 import com.tinnova.veiculos.dto.response.VeiculoResponse;
 import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.enums.TipoEventoVeiculo;
 import com.tinnova.veiculos.exception.DuplicatePlacaException;
 import com.tinnova.veiculos.exception.VeiculoNotFoundException;
+import com.tinnova.veiculos.exception.VersaoDivergenteException;
+import com.tinnova.veiculos.repository.RelatorioAnaliticoRepository;
 import com.tinnova.veiculos.repository.VeiculoRepository;
+import com.tinnova.veiculos.repository.VeiculoResumo;
+import com.tinnova.veiculos.repository.VeiculoVersao;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 
+// Cada método público gera o timer veiculo.service (tags class e method)
 @Service
 @Slf4j
 @RequiredArgsConstructor
+@Timed( value = "veiculo.service", histogram = true )
 public class VeiculoService {
 
+    static final String RELATORIO_ANALITICO = "relatorio-analitico";
+
+    private static final String VIOLACAO_CHAVE_UNICA = "23505";
+
     private final VeiculoRepository veiculoRepository;
 
     private final CambioService cambioService;
 
+    private final MarcaContagemService marcaContagemService;
+
+    private final RelatorioAnaliticoRepository relatorioAnaliticoRepository;
+
+    private final VeiculoPlacaService veiculoPlacaService;
+
+    private final VeiculoEventoService veiculoEventoService;
+
+    // Só com cache Redis (vários nós); sem ele não há outros nós a avisar
+    private final ObjectProvider< EntityCacheInvalidator > entityCacheInvalidator;
+
+    private final EntityManager entityManager;
+
+    // A página é consultada para calcular a versão, mas as linhas só são convertidas se o cliente não tiver essa versão
     @Transactional( readOnly = true )
-    public Page< VeiculoResponse > findAll( Pageable pageable ) {
+    public Versionado< Page< VeiculoResponse > > findAll( Pageable pageable ) {
 
         log.info( "Buscando todos os veículos ativos - página: {}", pageable.getPageNumber() );
-        return veiculoRepository.findByAtivoTrue( pageable ).map( this::toResponse );
+        Page< Veiculo > page = veiculoRepository.findByAtivoTrue( pageable );
+
+        // Página vazia: nada a converter, evita buscar a cotação
+        return versionar( page, page.hasContent() ? cotacaoAtual() : null );
+    }
+
+
+    // Marca, ano, cor e faixa de preço aplicados juntos numa única consulta
+    @Transactional( readOnly = true )
+    public Versionado< Page< VeiculoResponse > > buscar( VeiculoFiltro filtro, Pageable pageable ) {
+
+        log.info( "Buscando veículos - marca: {}, ano: {}, cor: {}, min: {}, max: {}", filtro.getMarca(), filtro.getAno(), filtro.getCor(),
+            filtro.getMinPreco(), filtro.getMaxPreco() );
+
+        // Com faixa de preço, a mesma cotação converte os limites e as linhas da página
+        CotacaoSnapshot cotacao = filtro.hasFaixaDePreco() ? cotacaoAtual() : null;
+
+        Page< Veiculo > page = veiculoRepository.findByCriterios( filtro.getMarca(), filtro.getAno(), filtro.getCor(), toUsd( filtro.getMinPreco(), cotacao ),
+            toUsd( filtro.getMaxPreco(), cotacao ), pageable );
+        if ( cotacao == null && page.hasContent() ) {
+            cotacao = cotacaoAtual();
+        }
+        return versionar( page, cotacao );
     }
 
 
+    // Modo cursor: mesma seleção dos métodos acima, mas paginada por keyset e sem COUNT
     @Transactional( readOnly = true )
-    public Page< VeiculoResponse > findByFiltros( String marca, Integer ano, String cor, Pageable pageable ) {
+    public CursorPageResponse< VeiculoResponse > findAllCursor( String cursor, Pageable pageable ) {
+
+        log.info( "Buscando todos os veículos ativos (cursor) - tamanho: {}", pageable.getPageSize() );
 
-        log.info( "Buscando veículos com filtros - marca: {}, ano: {}, cor: {}", marca, ano, cor );
-        return veiculoRepository.findByFiltros( marca, ano, cor, pageable ).map( this::toResponse );
+        VeiculoCursor posicao = resolverCursor( cursor, pageable );
+        return toCursorPage( veiculoRepository.scrollByAtivoTrue( posicao.getPosicao(), posicao.getSort(), pageable.getPageSize() ), posicao );
     }
 
 
     @Transactional( readOnly = true )
-    public Page< VeiculoResponse > findByPrecoRange( BigDecimal minPreco, BigDecimal maxPreco, Pageable pageable ) {
+    public CursorPageResponse< VeiculoResponse > buscarCursor( VeiculoFiltro filtro, String cursor, Pageable pageable ) {
 
-        log.info( "Buscando veículos por range de preço - min: {}, max: {}", minPreco, maxPreco );
+        log.info( "Buscando veículos (cursor) - marca: {}, ano: {}, cor: {}, min: {}, max: {}", filtro.getMarca(), filtro.getAno(), filtro.getCor(),
+            filtro.getMinPreco(), filtro.getMaxPreco() );
 
-        // Converter BRL para USD se necessário
-        BigDecimal minPrecoUsd = minPreco != null ? cambioService.convertBrlToUsd( minPreco ) : null;
-        BigDecimal maxPrecoUsd = maxPreco != null ? cambioService.convertBrlToUsd( maxPreco ) : null;
+        CotacaoSnapshot cotacao = filtro.hasFaixaDePreco() ? cotacaoAtual() : null;
 
-        return veiculoRepository.findByPrecoRange( minPrecoUsd, maxPrecoUsd, pageable ).map( this::toResponse );
+        VeiculoCursor posicao = resolverCursor( cursor, pageable );
+        Window< Veiculo > window = veiculoRepository.scrollByCriterios( filtro.getMarca(), filtro.getAno(), filtro.getCor(),
+            toUsd( filtro.getMinPreco(), cotacao ), toUsd( filtro.getMaxPreco(), cotacao ), posicao.getPosicao(), posicao.getSort(), pageable.getPageSize() );
+        return cotacao != null ? toCursorPage( window, posicao, cotacao ) : toCursorPage( window, posicao );
     }
 
 
+    // A versão vem só da projeção (versao, updatedAt) e da cotação: um 304 não carrega a entidade. Se ela mudar entre as duas
+    // leituras, o corpo sai com o ETag anterior e o cliente apenas o baixa de novo na próxima consulta
     @Transactional( readOnly = true )
-    public VeiculoResponse findById( Long id ) {
+    public Versionado< VeiculoResponse > findById( Long id ) {
 
         log.info( "Buscando veículo por ID: {}", id );
-        Veiculo veiculo =
-            veiculoRepository.findByIdAndAtivoTrue( id ).orElseThrow( () -> new VeiculoNotFoundException( "Veículo não encontrado com ID: " + id ) );
-        return toResponse( veiculo );
+        VeiculoVersao versao =
+            veiculoRepository.findVersaoByIdAndAtivoTrue( id ).orElseThrow( () -> new VeiculoNotFoundException( "Veículo não encontrado com ID: " + id ) );
+        CotacaoSnapshot cotacao = cotacaoAtual();
+
+        Instant ultimaModificacao = Versionado.maisRecente( Versionado.instante( versao.getUpdatedAt() ), cambioService.observadaDesde( cotacao.getCotacao() ) );
+        return Versionado.of( etag( versao.getVersao(), cotacao ), ultimaModificacao, () -> toResponse( carregarNaVersao( id, versao.getVersao() ), cotacao ) );
+    }
+
+
+    // Corpo de uma leitura versionada, montado só quando o cliente não tem a versão (ver Versionado): numa transação própria e
+    // medido com o resto do serviço, sem depender da sessão que o open-in-view deixaria aberta até a view
+    @Transactional( readOnly = true )
+    public < T > T corpo( Versionado< T > versionado ) {
+
+        return versionado.getCorpo();
+    }
+
+
+    // O corpo tem de ser o da versão do ETag, senão um If-Match montado sobre ele apagaria uma escrita. O segundo nível pode guardar
+    // uma cópia anterior (recarregada por uma leitura concorrente com um UPDATE em massa ainda não confirmado): ela é descartada e
+    // o veículo vem do banco. A cópia já está no contexto de persistência e é desanexada antes, senão a consulta devolveria a
+    // mesma instância sem ler a linha
+    private Veiculo carregarNaVersao( Long id, Long versao ) {
+
+        Optional< Veiculo > emCache = veiculoRepository.findById( id );
+        if ( emCache.isPresent() && emCache.get().getAtivo() && versao.equals( emCache.get().getVersao() ) ) {
+            return emCache.get();
+        }
+
+        emCache.ifPresent( entityManager::detach );
+        entityManager.getEntityManagerFactory().getCache().evict( Veiculo.class, id );
+        return veiculoRepository.recarregarAtivo( id ).orElseThrow( () -> new VeiculoNotFoundException( "Veículo não encontrado com ID: " + id ) );
     }
 
 
     @Transactional
+    @CacheEvict( value = RELATORIO_ANALITICO, allEntries = true )
     public VeiculoResponse create( VeiculoRequest request ) {
 
         log.info( "Criando novo veículo - placa: {}", request.getPlaca() );
 
         // Validar duplicidade de placa
-        if ( veiculoRepository.existsByPlacaAndAtivoTrue( request.getPlaca() ) ) {
+        if ( placaEmUso( request.getPlaca(), null ) ) {
             throw new DuplicatePlacaException( "Já existe um veículo cadastrado com a placa: " + request.getPlaca() );
         }
 
-        Veiculo veiculo = toEntity( request );
-        Veiculo saved = veiculoRepository.save( veiculo );
+        CotacaoSnapshot cotacao = cotacaoAtual();
+        Veiculo veiculo = toEntity( request, cotacao );
+        Veiculo saved = salvar( veiculo );
+        marcaContagemService.registrar( saved.getMarca(), 1 );
+        veiculoPlacaService.evict( saved.getPlaca() );
+        veiculoEventoService.registrar( TipoEventoVeiculo.CRIADO, saved, cotacao );
 
         log.info( "Veículo criado com sucesso - ID: {}", saved.getId() );
-        return toResponse( saved );
+        return toResponse( saved, cotacao );
     }
 
 
+    // versaoEsperada: versão do If-Match (null sem pré-condição). Com ou sem ela, uma escrita concorrente entre a leitura e o
+    // UPDATE falha pelo @Version em vez de ser sobrescrita
     @Transactional
-    public VeiculoResponse update( Long id, VeiculoRequest request ) {
+    @CacheEvict( value = RELATORIO_ANALITICO, allEntries = true )
+    public Versionado< VeiculoResponse > update( Long id, VeiculoRequest request, Long versaoEsperada ) {
 
         log.info( "Atualizando veículo - ID: {}", id );
 
         Veiculo veiculo =
             veiculoRepository.findByIdAndAtivoTrue( id ).orElseThrow( () -> new VeiculoNotFoundException( "Veículo não encontrado com ID: " + id ) );
+        verificarVersao( veiculo, versaoEsperada );
 
         // Validar duplicidade de placa (exceto a placa atual do veículo)
-        if ( veiculoRepository.existsByPlacaAndAtivoTrueAndIdNot( request.getPlaca(), id ) ) {
+        if ( placaEmUso( request.getPlaca(), id ) ) {
             throw new DuplicatePlacaException( "Já existe um veículo cadastrado com a placa: " + request.getPlaca() );
         }
 
-        updateEntity( veiculo, request );
-        Veiculo updated = veiculoRepository.save( veiculo );
+        String marcaAnterior = veiculo.getMarca();
+        String placaAnterior = veiculo.getPlaca();
+        CotacaoSnapshot cotacao = cotacaoAtual();
+        updateEntity( veiculo, request, cotacao );
+        Veiculo updated = salvar( veiculo );
+        marcaContagemService.alterarMarca( marcaAnterior, updated.getMarca() );
+        invalidarCaches( updated, placaAnterior );
+        veiculoEventoService.registrar( TipoEventoVeiculo.ATUALIZADO, updated, cotacao );
 
         log.info( "Veículo atualizado com sucesso - ID: {}", id );
-        return toResponse( updated );
+        return versionar( updated, cotacao );
     }
 
 
     @Transactional
-    public VeiculoResponse partialUpdate( Long id, VeiculoRequest request ) {
+    @CacheEvict( value = RELATORIO_ANALITICO, allEntries = true )
+    public Versionado< VeiculoResponse > partialUpdate( Long id, VeiculoRequest request, Long versaoEsperada ) {
 
         log.info( "Atualizando parcialmente veículo - ID: {}", id );
 
+        // Sem marca nem placa não há duplicidade a validar nem agregado a ajustar: as colunas mudam num único UPDATE
+        if ( request.getMarca() == null && request.getPlaca() == null ) {
+            return atualizarColunas( id, request, versaoEsperada );
+        }
+
         Veiculo veiculo =
             veiculoRepository.findByIdAndAtivoTrue( id ).orElseThrow( () -> new VeiculoNotFoundException( "Veículo não encontrado com ID: " + id ) );
+        verificarVersao( veiculo, versaoEsperada );
+
+        String marcaAnterior = veiculo.getMarca();
+        String placaAnterior = veiculo.getPlaca();
 
         // Atualizar apenas os campos não nulos
         if ( request.getMarca() != null ) {
@@ -130,51 +259,256 @@ public class VeiculoService {
             veiculo.setCor( request.getCor() );
         }
         if ( request.getPlaca() != null ) {
-            if ( veiculoRepository.existsByPlacaAndAtivoTrueAndIdNot( request.getPlaca(), id ) ) {
+            if ( placaEmUso( request.getPlaca(), id ) ) {
                 throw new DuplicatePlacaException( "Já existe um veículo cadastrado com a placa: " + request.getPlaca() );
             }
             veiculo.setPlaca( request.getPlaca() );
         }
+        CotacaoSnapshot cotacao = cotacaoAtual();
         if ( request.getPrecoBrl() != null ) {
-            BigDecimal precoUsd = cambioService.convertBrlToUsd( request.getPrecoBrl() );
-            veiculo.setPrecoUsd( precoUsd );
+            veiculo.setPrecoUsd( cotacao.toUsd( request.getPrecoBrl() ) );
         }
 
-        Veiculo updated = veiculoRepository.save( veiculo );
+        Veiculo updated = salvar( veiculo );
+        marcaContagemService.alterarMarca( marcaAnterior, updated.getMarca() );
+        invalidarCaches( updated, placaAnterior );
+        veiculoEventoService.registrar( TipoEventoVeiculo.ATUALIZADO, updated, cotacao );
 
         log.info( "Veículo atualizado parcialmente com sucesso - ID: {}", id );
-        return toResponse( updated );
+        return versionar( updated, cotacao );
     }
 
 
     @Transactional
+    @CacheEvict( value = RELATORIO_ANALITICO, allEntries = true )
     public void delete( Long id ) {
 
         log.info( "Removendo veículo (soft delete) - ID: {}", id );
 
-        Veiculo veiculo =
-            veiculoRepository.findByIdAndAtivoTrue( id ).orElseThrow( () -> new VeiculoNotFoundException( "Veículo não encontrado com ID: " + id ) );
-
-        veiculo.setAtivo( false );
-        veiculoRepository.save( veiculo );
+        if ( remover( List.of( id ) ) == 0 ) {
+            throw new VeiculoNotFoundException( "Veículo não encontrado com ID: " + id );
+        }
 
         log.info( "Veículo removido com sucesso - ID: {}", id );
     }
 
 
+    // Ids inexistentes ou já removidos são ignorados; a resposta diz quantos estavam ativos
+    @Transactional
+    @CacheEvict( value = RELATORIO_ANALITICO, allEntries = true )
+    public RemocaoLoteResponse removerLote( Collection< Long > ids ) {
+
+        Set< Long > unicos = new LinkedHashSet<>( ids );
+        log.info( "Removendo veículos em lote (soft delete) - {} ids", unicos.size() );
+
+        int removidos = unicos.isEmpty() ? 0 : remover( unicos );
+
+        log.info( "Remoção em lote concluída - {} de {} removidos", removidos, unicos.size() );
+        return RemocaoLoteResponse.builder().solicitados( unicos.size() ).removidos( removidos ).build();
+    }
+
+
     @Transactional( readOnly = true )
     public List< RelatorioMarcaResponse > getRelatorioPorMarca() {
 
         log.info( "Gerando relatório de veículos por marca" );
-        return veiculoRepository.findRelatorioPorMarca();
+        return marcaContagemService.getRelatorio();
+    }
+
+    // Estatísticas por marca e distribuições por ano, década e cor numa única consulta; invalidado pelas escritas
+    @Transactional( readOnly = true )
+    @Cacheable( value = RELATORIO_ANALITICO, key = "'geral'" )
+    public RelatorioAnaliticoResponse getRelatorioAnalitico() {
+
+        log.info( "Gerando relatório analítico de veículos" );
+        return relatorioAnaliticoRepository.gerar();
+    }
+
+
+    // Uma leitura da marca e da placa dos ativos (para o agregado e o cache de placas) e um UPDATE para todos, sem carregar
+    // nem sujar entidades. A leitura trava as linhas: uma remoção concorrente dos mesmos ids espera e não as encontra mais ativas,
+    // então cada veículo gera um único REMOVIDO, com a versão gravada. O UPDATE em massa descarta a região Veiculo do segundo
+    // nível local; os outros nós são avisados
+    private int remover( Collection< Long > ids ) {
+
+        List< VeiculoResumo > resumos = veiculoRepository.findResumoParaDesativar( ids );
+        if ( resumos.isEmpty() ) {
+            return 0;
+        }
+
+        int removidos = veiculoRepository.desativar( resumos.stream().map( VeiculoResumo::getId ).toList(), LocalDateTime.now() );
+        veiculoEventoService.registrarRemovidos( resumos );
+        marcaContagemService.registrarPorMarca(
+            resumos.stream().collect( Collectors.groupingBy( VeiculoResumo::getMarca, Collectors.summingLong( resumo -> -1L ) ) ) );
+
+        if ( resumos.size() == 1 ) {
+            veiculoPlacaService.evict( resumos.get( 0 ).getPlaca() );
+            invalidarEntidade( resumos.get( 0 ).getId() );
+        } else {
+            veiculoPlacaService.evictAll();
+            invalidarEntidade( null );
+        }
+        return removidos;
+    }
+
+
+    // PATCH só de modelo, ano, cor e preço: UPDATE condicionado a ativo (e à versão do If-Match); nenhuma linha afetada
+    // separa-se em 404 ou 412 com a projeção de versão. A entidade só é lida depois, para a resposta
+    private Versionado< VeiculoResponse > atualizarColunas( Long id, VeiculoRequest request, Long versaoEsperada ) {
+
+        CotacaoSnapshot cotacao = cotacaoAtual();
+
+        // O @PreUpdate não roda em UPDATE em massa: a cor normalizada vai junto
+        int alterados = veiculoRepository.atualizarColunas( id, request.getModelo(), request.getAno(), request.getCor(), Veiculo.normalizar( request.getCor() ),
+            toUsd( request.getPrecoBrl(), cotacao ), versaoEsperada, LocalDateTime.now() );
+        // Zero linhas sem If-Match só pode ser veículo inexistente ou removido; com If-Match, 412 se o veículo ainda existir
+        if ( alterados == 0 ) {
+            VeiculoVersao atual = Optional.ofNullable( versaoEsperada ).flatMap( versao -> veiculoRepository.findVersaoByIdAndAtivoTrue( id ) )
+                .orElseThrow( () -> new VeiculoNotFoundException( "Veículo não encontrado com ID: " + id ) );
+            throw new VersaoDivergenteException( "O veículo " + id + " foi alterado (versão atual: " + atual.getVersao() + ")" );
+        }
+        invalidarEntidade( id );
+
+        Veiculo updated =
+            veiculoRepository.recarregarAtivo( id ).orElseThrow( () -> new VeiculoNotFoundException( "Veículo não encontrado com ID: " + id ) );
+        veiculoEventoService.registrar( TipoEventoVeiculo.ATUALIZADO, updated, cotacao );
+
+        log.info( "Veículo atualizado parcialmente com sucesso - ID: {}", id );
+        return versionar( updated, cotacao );
     }
 
+
+    private void verificarVersao( Veiculo veiculo, Long versaoEsperada ) {
+
+        if ( versaoEsperada != null && !versaoEsperada.equals( veiculo.getVersao() ) ) {
+            throw new VersaoDivergenteException( "O veículo " + veiculo.getId() + " foi alterado (versão atual: " + veiculo.getVersao() + ")" );
+        }
+    }
+
+
+    // Flush imediato: conflito de versão e placa duplicada aparecem aqui, e não no commit. A consulta de placa em cache não
+    // enxerga duas escritas simultâneas com a mesma placa; quem perde a corrida esbarra no índice único e recebe 409.
+    // Outras violações (ex.: preço acima da precisão da coluna) seguem como estão
+    private Veiculo salvar( Veiculo veiculo ) {
+
+        try {
+            return veiculoRepository.saveAndFlush( veiculo );
+        } catch ( DataIntegrityViolationException e ) {
+            if ( violouChaveUnica( e ) ) {
+                throw new DuplicatePlacaException( "Já existe um veículo cadastrado com a placa: " + veiculo.getPlaca() );
+            }
+            throw e;
+        }
+    }
+
+
+    // SQLState 23505 (unique_violation, igual no PostgreSQL e no H2): fora o id, gerado por sequência, a placa é a única chave única
+    private static boolean violouChaveUnica( DataIntegrityViolationException e ) {
+
+        return e.getMostSpecificCause() instanceof SQLException sql && VIOLACAO_CHAVE_UNICA.equals( sql.getSQLState() );
+    }
+
+
+    // Placa → id em cache: nenhuma consulta ao banco para placas já verificadas
+    private boolean placaEmUso( String placa, Long id ) {
+
+        return veiculoPlacaService.findIdAtivo( placa ).filter( dono -> !dono.equals( id ) ).isPresent();
+    }
+
+
+    // Só a placa que mudou de dono sai do cache; a entidade sai do segundo nível dos outros nós
+    private void invalidarCaches( Veiculo veiculo, String placaAnterior ) {
+
+        if ( !placaAnterior.equals( veiculo.getPlaca() ) ) {
+            veiculoPlacaService.evict( placaAnterior );
+            veiculoPlacaService.evict( veiculo.getPlaca() );
+        }
+        invalidarEntidade( veiculo.getId() );
+    }
+
+
+    private void invalidarEntidade( Long id ) {
+
+        entityCacheInvalidator.ifAvailable( invalidator -> invalidator.invalidar( Veiculo.class, id ) );
+    }
+
+
     // Métodos auxiliares de conversão
 
 
-    private VeiculoResponse toResponse( Veiculo veiculo ) {
+    // Resolve a cotação uma vez (uma ida ao cache) para ser reaproveitada por todas as linhas
+    private CotacaoSnapshot cotacaoAtual() {
+
+        return CotacaoSnapshot.of( cambioService.getCotacaoDolar() );
+    }
+
+
+    // Resposta de uma escrita, com o ETag da nova versão para o próximo If-Match
+    private Versionado< VeiculoResponse > versionar( Veiculo veiculo, CotacaoSnapshot cotacao ) {
+
+        VeiculoResponse response = toResponse( veiculo, cotacao );
+        return Versionado.of( etag( veiculo.getVersao(), cotacao ), Versionado.instante( veiculo.getUpdatedAt() ), () -> response );
+    }
+
+
+    private String etag( Long versao, CotacaoSnapshot cotacao ) {
+
+        return Versionado.etag( versao, cotacao.getCotacao().toPlainString() );
+    }
+
+
+    // Versão da página: total, id e versão das linhas e a cotação que converte os preços
+    private Versionado< Page< VeiculoResponse > > versionar( Page< Veiculo > page, CotacaoSnapshot cotacao ) {
+
+        StringBuilder versao = new StringBuilder().append( page.getTotalElements() );
+        Instant ultimaModificacao = null;
+        for ( Veiculo veiculo : page ) {
+            versao.append( '|' ).append( veiculo.getId() ).append( '@' ).append( veiculo.getVersao() );
+            ultimaModificacao = Versionado.maisRecente( ultimaModificacao, Versionado.instante( veiculo.getUpdatedAt() ) );
+        }
+        if ( cotacao != null ) {
+            versao.append( "|" ).append( cotacao.getCotacao().toPlainString() );
+            ultimaModificacao = Versionado.maisRecente( ultimaModificacao, cambioService.observadaDesde( cotacao.getCotacao() ) );
+        }
+
+        return Versionado.of( Versionado.etag( versao ), ultimaModificacao, () -> page.map( veiculo -> toResponse( veiculo, cotacao ) ) );
+    }
+
+
+    private BigDecimal toUsd( BigDecimal valorBrl, CotacaoSnapshot cotacao ) {
+
+        return valorBrl != null ? cotacao.toUsd( valorBrl ) : null;
+    }
+
+
+    // Cursor vazio abre a primeira página com a ordenação da requisição; os seguintes carregam a sua própria
+    private VeiculoCursor resolverCursor( String cursor, Pageable pageable ) {
+
+        return cursor == null || cursor.isBlank() ? VeiculoCursor.inicio( pageable.getSort() ) : VeiculoCursor.decode( cursor );
+    }
+
+
+    private CursorPageResponse< VeiculoResponse > toCursorPage( Window< Veiculo > window, VeiculoCursor posicao ) {
+
+        return toCursorPage( window, posicao, window.isEmpty() ? null : cotacaoAtual() );
+    }
+
+
+    private CursorPageResponse< VeiculoResponse > toCursorPage( Window< Veiculo > window, VeiculoCursor posicao, CotacaoSnapshot cotacao ) {
+
+        String nextCursor = null;
+        if ( window.hasNext() && !window.isEmpty() ) {
+            nextCursor = VeiculoCursor.encode( posicao.getSort(), ( KeysetScrollPosition ) window.positionAt( window.size() - 1 ) );
+        }
+
+        return CursorPageResponse.< VeiculoResponse > builder().content( window.map( veiculo -> toResponse( veiculo, cotacao ) ).getContent() )
+            .size( window.size() ).hasNext( window.hasNext() ).nextCursor( nextCursor ).build();
+    }
+
+
+    public static VeiculoResponse toResponse( Veiculo veiculo, CotacaoSnapshot cotacao ) {
 
-        BigDecimal precoBrl = cambioService.convertUsdToBrl( veiculo.getPrecoUsd() );
+        BigDecimal precoBrl = cotacao.toBrl( veiculo.getPrecoUsd() );
 
         return VeiculoResponse.builder().id( veiculo.getId() ).marca( veiculo.getMarca() ).modelo( veiculo.getModelo() ).ano( veiculo.getAno() )
             .cor( veiculo.getCor() ).placa( veiculo.getPlaca() ).precoUsd( veiculo.getPrecoUsd() ).precoBrl( precoBrl ).createdAt( veiculo.getCreatedAt() )
@@ -182,9 +516,9 @@ public class VeiculoService {
     }
 
 
-    private Veiculo toEntity( VeiculoRequest request ) {
+    private Veiculo toEntity( VeiculoRequest request, CotacaoSnapshot cotacao ) {
 
-        BigDecimal precoUsd = cambioService.convertBrlToUsd( request.getPrecoBrl() );
+        BigDecimal precoUsd = cotacao.toUsd( request.getPrecoBrl() );
 
         Veiculo veiculo = new Veiculo();
         veiculo.setMarca( request.getMarca() );
@@ -199,9 +533,9 @@ public class VeiculoService {
     }
 
 
-    private void updateEntity( Veiculo veiculo, VeiculoRequest request ) {
+    private void updateEntity( Veiculo veiculo, VeiculoRequest request, CotacaoSnapshot cotacao ) {
 
-        BigDecimal precoUsd = cambioService.convertBrlToUsd( request.getPrecoBrl() );
+        BigDecimal precoUsd = cotacao.toUsd( request.getPrecoBrl() );
 
         veiculo.setMarca( request.getMarca() );
         veiculo.setModelo( request.getModelo() );
@@ -0,0 +1,87 @@
+package com.tinnova.veiculos.service;
+
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.Supplier;
+
+import org.springframework.util.DigestUtils;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+// Resposta de leitura com os validadores HTTP da versão que representa (ETag forte e Last-Modified). O corpo só é montado
+// quando pedido: um If-None-Match que bate com o ETag é respondido com 304 sem converter nem serializar nada
+@RequiredArgsConstructor( access = AccessLevel.PRIVATE )
+public final class Versionado< T > {
+
+    @Getter
+    private final String etag;
+
+    // Nulo quando não há nada a datar (página vazia)
+    @Getter
+    private final Instant ultimaModificacao;
+
+    private final Supplier< T > corpo;
+
+    public static < T > Versionado< T > of( String etag, Instant ultimaModificacao, Supplier< T > corpo ) {
+
+        return new Versionado<>( etag, ultimaModificacao, corpo );
+    }
+
+
+    public T getCorpo() {
+
+        return corpo.get();
+    }
+
+
+    // Resumo do que define o corpo (ids, updatedAt, cotação...): mesmo conteúdo, mesmo ETag em qualquer nó
+    public static String etag( CharSequence versao ) {
+
+        return DigestUtils.md5DigestAsHex( versao.toString().getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+
+    // Recurso com @Version: a versão vem à frente do resumo, para o If-Match das escritas ser conferido sem recalcular o resto
+    public static String etag( long versao, CharSequence resto ) {
+
+        return versao + "-" + etag( resto );
+    }
+
+
+    // Versão de um ETag forte no formato acima (com ou sem aspas); null quando não é desse formato. ETag fraco nunca
+    // satisfaz um If-Match (comparação forte)
+    public static Long versao( String etag ) {
+
+        String valor = etag.trim();
+        if ( valor.length() >= 2 && valor.startsWith( "\"" ) && valor.endsWith( "\"" ) ) {
+            valor = valor.substring( 1, valor.length() - 1 );
+        }
+
+        int separador = valor.indexOf( '-' );
+        try {
+            return separador > 0 ? Long.valueOf( valor.substring( 0, separador ) ) : null;
+        } catch ( NumberFormatException e ) {
+            return null;
+        }
+    }
+
+
+    // O mais recente dos instantes informados, ignorando os ausentes
+    public static Instant maisRecente( Instant atual, Instant outro ) {
+
+        return atual == null || ( outro != null && outro.isAfter( atual ) ) ? outro : atual;
+    }
+
+
+    // updatedAt é gravado no fuso da JVM
+    public static Instant instante( LocalDateTime dataHora ) {
+
+        return dataHora != null ? dataHora.atZone( ZoneId.systemDefault() ).toInstant() : null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.tinnova.veiculos.service.parser;
+
+
+import org.springframework.stereotype.Component;
+
+
+// Resposta da AwesomeAPI: {"USDBRL":{"code":"USD",...,"bid":"5.1234",...}}
+@Component
+public class AwesomeApiCotacaoParser extends JsonCotacaoParser {
+
+    public AwesomeApiCotacaoParser() {
+
+        super( "USDBRL", "bid" );
+    }
+}
@@ -0,0 +1,14 @@
+package com.tinnova.veiculos.service.parser;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+
+
+// Extrai a cotação USD→BRL do corpo de resposta de um provedor de câmbio
+public interface CotacaoParser {
+
+    BigDecimal parse( InputStream corpo )
+        throws IOException;
+}
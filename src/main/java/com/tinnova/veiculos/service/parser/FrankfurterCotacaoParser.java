@@ -0,0 +1,15 @@
+package com.tinnova.veiculos.service.parser;
+
+
+import org.springframework.stereotype.Component;
+
+
+// Resposta da Frankfurter: {"amount":1.0,"base":"USD","date":"...","rates":{"BRL":5.1234}}
+@Component
+public class FrankfurterCotacaoParser extends JsonCotacaoParser {
+
+    public FrankfurterCotacaoParser() {
+
+        super( "rates", "BRL" );
+    }
+}
@@ -0,0 +1,66 @@
+package com.tinnova.veiculos.service.parser;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+
+// Leitura por tokens (streaming) de um campo "objeto.campo": não monta árvore nem String do corpo inteiro,
+// e tolera espaços e qualquer ordem de campos
+public abstract class JsonCotacaoParser implements CotacaoParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String objeto;
+
+    private final String campo;
+
+    protected JsonCotacaoParser( String objeto, String campo ) {
+
+        this.objeto = objeto;
+        this.campo = campo;
+    }
+
+
+    @Override
+    public BigDecimal parse( InputStream corpo )
+        throws IOException {
+
+        try ( JsonParser parser = JSON_FACTORY.createParser( corpo ) ) {
+            if ( parser.nextToken() != JsonToken.START_OBJECT ) {
+                throw new IllegalStateException( "Resposta inválida: objeto JSON esperado" );
+            }
+
+            while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+                JsonToken valor = parser.nextToken();
+                if ( objeto.equals( parser.currentName() ) && valor == JsonToken.START_OBJECT ) {
+                    return lerCampo( parser );
+                }
+                parser.skipChildren();
+            }
+        }
+
+        throw new IllegalStateException( "Campo " + objeto + "." + campo + " não encontrado na resposta" );
+    }
+
+
+    private BigDecimal lerCampo( JsonParser parser )
+        throws IOException {
+
+        while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+            JsonToken valor = parser.nextToken();
+            if ( campo.equals( parser.currentName() ) && ( valor == JsonToken.VALUE_STRING || valor.isNumeric() ) ) {
+                // Converte direto do buffer de caracteres do parser, sem criar String intermediária
+                return new BigDecimal( parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength() );
+            }
+            parser.skipChildren();
+        }
+
+        throw new IllegalStateException( "Campo " + objeto + "." + campo + " não encontrado na resposta" );
+    }
+}
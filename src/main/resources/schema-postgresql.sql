@@ -0,0 +1,25 @@
+-- Executado após o Hibernate (defer-datasource-initialization): ajustes que o ddl-auto não cobre
+
+-- Preenche as colunas normalizadas de registros gravados antes de elas existirem
+UPDATE veiculos SET marca_normalizada = LOWER(TRIM(marca)) WHERE marca_normalizada IS NULL;
+UPDATE veiculos SET cor_normalizada = LOWER(TRIM(cor)) WHERE cor_normalizada IS NULL;
+
+-- Versão do bloqueio otimista para os registros gravados antes da coluna existir
+UPDATE veiculos SET versao = 0 WHERE versao IS NULL;
+
+-- Índices parciais: as consultas de listagem/filtro só enxergam veículos ativos
+CREATE INDEX IF NOT EXISTS idx_veiculos_marca_ativos ON veiculos (marca_normalizada) WHERE ativo = true;
+CREATE INDEX IF NOT EXISTS idx_veiculos_cor_ativos ON veiculos (cor_normalizada) WHERE ativo = true;
+CREATE INDEX IF NOT EXISTS idx_veiculos_ano_ativos ON veiculos (ano) WHERE ativo = true;
+
+-- Busca combinada (marca + ano + faixa de preço): igualdades primeiro, intervalo de preço por último
+CREATE INDEX IF NOT EXISTS idx_veiculos_busca_ativos ON veiculos (marca_normalizada, ano, preco_usd) WHERE ativo = true;
+
+-- Outbox de eventos: o relay só procura os ainda não publicados
+CREATE INDEX IF NOT EXISTS idx_veiculo_eventos_pendentes ON veiculo_eventos (id) WHERE publicado_em IS NULL;
+
+-- Limpeza dos já publicados após a retenção
+CREATE INDEX IF NOT EXISTS idx_veiculo_eventos_publicados ON veiculo_eventos (publicado_em) WHERE publicado_em IS NOT NULL;
+
+-- Ids por sequência (allocationSize 50): posiciona a sequência após os ids já gravados, inclusive os da antiga coluna IDENTITY
+SELECT setval('veiculos_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM veiculos), (SELECT last_value FROM veiculos_seq)));
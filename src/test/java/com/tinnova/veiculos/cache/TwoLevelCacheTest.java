@@ -0,0 +1,232 @@
+package com.tinnova.veiculos.cache;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+@ExtendWith( MockitoExtension.class )
+@DisplayName( "Testes do TwoLevelCache" )
+class TwoLevelCacheTest {
+
+    private static final String CANAL = "cache-invalidation";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+
+    private TwoLevelCacheManager cacheManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+
+        remoteCacheManager = spy( new ConcurrentMapCacheManager() );
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoLevelCacheManager( remoteCacheManager, redisTemplate, CANAL, 100, Duration.ofMinutes( 1 ), meterRegistry );
+    }
+
+
+    @Test
+    @DisplayName( "Deve servir leituras repetidas a partir do nível local" )
+    void deveServirLeiturasDoNivelLocal() {
+
+        Cache remote = spy( remoteCacheManager.getCache( "cotacao-dolar" ) );
+        when( remoteCacheManager.getCache( "cotacao-dolar" ) ).thenReturn( remote );
+        remote.put( "chave", new BigDecimal( "5.25" ) );
+
+        Cache cache = cacheManager.getCache( "cotacao-dolar" );
+
+        for ( int i = 0; i < 100; i++ ) {
+            assertThat( cache.get( "chave", BigDecimal.class ) ).isEqualByComparingTo( "5.25" );
+        }
+
+        verify( remote, times( 1 ) ).get( "chave" );
+    }
+
+
+    @Test
+    @DisplayName( "Deve contar acertos por nível e faltas por cache" )
+    void deveContarAcertosEFaltas() {
+
+        Cache cache = cacheManager.getCache( "cotacao-dolar" );
+
+        cache.get( "chave" );
+        remoteCacheManager.getCache( "cotacao-dolar" ).put( "chave", new BigDecimal( "5.25" ) );
+        cache.get( "chave" );
+        cache.get( "chave" );
+        cache.get( "chave" );
+
+        assertThat( contagem( "miss", "redis" ) ).isEqualTo( 1 );
+        assertThat( contagem( "hit", "redis" ) ).isEqualTo( 1 );
+        assertThat( contagem( "hit", "local" ) ).isEqualTo( 2 );
+    }
+
+
+    @Test
+    @DisplayName( "Deve gravar nos dois níveis e publicar invalidação ao alterar valor" )
+    void deveGravarNosDoisNiveisEPublicarInvalidacao() {
+
+        Cache cache = cacheManager.getCache( "cotacao-dolar" );
+
+        cache.put( "chave", new BigDecimal( "5.30" ) );
+
+        assertThat( remoteCacheManager.getCache( "cotacao-dolar" ).get( "chave", BigDecimal.class ) ).isEqualByComparingTo( "5.30" );
+        assertThat( cache.get( "chave", BigDecimal.class ) ).isEqualByComparingTo( "5.30" );
+
+        ArgumentCaptor< String > mensagem = ArgumentCaptor.forClass( String.class );
+        verify( redisTemplate ).convertAndSend( eq( CANAL ), mensagem.capture() );
+        assertThat( mensagem.getValue() ).endsWith( "|cotacao-dolar|chave" );
+    }
+
+
+    @Test
+    @DisplayName( "Deve publicar invalidação do cache inteiro apenas no clear" )
+    void devePublicarInvalidacaoDoCacheInteiroNoClear() {
+
+        Cache cache = cacheManager.getCache( "cotacao-dolar" );
+
+        cache.evict( "chave" );
+        cache.clear();
+
+        ArgumentCaptor< String > mensagens = ArgumentCaptor.forClass( String.class );
+        verify( redisTemplate, times( 2 ) ).convertAndSend( eq( CANAL ), mensagens.capture() );
+        assertThat( mensagens.getAllValues().get( 0 ) ).endsWith( "|cotacao-dolar|chave" );
+        assertThat( mensagens.getAllValues().get( 1 ) ).endsWith( "|cotacao-dolar" );
+    }
+
+
+    @Test
+    @DisplayName( "Deve descartar o nível local ao receber invalidação de outro nó" )
+    void deveDescartarNivelLocalAoReceberInvalidacao() {
+
+        Cache cache = cacheManager.getCache( "cotacao-dolar" );
+        cache.put( "chave", new BigDecimal( "5.30" ) );
+
+        // Outro nó grava diretamente no Redis e publica a invalidação
+        remoteCacheManager.getCache( "cotacao-dolar" ).put( "chave", new BigDecimal( "5.40" ) );
+        assertThat( cache.get( "chave", BigDecimal.class ) ).isEqualByComparingTo( "5.30" );
+
+        cacheManager.onMessage( mensagem( "outro-no|cotacao-dolar" ), null );
+
+        assertThat( cache.get( "chave", BigDecimal.class ) ).isEqualByComparingTo( "5.40" );
+    }
+
+
+    @Test
+    @DisplayName( "Deve descartar só a chave invalidada por outro nó, mantendo as demais no nível local" )
+    void deveDescartarApenasChaveInvalidada() {
+
+        Cache remote = spy( remoteCacheManager.getCache( "usuario-status" ) );
+        when( remoteCacheManager.getCache( "usuario-status" ) ).thenReturn( remote );
+
+        Cache cache = cacheManager.getCache( "usuario-status" );
+        cache.put( "ana", "ativo" );
+        cache.put( "bia|adm", "ativo" );
+
+        // Outro nó altera as duas no Redis, mas só avisa da primeira
+        remote.put( "ana", "inativo" );
+        remote.put( "bia|adm", "inativo" );
+        cacheManager.onMessage( mensagem( "outro-no|usuario-status|ana" ), null );
+
+        assertThat( cache.get( "ana", String.class ) ).isEqualTo( "inativo" );
+        assertThat( cache.get( "bia|adm", String.class ) ).isEqualTo( "ativo" );
+
+        cacheManager.onMessage( mensagem( "outro-no|usuario-status|bia|adm" ), null );
+
+        assertThat( cache.get( "bia|adm", String.class ) ).isEqualTo( "inativo" );
+        verify( remote, times( 2 ) ).get( any() );
+    }
+
+
+    @Test
+    @DisplayName( "Deve ignorar invalidações publicadas pelo próprio nó" )
+    void deveIgnorarInvalidacoesDoProprioNo() {
+
+        Cache cache = cacheManager.getCache( "cotacao-dolar" );
+        cache.put( "chave", new BigDecimal( "5.30" ) );
+
+        ArgumentCaptor< String > publicada = ArgumentCaptor.forClass( String.class );
+        verify( redisTemplate ).convertAndSend( anyString(), publicada.capture() );
+
+        remoteCacheManager.getCache( "cotacao-dolar" ).put( "chave", new BigDecimal( "5.40" ) );
+        cacheManager.onMessage( mensagem( publicada.getValue() ), null );
+
+        assertThat( cache.get( "chave", BigDecimal.class ) ).isEqualByComparingTo( "5.30" );
+    }
+
+
+    @Test
+    @DisplayName( "Deve carregar valor ausente uma única vez e mantê-lo no nível local" )
+    void deveCarregarValorAusente() {
+
+        Cache cache = cacheManager.getCache( "cotacao-dolar" );
+
+        BigDecimal primeiro = cache.get( "chave", () -> new BigDecimal( "5.10" ) );
+        BigDecimal segundo = cache.get( "chave", () -> {
+            throw new IllegalStateException( "Não deveria recarregar" );
+        } );
+
+        assertThat( primeiro ).isEqualByComparingTo( "5.10" );
+        assertThat( segundo ).isEqualByComparingTo( "5.10" );
+    }
+
+
+    @Test
+    @DisplayName( "Deve carregar valor ausente de forma assíncrona e servir as leituras seguintes do nível local" )
+    void deveCarregarValorAusenteDeFormaAssincrona()
+        throws Exception {
+
+        Cache remote = spy( remoteCacheManager.getCache( "cotacao-dolar" ) );
+        when( remoteCacheManager.getCache( "cotacao-dolar" ) ).thenReturn( remote );
+
+        Cache cache = cacheManager.getCache( "cotacao-dolar" );
+
+        BigDecimal primeiro = cache.retrieve( "chave", () -> CompletableFuture.completedFuture( new BigDecimal( "5.20" ) ) ).get();
+        BigDecimal segundo = cache.< BigDecimal > retrieve( "chave", () -> {
+            throw new IllegalStateException( "Não deveria recarregar" );
+        } ).get();
+
+        assertThat( primeiro ).isEqualByComparingTo( "5.20" );
+        assertThat( segundo ).isEqualByComparingTo( "5.20" );
+        assertThat( cache.retrieve( "chave" ).get() ).isInstanceOfSatisfying( Cache.ValueWrapper.class,
+            valor -> assertThat( ( BigDecimal ) valor.get() ).isEqualByComparingTo( "5.20" ) );
+        verify( remote, times( 1 ) ).retrieve( eq( "chave" ), any() );
+    }
+
+
+    private double contagem( String resultado, String nivel ) {
+
+        return meterRegistry.get( "cache.gets" ).tags( "cache", "cotacao-dolar", "result", resultado, "nivel", nivel ).counter().count();
+    }
+
+
+    private DefaultMessage mensagem( String corpo ) {
+
+        return new DefaultMessage( CANAL.getBytes( StandardCharsets.UTF_8 ), corpo.getBytes( StandardCharsets.UTF_8 ) );
+    }
+}
@@ -31,7 +31,8 @@ public class TestSecurityConfig {
                 .authenticationEntryPoint( new HttpStatusEntryPoint( HttpStatus.UNAUTHORIZED ) ) )
             .authorizeHttpRequests(
                 auth -> auth.requestMatchers( "/auth/**" ).permitAll().requestMatchers( "/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html" ).permitAll()
-                    .requestMatchers( "/actuator/**" ).permitAll().requestMatchers( HttpMethod.GET, "/veiculos/**" ).hasAnyRole( "USER", "ADMIN" )
+                    .requestMatchers( "/actuator/health", "/actuator/health/**" ).permitAll().requestMatchers( "/actuator/**" ).hasRole( "ADMIN" )
+                    .requestMatchers( HttpMethod.GET, "/veiculos/**" ).hasAnyRole( "USER", "ADMIN" )
                     .requestMatchers( HttpMethod.POST, "/veiculos/**" ).hasRole( "ADMIN" ).requestMatchers( HttpMethod.PUT, "/veiculos/**" ).hasRole( "ADMIN" )
                     .requestMatchers( HttpMethod.PATCH, "/veiculos/**" ).hasRole( "ADMIN" ).requestMatchers( HttpMethod.DELETE, "/veiculos/**" )
                     .hasRole( "ADMIN" ).anyRequest().authenticated() )
@@ -1,16 +1,28 @@
 package com.tinnova.veiculos.controller;
 
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.tinnova.veiculos.config.TestSecurityConfig;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,17 +37,37 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinnova.veiculos.dto.request.FormatoExportacao;
+import com.tinnova.veiculos.dto.request.VeiculoFiltro;
 import com.tinnova.veiculos.dto.request.VeiculoRequest;
+import com.tinnova.veiculos.dto.response.ContagemAnoResponse;
+import com.tinnova.veiculos.dto.response.ContagemCorResponse;
+import com.tinnova.veiculos.dto.response.ContagemDecadaResponse;
+import com.tinnova.veiculos.dto.response.CursorPageResponse;
+import com.tinnova.veiculos.dto.response.EstatisticaMarcaResponse;
+import com.tinnova.veiculos.dto.response.LoteResponse;
+import com.tinnova.veiculos.dto.response.RelatorioAnaliticoResponse;
+import com.tinnova.veiculos.dto.response.RemocaoLoteResponse;
 import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.exception.CursorInvalidoException;
 import com.tinnova.veiculos.exception.DuplicatePlacaException;
 import com.tinnova.veiculos.exception.VeiculoNotFoundException;
+import com.tinnova.veiculos.exception.VersaoDivergenteException;
+import com.tinnova.veiculos.service.VeiculoExportService;
+import com.tinnova.veiculos.service.VeiculoLoteService;
 import com.tinnova.veiculos.service.VeiculoService;
+import com.tinnova.veiculos.service.Versionado;
 
 
 @SpringBootTest
@@ -45,6 +77,10 @@ import com.tinnova.veiculos.service.VeiculoService;
 @DisplayName( "Testes do VeiculoController" )
 class VeiculoControllerTest {
 
+    private static final String ETAG = "3f2a9c";
+
+    private static final Instant MODIFICADO_EM = Instant.parse( "2024-01-15T10:30:00Z" );
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -54,6 +90,12 @@ class VeiculoControllerTest {
     @MockBean
     private VeiculoService veiculoService;
 
+    @MockBean
+    private VeiculoLoteService veiculoLoteService;
+
+    @MockBean
+    private VeiculoExportService veiculoExportService;
+
     private VeiculoRequest veiculoRequest;
 
     private VeiculoResponse veiculoResponse;
@@ -71,6 +113,8 @@ class VeiculoControllerTest {
 
         veiculoResponse = VeiculoResponse.builder().id( 1L ).marca( "Toyota" ).modelo( "Corolla" ).ano( 2023 ).cor( "Preto" ).placa( "ABC1234" )
             .precoUsd( new BigDecimal( "20000.00" ) ).precoBrl( new BigDecimal( "100000.00" ) ).build();
+        // O corpo das leituras versionadas é montado pelo serviço
+        when( veiculoService.corpo( any() ) ).thenAnswer( invocacao -> invocacao.< Versionado< ? > > getArgument( 0 ).getCorpo() );
     }
 
     @Test
@@ -110,7 +154,7 @@ class VeiculoControllerTest {
         Pageable pageable = PageRequest.of( 0, 10 );
         Page< VeiculoResponse > page = new PageImpl<>( List.of( veiculoResponse ), pageable, 1 );
 
-        when( veiculoService.findAll( any( Pageable.class ) ) ).thenReturn( page );
+        when( veiculoService.findAll( any( Pageable.class ) ) ).thenReturn( versionado( page ) );
 
         mockMvc.perform( get( "/veiculos" ) ).andExpect( status().isOk() ).andExpect( jsonPath( "$.content[0].marca" ).value( "Toyota" ) )
             .andExpect( jsonPath( "$.content[0].placa" ).value( "ABC1234" ) );
@@ -125,7 +169,7 @@ class VeiculoControllerTest {
 
         Pageable pageable = PageRequest.of( 0, 10 );
         Page< VeiculoResponse > page = new PageImpl<>( List.of( veiculoResponse ), pageable, 1 );
-        when( veiculoService.findAll( any( Pageable.class ) ) ).thenReturn( page );
+        when( veiculoService.findAll( any( Pageable.class ) ) ).thenReturn( versionado( page ) );
 
         mockMvc.perform( get( "/veiculos" ) ).andExpect( status().isOk() ).andExpect( jsonPath( "$.content[0].marca" ).value( "Toyota" ) );
     }
@@ -137,7 +181,7 @@ class VeiculoControllerTest {
     void userDeveConseguirBuscarPorId()
         throws Exception {
 
-        when( veiculoService.findById( 1L ) ).thenReturn( veiculoResponse );
+        when( veiculoService.findById( 1L ) ).thenReturn( versionado( veiculoResponse ) );
 
         mockMvc.perform( get( "/veiculos/1" ) ).andExpect( status().isOk() ).andExpect( jsonPath( "$.id" ).value( 1 ) )
             .andExpect( jsonPath( "$.marca" ).value( "Toyota" ) );
@@ -157,6 +201,60 @@ class VeiculoControllerTest {
     }
 
 
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /veiculos/{id} - Deve enviar ETag, Last-Modified e exigir revalidação" )
+    void deveEnviarValidadoresDeCache()
+        throws Exception {
+
+        when( veiculoService.findById( 1L ) ).thenReturn( versionado( veiculoResponse ) );
+
+        mockMvc.perform( get( "/veiculos/1" ) ).andExpect( status().isOk() ).andExpect( header().string( HttpHeaders.ETAG, "\"" + ETAG + "\"" ) )
+            .andExpect( header().dateValue( HttpHeaders.LAST_MODIFIED, MODIFICADO_EM.toEpochMilli() ) )
+            .andExpect( header().string( HttpHeaders.CACHE_CONTROL, "no-cache, private" ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /veiculos/{id} - Deve responder 304 sem montar o corpo quando o ETag bater" )
+    void deveResponder304QuandoEtagBater()
+        throws Exception {
+
+        AtomicBoolean corpoMontado = new AtomicBoolean();
+        when( veiculoService.findById( 1L ) ).thenReturn( Versionado.of( ETAG, MODIFICADO_EM, () -> {
+            corpoMontado.set( true );
+            return veiculoResponse;
+        } ) );
+
+        mockMvc.perform( get( "/veiculos/1" ).header( HttpHeaders.IF_NONE_MATCH, "\"" + ETAG + "\"" ) ).andExpect( status().isNotModified() )
+            .andExpect( header().string( HttpHeaders.ETAG, "\"" + ETAG + "\"" ) ).andExpect( content().string( "" ) );
+        assertThat( corpoMontado ).isFalse();
+
+        mockMvc.perform( get( "/veiculos/1" ).header( HttpHeaders.IF_NONE_MATCH, "\"outra-versao\"" ) ).andExpect( status().isOk() )
+            .andExpect( jsonPath( "$.id" ).value( 1 ) );
+        assertThat( corpoMontado ).isTrue();
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /veiculos - Deve responder 304 para página inalterada (If-None-Match ou If-Modified-Since)" )
+    void deveResponder304ParaPaginaInalterada()
+        throws Exception {
+
+        Page< VeiculoResponse > page = new PageImpl<>( List.of( veiculoResponse ), PageRequest.of( 0, 10 ), 1 );
+        when( veiculoService.findAll( any( Pageable.class ) ) ).thenReturn( versionado( page ) );
+
+        String modificadoEm = DateTimeFormatter.RFC_1123_DATE_TIME.format( MODIFICADO_EM.atZone( ZoneOffset.UTC ) );
+        String minutoAntes = DateTimeFormatter.RFC_1123_DATE_TIME.format( MODIFICADO_EM.minusSeconds( 60 ).atZone( ZoneOffset.UTC ) );
+
+        mockMvc.perform( get( "/veiculos" ).header( HttpHeaders.IF_NONE_MATCH, "\"" + ETAG + "\"" ) ).andExpect( status().isNotModified() );
+        mockMvc.perform( get( "/veiculos" ).header( HttpHeaders.IF_MODIFIED_SINCE, modificadoEm ) ).andExpect( status().isNotModified() );
+        mockMvc.perform( get( "/veiculos" ).header( HttpHeaders.IF_MODIFIED_SINCE, minutoAntes ) ).andExpect( status().isOk() );
+    }
+
+
     @Test
     @WithMockUser( roles = "USER" )
     @DisplayName( "POST /veiculos - USER deve receber 403 (Forbidden)" )
@@ -228,13 +326,61 @@ class VeiculoControllerTest {
     void adminDeveConseguirAtualizarVeiculo()
         throws Exception {
 
-        when( veiculoService.update( eq( 1L ), any( VeiculoRequest.class ) ) ).thenReturn( veiculoResponse );
+        when( veiculoService.update( eq( 1L ), any( VeiculoRequest.class ), isNull() ) ).thenReturn( versionado( veiculoResponse ) );
 
         mockMvc.perform( put( "/veiculos/1" ).contentType( MediaType.APPLICATION_JSON ).content( objectMapper.writeValueAsString( veiculoRequest ) ) )
             .andExpect( status().isOk() ).andExpect( jsonPath( "$.marca" ).value( "Toyota" ) );
     }
 
 
+    @Test
+    @WithMockUser( roles = "ADMIN" )
+    @DisplayName( "PUT /veiculos/{id} - Deve repassar a versão do If-Match e devolver o novo ETag" )
+    void deveRepassarVersaoDoIfMatch()
+        throws Exception {
+
+        when( veiculoService.update( eq( 1L ), any( VeiculoRequest.class ), eq( 7L ) ) ).thenReturn( versionado( veiculoResponse ) );
+
+        mockMvc.perform( put( "/veiculos/1" ).header( HttpHeaders.IF_MATCH, "\"7-5f1d\"" ).contentType( MediaType.APPLICATION_JSON )
+            .content( objectMapper.writeValueAsString( veiculoRequest ) ) ).andExpect( status().isOk() )
+            .andExpect( header().string( HttpHeaders.ETAG, "\"" + ETAG + "\"" ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "ADMIN" )
+    @DisplayName( "PATCH /veiculos/{id} - Deve retornar 412 quando o If-Match não for da versão atual" )
+    void deveRetornar412QuandoVersaoDivergir()
+        throws Exception {
+
+        when( veiculoService.partialUpdate( eq( 1L ), any( VeiculoRequest.class ), eq( 2L ) ) )
+            .thenThrow( new VersaoDivergenteException( "O veículo 1 foi alterado (versão atual: 3)" ) );
+
+        mockMvc.perform( patch( "/veiculos/1" ).header( HttpHeaders.IF_MATCH, "\"2-5f1d\"" ).contentType( MediaType.APPLICATION_JSON )
+            .content( objectMapper.writeValueAsString( veiculoRequest ) ) ).andExpect( status().isPreconditionFailed() )
+            .andExpect( jsonPath( "$.status" ).value( 412 ) );
+
+        // ETag fraco ou de outro formato nunca confere
+        mockMvc.perform( patch( "/veiculos/1" ).header( HttpHeaders.IF_MATCH, "W/\"3-5f1d\"" ).contentType( MediaType.APPLICATION_JSON )
+            .content( objectMapper.writeValueAsString( veiculoRequest ) ) ).andExpect( status().isPreconditionFailed() );
+        verify( veiculoService, never() ).partialUpdate( any(), any(), eq( 3L ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "ADMIN" )
+    @DisplayName( "PUT /veiculos/{id} - Deve retornar 409 quando outra escrita vencer a corrida" )
+    void deveRetornar409ParaEscritaConcorrente()
+        throws Exception {
+
+        when( veiculoService.update( eq( 1L ), any( VeiculoRequest.class ), isNull() ) )
+            .thenThrow( new ObjectOptimisticLockingFailureException( Veiculo.class, 1L ) );
+
+        mockMvc.perform( put( "/veiculos/1" ).contentType( MediaType.APPLICATION_JSON ).content( objectMapper.writeValueAsString( veiculoRequest ) ) )
+            .andExpect( status().isConflict() ).andExpect( jsonPath( "$.status" ).value( 409 ) );
+    }
+
+
     @Test
     @WithMockUser( roles = "USER" )
     @DisplayName( "PATCH /veiculos/{id} - USER deve receber 403" )
@@ -252,7 +398,7 @@ class VeiculoControllerTest {
     void adminDeveConseguirAtualizarParcialmente()
         throws Exception {
 
-        when( veiculoService.partialUpdate( eq( 1L ), any( VeiculoRequest.class ) ) ).thenReturn( veiculoResponse );
+        when( veiculoService.partialUpdate( eq( 1L ), any( VeiculoRequest.class ), isNull() ) ).thenReturn( versionado( veiculoResponse ) );
 
         mockMvc.perform( patch( "/veiculos/1" ).contentType( MediaType.APPLICATION_JSON ).content( objectMapper.writeValueAsString( veiculoRequest ) ) )
             .andExpect( status().isOk() ).andExpect( jsonPath( "$.marca" ).value( "Toyota" ) );
@@ -281,6 +427,30 @@ class VeiculoControllerTest {
     }
 
 
+    @Test
+    @WithMockUser( roles = "ADMIN" )
+    @DisplayName( "DELETE /veiculos/lote - ADMIN deve remover vários ids numa chamada" )
+    void adminDeveRemoverEmLote()
+        throws Exception {
+
+        when( veiculoService.removerLote( List.of( 1L, 2L, 3L ) ) ).thenReturn( RemocaoLoteResponse.builder().solicitados( 3 ).removidos( 2 ).build() );
+
+        mockMvc.perform( delete( "/veiculos/lote" ).param( "ids", "1,2,3" ) ).andExpect( status().isOk() )
+            .andExpect( jsonPath( "$.solicitados" ).value( 3 ) ).andExpect( jsonPath( "$.removidos" ).value( 2 ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "DELETE /veiculos/lote - USER deve receber 403" )
+    void userNaoDeveRemoverEmLote()
+        throws Exception {
+
+        mockMvc.perform( delete( "/veiculos/lote" ).param( "ids", "1,2" ) ).andExpect( status().isForbidden() );
+        verifyNoInteractions( veiculoService );
+    }
+
+
     @Test
     @WithMockUser( roles = "USER" )
     @DisplayName( "GET /veiculos/relatorios/por-marca - USER deve conseguir acessar" )
@@ -301,7 +471,7 @@ class VeiculoControllerTest {
 
         Pageable pageable = PageRequest.of( 0, 10 );
         Page< VeiculoResponse > page = new PageImpl<>( List.of( veiculoResponse ), pageable, 1 );
-        when( veiculoService.findByFiltros( eq( "Toyota" ), eq( 2023 ), eq( "Preto" ), any( Pageable.class ) ) ).thenReturn( page );
+        when( veiculoService.buscar( eq( new VeiculoFiltro( "Toyota", 2023, "Preto", null, null ) ), any( Pageable.class ) ) ).thenReturn( versionado( page ) );
 
         mockMvc.perform( get( "/veiculos" ).param( "marca", "Toyota" ).param( "ano", "2023" ).param( "cor", "Preto" ) ).andExpect( status().isOk() )
             .andExpect( jsonPath( "$.content[0].marca" ).value( "Toyota" ) );
@@ -316,9 +486,165 @@ class VeiculoControllerTest {
 
         Pageable pageable = PageRequest.of( 0, 10 );
         Page< VeiculoResponse > page = new PageImpl<>( List.of( veiculoResponse ), pageable, 1 );
-        when( veiculoService.findByPrecoRange( any(), any(), any( Pageable.class ) ) ).thenReturn( page );
+        when( veiculoService.buscar( any( VeiculoFiltro.class ), any( Pageable.class ) ) ).thenReturn( versionado( page ) );
 
         mockMvc.perform( get( "/veiculos" ).param( "minPreco", "50000" ).param( "maxPreco", "150000" ) ).andExpect( status().isOk() )
             .andExpect( jsonPath( "$.content[0].marca" ).value( "Toyota" ) );
     }
-}
\ No newline at end of file
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /veiculos - Deve aplicar filtros e faixa de preço em conjunto" )
+    void deveCombinarFiltrosEFaixaDePreco()
+        throws Exception {
+
+        Pageable pageable = PageRequest.of( 0, 10 );
+        Page< VeiculoResponse > page = new PageImpl<>( List.of( veiculoResponse ), pageable, 1 );
+        VeiculoFiltro esperado = new VeiculoFiltro( "Ford", null, null, new BigDecimal( "50000" ), null );
+        when( veiculoService.buscar( eq( esperado ), any( Pageable.class ) ) ).thenReturn( versionado( page ) );
+
+        mockMvc.perform( get( "/veiculos" ).param( "marca", "Ford" ).param( "minPreco", "50000" ) ).andExpect( status().isOk() )
+            .andExpect( jsonPath( "$.content[0].marca" ).value( "Toyota" ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /veiculos/relatorios/analitico - Deve retornar estatísticas e distribuições numa única resposta" )
+    void deveRetornarRelatorioAnalitico()
+        throws Exception {
+
+        RelatorioAnaliticoResponse relatorio = RelatorioAnaliticoResponse.builder()
+            .porMarca( List.of( new EstatisticaMarcaResponse( "Toyota", 2L, new BigDecimal( "25000.00" ), new BigDecimal( "20000.00" ),
+                new BigDecimal( "30000.00" ) ) ) )
+            .porAno( List.of( new ContagemAnoResponse( 2023, 2L ) ) ).porDecada( List.of( new ContagemDecadaResponse( 2020, 2L ) ) )
+            .porCor( List.of( new ContagemCorResponse( "Preto", 2L ) ) ).build();
+        when( veiculoService.getRelatorioAnalitico() ).thenReturn( relatorio );
+
+        mockMvc.perform( get( "/veiculos/relatorios/analitico" ) ).andExpect( status().isOk() )
+            .andExpect( jsonPath( "$.porMarca[0].precoMedioUsd" ).value( 25000.00 ) ).andExpect( jsonPath( "$.porDecada[0].decada" ).value( 2020 ) )
+            .andExpect( jsonPath( "$.porCor[0].cor" ).value( "Preto" ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /veiculos?cursor - Deve paginar por cursor sem contagem total" )
+    void devePaginarPorCursor()
+        throws Exception {
+
+        CursorPageResponse< VeiculoResponse > pagina =
+            CursorPageResponse.< VeiculoResponse > builder().content( List.of( veiculoResponse ) ).size( 1 ).hasNext( true ).nextCursor( "abc" ).build();
+        when( veiculoService.findAllCursor( eq( "" ), any( Pageable.class ) ) ).thenReturn( pagina );
+
+        mockMvc.perform( get( "/veiculos" ).param( "cursor", "" ) ).andExpect( status().isOk() )
+            .andExpect( jsonPath( "$.content[0].placa" ).value( "ABC1234" ) ).andExpect( jsonPath( "$.nextCursor" ).value( "abc" ) )
+            .andExpect( jsonPath( "$.hasNext" ).value( true ) ).andExpect( jsonPath( "$.totalElements" ).doesNotExist() );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /veiculos?cursor - Deve retornar 400 para cursor inválido" )
+    void deveRetornar400ParaCursorInvalido()
+        throws Exception {
+
+        when( veiculoService.findAllCursor( eq( "lixo" ), any( Pageable.class ) ) ).thenThrow( new CursorInvalidoException( "Cursor inválido" ) );
+
+        mockMvc.perform( get( "/veiculos" ).param( "cursor", "lixo" ) ).andExpect( status().isBadRequest() )
+            .andExpect( jsonPath( "$.message" ).value( "Cursor inválido" ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "ADMIN" )
+    @DisplayName( "POST /veiculos/lote - Deve aceitar o lote como array JSON" )
+    void deveImportarLoteEmArrayJson()
+        throws Exception {
+
+        when( veiculoLoteService.importar( any() ) ).thenAnswer( invocation -> contarLote( invocation.getArgument( 0 ) ) );
+
+        mockMvc.perform( post( "/veiculos/lote" ).contentType( MediaType.APPLICATION_JSON )
+            .content( objectMapper.writeValueAsString( List.of( veiculoRequest, veiculoRequest ) ) ) ).andExpect( status().isOk() )
+            .andExpect( jsonPath( "$.total" ).value( 2 ) ).andExpect( jsonPath( "$.inseridos" ).value( 2 ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "ADMIN" )
+    @DisplayName( "POST /veiculos/lote - Deve aceitar o lote como NDJSON" )
+    void deveImportarLoteEmNdjson()
+        throws Exception {
+
+        when( veiculoLoteService.importar( any() ) ).thenAnswer( invocation -> contarLote( invocation.getArgument( 0 ) ) );
+
+        String linha = objectMapper.writeValueAsString( veiculoRequest );
+        mockMvc.perform( post( "/veiculos/lote" ).contentType( MediaType.APPLICATION_NDJSON ).content( linha + "\n" + linha + "\n" + linha + "\n" ) )
+            .andExpect( status().isOk() ).andExpect( jsonPath( "$.total" ).value( 3 ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "ADMIN" )
+    @DisplayName( "POST /veiculos/lote - Deve retornar 400 para JSON malformado" )
+    void deveRetornar400ParaLoteMalformado()
+        throws Exception {
+
+        when( veiculoLoteService.importar( any() ) ).thenAnswer( invocation -> contarLote( invocation.getArgument( 0 ) ) );
+
+        mockMvc.perform( post( "/veiculos/lote" ).contentType( MediaType.APPLICATION_NDJSON ).content( "{\"marca\": \"Fiat\"\n{quebrado" ) )
+            .andExpect( status().isBadRequest() ).andExpect( jsonPath( "$.status" ).value( 400 ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "POST /veiculos/lote - USER não deve conseguir importar" )
+    void userNaoDeveImportarLote()
+        throws Exception {
+
+        mockMvc.perform( post( "/veiculos/lote" ).contentType( MediaType.APPLICATION_JSON ).content( "[]" ) ).andExpect( status().isForbidden() );
+    }
+
+
+    private LoteResponse contarLote( MappingIterator< VeiculoRequest > veiculos )
+        throws Exception {
+
+        int total = veiculos.readAll().size();
+        return LoteResponse.builder().total( total ).inseridos( total ).build();
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /veiculos/export - Deve transmitir o CSV como anexo" )
+    void deveExportarCsv()
+        throws Exception {
+
+        when( veiculoExportService.exportar( FormatoExportacao.CSV ) ).thenReturn( saida -> saida.write( "id,marca\n1,Toyota\n".getBytes() ) );
+
+        MvcResult resultado = mockMvc.perform( get( "/veiculos/export" ).param( "formato", "CSV" ) ).andExpect( request().asyncStarted() ).andReturn();
+
+        mockMvc.perform( asyncDispatch( resultado ) ).andExpect( status().isOk() ).andExpect( content().contentType( "text/csv;charset=UTF-8" ) )
+            .andExpect( header().string( "Content-Disposition", "attachment; filename=\"veiculos.csv\"" ) )
+            .andExpect( content().string( "id,marca\n1,Toyota\n" ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /veiculos/export - Deve retornar 400 para formato desconhecido" )
+    void deveRetornar400ParaFormatoDeExportacaoInvalido()
+        throws Exception {
+
+        mockMvc.perform( get( "/veiculos/export" ).param( "formato", "xml" ) ).andExpect( status().isBadRequest() )
+            .andExpect( jsonPath( "$.message" ).value( "Valor inválido para o parâmetro formato: xml" ) );
+    }
+
+
+    private static < T > Versionado< T > versionado( T corpo ) {
+
+        return Versionado.of( ETAG, MODIFICADO_EM, () -> corpo );
+    }
+}
@@ -0,0 +1,143 @@
+package com.tinnova.veiculos.controller;
+
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.tinnova.veiculos.config.TestSecurityConfig;
+import com.tinnova.veiculos.dto.request.VeiculoFiltro;
+import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
+import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.exception.VeiculoNotFoundException;
+import com.tinnova.veiculos.service.VeiculoReativoService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import( TestSecurityConfig.class )
+@ActiveProfiles( "test" )
+@DisplayName( "Testes do VeiculoReativoController" )
+class VeiculoReativoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private VeiculoReativoService veiculoReativoService;
+
+    private VeiculoResponse veiculoResponse;
+
+    @BeforeEach
+    void setUp() {
+
+        veiculoResponse = VeiculoResponse.builder().id( 1L ).marca( "Toyota" ).modelo( "Corolla" ).ano( 2023 ).cor( "Preto" ).placa( "ABC1234" )
+            .precoUsd( new BigDecimal( "20000.00" ) ).precoBrl( new BigDecimal( "100000.00" ) ).build();
+    }
+
+
+    @Test
+    @DisplayName( "GET /reativo/veiculos - Deve retornar 401 quando não autenticado" )
+    void deveRetornar401QuandoNaoAutenticado()
+        throws Exception {
+
+        mockMvc.perform( get( "/reativo/veiculos" ) ).andExpect( status().isUnauthorized() );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /reativo/veiculos - Deve listar veículos de forma assíncrona" )
+    void deveListarVeiculos()
+        throws Exception {
+
+        when( veiculoReativoService.findAll( any( Pageable.class ) ) )
+            .thenReturn( Mono.just( new PageImpl<>( List.of( veiculoResponse ), PageRequest.of( 0, 10 ), 1 ) ) );
+
+        mockMvc.perform( despachar( get( "/reativo/veiculos" ) ) ).andExpect( status().isOk() ).andExpect( jsonPath( "$.content[0].placa" ).value( "ABC1234" ) )
+            .andExpect( jsonPath( "$.totalElements" ).value( 1 ) );
+
+        verify( veiculoReativoService, never() ).buscar( any(), any() );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /reativo/veiculos?marca= - Deve repassar os filtros ao serviço" )
+    void deveRepassarFiltros()
+        throws Exception {
+
+        VeiculoFiltro filtro = new VeiculoFiltro( "Toyota", 2023, null, null, null );
+        when( veiculoReativoService.buscar( eq( filtro ), any( Pageable.class ) ) )
+            .thenReturn( Mono.just( new PageImpl<>( List.of( veiculoResponse ), PageRequest.of( 0, 10 ), 1 ) ) );
+
+        mockMvc.perform( despachar( get( "/reativo/veiculos" ).param( "marca", "Toyota" ).param( "ano", "2023" ) ) ).andExpect( status().isOk() )
+            .andExpect( jsonPath( "$.content[0].marca" ).value( "Toyota" ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /reativo/veiculos/{id} - Deve retornar 404 quando o Mono sinalizar VeiculoNotFoundException" )
+    void deveRetornar404QuandoNaoEncontrado()
+        throws Exception {
+
+        when( veiculoReativoService.findById( 99L ) ).thenReturn( Mono.error( new VeiculoNotFoundException( "Veículo não encontrado com ID: 99" ) ) );
+
+        mockMvc.perform( despachar( get( "/reativo/veiculos/99" ) ) ).andExpect( status().isNotFound() )
+            .andExpect( jsonPath( "$.message" ).value( "Veículo não encontrado com ID: 99" ) );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /reativo/veiculos/relatorios/por-marca - Deve retornar o relatório como array JSON" )
+    void deveRetornarRelatorioPorMarca()
+        throws Exception {
+
+        when( veiculoReativoService.getRelatorioPorMarca() )
+            .thenReturn( Flux.just( new RelatorioMarcaResponse( "Toyota", 2L ), new RelatorioMarcaResponse( "Honda", 1L ) ) );
+
+        mockMvc.perform( despachar( get( "/reativo/veiculos/relatorios/por-marca" ) ) ).andExpect( status().isOk() )
+            .andExpect( jsonPath( "$[0].marca" ).value( "Toyota" ) ).andExpect( jsonPath( "$[1].quantidade" ).value( 1 ) );
+    }
+
+
+    // Mono/Flux começam o processamento assíncrono; o resultado sai no despacho seguinte
+    private RequestBuilder despachar( RequestBuilder requisicao )
+        throws Exception {
+
+        MvcResult resultado = mockMvc.perform( requisicao ).andExpect( request().asyncStarted() ).andReturn();
+        return asyncDispatch( resultado );
+    }
+}
@@ -0,0 +1,132 @@
+package com.tinnova.veiculos.integration;
+
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinnova.veiculos.dto.request.LoginRequest;
+import com.tinnova.veiculos.dto.response.TokenResponse;
+import com.tinnova.veiculos.entity.Usuario;
+import com.tinnova.veiculos.enums.Role;
+import com.tinnova.veiculos.repository.UsuarioRepository;
+
+
+// Cache "simple" no lugar do "none" do perfil de teste: a situação do usuário fica de fato em cache, então o token só é
+// recusado se a desativação remover a entrada de usuario-status
+@SpringBootTest( properties = "spring.cache.type=simple" )
+@AutoConfigureMockMvc
+@ActiveProfiles( "test" )
+@DisplayName( "Testes de Integração - Revogação de tokens" )
+class UsuarioRevogacaoIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private String adminToken;
+
+    private String userToken;
+
+    @BeforeEach
+    void setUp()
+        throws Exception {
+
+        // Os usuários são recriados a cada teste; a situação em cache seria a do teste anterior
+        cacheManager.getCache( "usuario-status" ).clear();
+        usuarioRepository.findByUsername( "revoga-admin" ).ifPresent( usuarioRepository::delete );
+        usuarioRepository.findByUsername( "revoga-user" ).ifPresent( usuarioRepository::delete );
+
+        criarUsuario( "revoga-admin", Role.ADMIN );
+        criarUsuario( "revoga-user", Role.USER );
+
+        adminToken = obterToken( "revoga-admin" );
+        userToken = obterToken( "revoga-user" );
+    }
+
+
+    private void criarUsuario( String username, Role role ) {
+
+        Usuario usuario = new Usuario();
+        usuario.setUsername( username );
+        usuario.setPassword( passwordEncoder.encode( "senha123" ) );
+        usuario.setRole( role );
+        usuario.setAtivo( true );
+        usuarioRepository.save( usuario );
+    }
+
+
+    private String obterToken( String username )
+        throws Exception {
+
+        LoginRequest loginRequest = new LoginRequest( username, "senha123" );
+
+        MvcResult result =
+            mockMvc.perform( post( "/auth/login" ).contentType( MediaType.APPLICATION_JSON ).content( objectMapper.writeValueAsString( loginRequest ) ) )
+                .andExpect( status().isOk() ).andReturn();
+
+        return objectMapper.readValue( result.getResponse().getContentAsString(), TokenResponse.class ).getToken();
+    }
+
+
+    @Test
+    @DisplayName( "Token já emitido deve ser recusado assim que o ADMIN desativar o usuário" )
+    void deveRecusarTokenEmitidoAposDesativacao()
+        throws Exception {
+
+        // Primeira requisição põe a situação do usuário no cache usuario-status
+        mockMvc.perform( get( "/veiculos/relatorios/por-marca" ).header( "Authorization", "Bearer " + userToken ) ).andExpect( status().isOk() );
+
+        mockMvc.perform( post( "/usuarios/revoga-user/desativar" ).header( "Authorization", "Bearer " + adminToken ) ).andExpect( status().isNoContent() );
+
+        mockMvc.perform( get( "/veiculos/relatorios/por-marca" ).header( "Authorization", "Bearer " + userToken ) )
+            .andExpect( status().isUnauthorized() );
+    }
+
+
+    @Test
+    @DisplayName( "USER não deve conseguir desativar usuários" )
+    void naoDevePermitirDesativacaoPorUser()
+        throws Exception {
+
+        mockMvc.perform( post( "/usuarios/revoga-admin/desativar" ).header( "Authorization", "Bearer " + userToken ) )
+            .andExpect( status().isForbidden() );
+
+        mockMvc.perform( get( "/veiculos/relatorios/por-marca" ).header( "Authorization", "Bearer " + adminToken ) ).andExpect( status().isOk() );
+    }
+
+
+    @Test
+    @DisplayName( "Desativar usuário inexistente deve retornar 404" )
+    void deveRetornar404ParaUsuarioInexistente()
+        throws Exception {
+
+        mockMvc.perform( post( "/usuarios/inexistente/desativar" ).header( "Authorization", "Bearer " + adminToken ) )
+            .andExpect( status().isNotFound() );
+    }
+}
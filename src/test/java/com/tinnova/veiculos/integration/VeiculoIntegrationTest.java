@@ -277,6 +277,23 @@ class VeiculoIntegrationTest {
     }
 
 
+    @Test
+    @DisplayName( "Fluxo: Actuator só expõe o health sem autenticação; métricas exigem ADMIN" )
+    void fluxoActuator()
+        throws Exception {
+
+        // Sem Redis no teste o health pode vir DOWN (503), mas responde sem pedir token
+        mockMvc.perform( get( "/actuator/health" ) ).andExpect( jsonPath( "$.status" ).exists() );
+
+        mockMvc.perform( get( "/actuator/prometheus" ) ).andExpect( status().isUnauthorized() );
+        mockMvc.perform( get( "/actuator/metrics/http.server.requests" ) ).andExpect( status().isUnauthorized() );
+        mockMvc.perform( get( "/actuator/prometheus" ).header( "Authorization", "Bearer " + userToken ) ).andExpect( status().isForbidden() );
+
+        // O endpoint prometheus não é registrado em @SpringBootTest (exportação de métricas desligada); o metrics é
+        mockMvc.perform( get( "/actuator/metrics" ).header( "Authorization", "Bearer " + adminToken ) ).andExpect( status().isOk() );
+    }
+
+
     private void criarVeiculo( String marca, String modelo, Integer ano, String cor, String placa, String precoBrl )
         throws Exception {
 
@@ -0,0 +1,85 @@
+package com.tinnova.veiculos.repository;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.tinnova.veiculos.dto.response.ContagemAnoResponse;
+import com.tinnova.veiculos.dto.response.ContagemCorResponse;
+import com.tinnova.veiculos.dto.response.ContagemDecadaResponse;
+import com.tinnova.veiculos.dto.response.EstatisticaMarcaResponse;
+import com.tinnova.veiculos.dto.response.RelatorioAnaliticoResponse;
+import com.tinnova.veiculos.entity.Veiculo;
+
+
+@DataJpaTest
+@Import( RelatorioAnaliticoRepository.class )
+@ActiveProfiles( "test" )
+@DisplayName( "Testes do RelatorioAnaliticoRepository" )
+class RelatorioAnaliticoRepositoryTest {
+
+    @Autowired
+    private RelatorioAnaliticoRepository relatorioAnaliticoRepository;
+
+    @Autowired
+    private VeiculoRepository veiculoRepository;
+
+    @BeforeEach
+    void setUp() {
+
+        veiculoRepository.deleteAll();
+
+        salvar( "AAA0001", "Toyota", 2023, "Preto", "20000.00", true );
+        salvar( "AAA0002", "Toyota", 2019, "Branco", "30000.00", true );
+        salvar( "AAA0003", "Toyota", 2021, "Preto", "25000.00", true );
+        salvar( "AAA0004", "Honda", 2023, "Preto", "22000.00", true );
+        salvar( "AAA0005", "Honda", 2010, "Azul", "99999.00", false ); // Inativo
+        veiculoRepository.flush();
+    }
+
+
+    @Test
+    @DisplayName( "Deve calcular estatísticas por marca e distribuições por ano, década e cor numa única consulta" )
+    void deveGerarRelatorioAnalitico() {
+
+        RelatorioAnaliticoResponse relatorio = relatorioAnaliticoRepository.gerar();
+
+        assertThat( relatorio.getPorMarca() ).extracting( EstatisticaMarcaResponse::getMarca, EstatisticaMarcaResponse::getQuantidade,
+            EstatisticaMarcaResponse::getPrecoMedioUsd, EstatisticaMarcaResponse::getPrecoMinimoUsd, EstatisticaMarcaResponse::getPrecoMaximoUsd )
+            .containsExactly( tuple( "Toyota", 3L, new BigDecimal( "25000.00" ), new BigDecimal( "20000.00" ), new BigDecimal( "30000.00" ) ),
+                tuple( "Honda", 1L, new BigDecimal( "22000.00" ), new BigDecimal( "22000.00" ), new BigDecimal( "22000.00" ) ) );
+
+        assertThat( relatorio.getPorAno() ).extracting( ContagemAnoResponse::getAno, ContagemAnoResponse::getQuantidade )
+            .containsExactly( tuple( 2019, 1L ), tuple( 2021, 1L ), tuple( 2023, 2L ) );
+
+        assertThat( relatorio.getPorDecada() ).extracting( ContagemDecadaResponse::getDecada, ContagemDecadaResponse::getQuantidade )
+            .containsExactly( tuple( 2010, 1L ), tuple( 2020, 3L ) );
+
+        assertThat( relatorio.getPorCor() ).extracting( ContagemCorResponse::getCor, ContagemCorResponse::getQuantidade )
+            .containsExactly( tuple( "Preto", 3L ), tuple( "Branco", 1L ) );
+    }
+
+
+    private void salvar( String placa, String marca, int ano, String cor, String precoUsd, boolean ativo ) {
+
+        Veiculo veiculo = new Veiculo();
+        veiculo.setMarca( marca );
+        veiculo.setModelo( "Modelo" );
+        veiculo.setAno( ano );
+        veiculo.setCor( cor );
+        veiculo.setPlaca( placa );
+        veiculo.setPrecoUsd( new BigDecimal( precoUsd ) );
+        veiculo.setAtivo( ativo );
+        veiculoRepository.save( veiculo );
+    }
+}
@@ -4,24 +4,38 @@ package com.tinnova.veiculos.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import javax.sql.DataSource;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
 import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.support.SqlCapturado;
 
 
-@DataJpaTest
+// Captura o SQL gerado para o EXPLAIN da consulta real do filtro
+@DataJpaTest( properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.tinnova.veiculos.support.SqlCapturado" )
 @ActiveProfiles( "test" )
 @DisplayName( "Testes do VeiculoRepository" )
 class VeiculoRepositoryTest {
@@ -29,6 +43,12 @@ class VeiculoRepositoryTest {
     @Autowired
     private VeiculoRepository veiculoRepository;
 
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     private Veiculo veiculo1;
 
     private Veiculo veiculo2;
@@ -108,26 +128,24 @@ class VeiculoRepositoryTest {
 
 
     @Test
-    @DisplayName( "Deve validar se placa existe entre veículos ativos" )
-    void deveValidarSePlacaExiste() {
-
-        boolean existe = veiculoRepository.existsByPlacaAndAtivoTrue( "ABC1234" );
-        boolean naoExiste = veiculoRepository.existsByPlacaAndAtivoTrue( "ZZZ9999" );
+    @DisplayName( "Deve resolver o id do veículo ativo pela placa" )
+    void deveResolverIdPelaPlaca() {
 
-        assertThat( existe ).isTrue();
-        assertThat( naoExiste ).isFalse();
+        assertThat( veiculoRepository.findIdByPlacaAtivo( "ABC1234" ) ).contains( veiculo1.getId() );
+        assertThat( veiculoRepository.findIdByPlacaAtivo( veiculo3.getPlaca() ) ).isEmpty();
+        assertThat( veiculoRepository.findIdByPlacaAtivo( "ZZZ9999" ) ).isEmpty();
     }
 
 
     @Test
-    @DisplayName( "Deve validar placa duplicada excluindo o próprio ID" )
-    void deveValidarPlacaDuplicadaExcluindoProprioId() {
-
-        boolean duplicada = veiculoRepository.existsByPlacaAndAtivoTrueAndIdNot( "ABC1234", veiculo2.getId() );
-        boolean naoDuplicada = veiculoRepository.existsByPlacaAndAtivoTrueAndIdNot( "ABC1234", veiculo1.getId() );
-
-        assertThat( duplicada ).isTrue();
-        assertThat( naoDuplicada ).isFalse();
+    @DisplayName( "Deve ler só a versão e o updatedAt do veículo ativo" )
+    void deveLerVersaoDoVeiculoAtivo() {
+
+        assertThat( veiculoRepository.findVersaoByIdAndAtivoTrue( veiculo1.getId() ) ).hasValueSatisfying( versao -> {
+            assertThat( versao.getVersao() ).isEqualTo( veiculo1.getVersao() );
+            assertThat( versao.getUpdatedAt() ).isEqualTo( veiculo1.getUpdatedAt() );
+        } );
+        assertThat( veiculoRepository.findVersaoByIdAndAtivoTrue( veiculo3.getId() ) ).isEmpty();
     }
 
 
@@ -137,7 +155,7 @@ class VeiculoRepositoryTest {
 
         Pageable pageable = PageRequest.of( 0, 10 );
 
-        Page< Veiculo > result = veiculoRepository.findByFiltros( "Toyota", null, null, pageable );
+        Page< Veiculo > result = veiculoRepository.findByCriterios( "Toyota", null, null, null, null, pageable );
 
         assertThat( result.getContent() ).hasSize( 1 );
         assertThat( result.getContent().get( 0 ).getMarca() ).isEqualTo( "Toyota" );
@@ -150,7 +168,7 @@ class VeiculoRepositoryTest {
 
         Pageable pageable = PageRequest.of( 0, 10 );
 
-        Page< Veiculo > result = veiculoRepository.findByFiltros( null, 2023, null, pageable );
+        Page< Veiculo > result = veiculoRepository.findByCriterios( null, 2023, null, null, null, pageable );
 
         assertThat( result.getContent() ).hasSize( 2 );
         assertThat( result.getContent() ).allMatch( v -> v.getAno() == 2023 );
@@ -163,7 +181,7 @@ class VeiculoRepositoryTest {
 
         Pageable pageable = PageRequest.of( 0, 10 );
 
-        Page< Veiculo > result = veiculoRepository.findByFiltros( null, null, "Preto", pageable );
+        Page< Veiculo > result = veiculoRepository.findByCriterios( null, null, "Preto", null, null, pageable );
 
         assertThat( result.getContent() ).hasSize( 1 );
         assertThat( result.getContent().get( 0 ).getCor() ).isEqualToIgnoringCase( "Preto" );
@@ -176,7 +194,7 @@ class VeiculoRepositoryTest {
 
         Pageable pageable = PageRequest.of( 0, 10 );
 
-        Page< Veiculo > result = veiculoRepository.findByFiltros( "Toyota", 2023, "Preto", pageable );
+        Page< Veiculo > result = veiculoRepository.findByCriterios( "Toyota", 2023, "Preto", null, null, pageable );
 
         assertThat( result.getContent() ).hasSize( 1 );
         assertThat( result.getContent().get( 0 ).getPlaca() ).isEqualTo( "ABC1234" );
@@ -191,13 +209,27 @@ class VeiculoRepositoryTest {
         BigDecimal minPreco = new BigDecimal( "20000" );
         BigDecimal maxPreco = new BigDecimal( "26000" );
 
-        Page< Veiculo > result = veiculoRepository.findByPrecoRange( minPreco, maxPreco, pageable );
+        Page< Veiculo > result = veiculoRepository.findByCriterios( null, null, null, minPreco, maxPreco, pageable );
 
         assertThat( result.getContent() ).hasSize( 2 );
         assertThat( result.getContent() ).allMatch( v -> v.getPrecoUsd().compareTo( minPreco ) >= 0 && v.getPrecoUsd().compareTo( maxPreco ) <= 0 );
     }
 
 
+    @Test
+    @DisplayName( "Deve aplicar filtros e faixa de preço na mesma consulta" )
+    void deveCombinarFiltrosEFaixaDePreco() {
+
+        Pageable pageable = PageRequest.of( 0, 10 );
+
+        Page< Veiculo > semPreco = veiculoRepository.findByCriterios( null, 2023, null, null, null, pageable );
+        Page< Veiculo > comPreco = veiculoRepository.findByCriterios( null, 2023, null, new BigDecimal( "22000" ), null, pageable );
+
+        assertThat( semPreco.getContent() ).extracting( Veiculo::getPlaca ).containsExactlyInAnyOrder( "ABC1234", "XYZ5678" );
+        assertThat( comPreco.getContent() ).extracting( Veiculo::getPlaca ).containsExactly( "XYZ5678" );
+    }
+
+
     @Test
     @DisplayName( "Deve gerar relatório agrupado por marca" )
     void deveGerarRelatorioPorMarca() {
@@ -229,6 +261,128 @@ class VeiculoRepositoryTest {
         veiculoDuplicado.setAtivo( true );
 
         // Deve lançar exceção ao tentar salvar com placa duplicada
-        assertThat( veiculoRepository.existsByPlacaAndAtivoTrue( "ABC1234" ) ).isTrue();
+        assertThat( veiculoRepository.findIdByPlacaAtivo( "ABC1234" ) ).isPresent();
+    }
+
+
+    @Test
+    @DisplayName( "Deve paginar por cursor (keyset) sem repetir nem pular veículos" )
+    void devePaginarPorCursor() {
+
+        for ( int i = 0; i < 5; i++ ) {
+            Veiculo veiculo = new Veiculo();
+            veiculo.setMarca( i % 2 == 0 ? "Toyota" : "Honda" );
+            veiculo.setModelo( "Modelo " + i );
+            veiculo.setAno( 2020 + i );
+            veiculo.setCor( "Azul" );
+            veiculo.setPlaca( "KEY000" + i );
+            veiculo.setPrecoUsd( new BigDecimal( "10000.00" ) );
+            veiculo.setAtivo( true );
+            veiculoRepository.save( veiculo );
+        }
+
+        Sort sort = Sort.by( Sort.Direction.DESC, "marca" ).and( Sort.by( "id" ) );
+        List< Long > ids = new ArrayList<>();
+        KeysetScrollPosition posicao = ScrollPosition.keyset();
+        Window< Veiculo > window;
+        do {
+            window = veiculoRepository.scrollByAtivoTrue( posicao, sort, 3 );
+            window.forEach( veiculo -> ids.add( veiculo.getId() ) );
+            posicao = ( KeysetScrollPosition ) window.positionAt( window.size() - 1 );
+        } while ( window.hasNext() );
+
+        List< Long > esperado = veiculoRepository.findAll( VeiculoSpecifications.ativo(), sort ).stream().map( Veiculo::getId ).toList();
+        assertThat( ids ).hasSize( 7 ).containsExactlyElementsOf( esperado );
+    }
+
+
+    @Test
+    @DisplayName( "Deve paginar por cursor aplicando os filtros" )
+    void devePaginarPorCursorComFiltros() {
+
+        Window< Veiculo > window = veiculoRepository.scrollByCriterios( "toyota", null, null, null, null, ScrollPosition.keyset(), Sort.by( "id" ), 10 );
+
+        assertThat( window.getContent() ).extracting( Veiculo::getPlaca ).containsExactly( "ABC1234" );
+        assertThat( window.hasNext() ).isFalse();
+    }
+
+
+    @Test
+    @DisplayName( "Deve desativar só os ativos dentre os ids num único UPDATE, versionando as linhas" )
+    void deveDesativarEmMassa() {
+
+        List< Long > ids = List.of( veiculo1.getId(), veiculo3.getId(), -1L );
+        Long versaoAnterior = veiculo1.getVersao();
+
+        assertThat( veiculoRepository.findResumoParaDesativar( ids ) ).extracting( VeiculoResumo::getPlaca ).containsExactly( "ABC1234" );
+        int desativados = veiculoRepository.desativar( ids, LocalDateTime.now() );
+        entityManager.clear();
+
+        assertThat( desativados ).isEqualTo( 1 );
+        Veiculo removido = veiculoRepository.findById( veiculo1.getId() ).orElseThrow();
+        assertThat( removido.getAtivo() ).isFalse();
+        assertThat( removido.getVersao() ).isEqualTo( versaoAnterior + 1 );
+        assertThat( veiculoRepository.desativar( ids, LocalDateTime.now() ) ).isZero();
+    }
+
+
+    @Test
+    @DisplayName( "Deve atualizar só as colunas informadas, condicionado a ativo e à versão" )
+    void deveAtualizarColunasEmMassa() {
+
+        Long id = veiculo2.getId();
+        Long versao = veiculo2.getVersao();
+
+        assertThat( veiculoRepository.atualizarColunas( id, null, 2024, " Azul ", "azul", null, versao + 1, LocalDateTime.now() ) ).isZero();
+        assertThat( veiculoRepository.atualizarColunas( veiculo3.getId(), null, 2024, null, null, null, null, LocalDateTime.now() ) ).isZero();
+        assertThat( veiculoRepository.atualizarColunas( id, null, 2024, " Azul ", "azul", null, versao, LocalDateTime.now() ) ).isEqualTo( 1 );
+        entityManager.clear();
+
+        Veiculo atualizado = veiculoRepository.findById( id ).orElseThrow();
+        assertThat( atualizado.getAno() ).isEqualTo( 2024 );
+        assertThat( atualizado.getCorNormalizada() ).isEqualTo( "azul" );
+        assertThat( atualizado.getModelo() ).isEqualTo( "Civic" );
+        assertThat( atualizado.getPrecoUsd() ).isEqualByComparingTo( "25000.00" );
+        assertThat( atualizado.getVersao() ).isEqualTo( versao + 1 );
+    }
+
+
+    @Test
+    @DisplayName( "Deve filtrar ignorando caixa e espaços pelas colunas normalizadas" )
+    void deveFiltrarPelasColunasNormalizadas() {
+
+        Page< Veiculo > result = veiculoRepository.findByCriterios( "  TOYOTA ", null, "preto", null, null, PageRequest.of( 0, 10 ) );
+
+        assertThat( result.getContent() ).extracting( Veiculo::getPlaca ).containsExactly( "ABC1234" );
+        assertThat( veiculo1.getMarcaNormalizada() ).isEqualTo( "toyota" );
+    }
+
+
+    @Test
+    @Transactional( propagation = Propagation.NOT_SUPPORTED )
+    @DisplayName( "EXPLAIN - A consulta gerada pelo filtro de marca usa o índice da coluna normalizada" )
+    void filtroNormalizadoDeveUsarIndice() {
+
+        // DDL no H2 confirma a transação corrente: o teste roda fora da transação do @DataJpaTest e limpa os dados no final
+        JdbcTemplate jdbcTemplate = new JdbcTemplate( dataSource );
+        try {
+            // O H2 não tem índice parcial: cria o equivalente simples do idx_veiculos_marca_ativos (schema-postgresql.sql)
+            jdbcTemplate.execute( "CREATE INDEX IF NOT EXISTS idx_veiculos_marca_ativos ON veiculos (marca_normalizada)" );
+
+            SqlCapturado.limpar();
+            veiculoRepository.findAll( VeiculoSpecifications.comFiltros( "Toyota", null, null ) );
+            String sql = SqlCapturado.ultimo( "select" );
+
+            // Sem LOWER() na coluna e com ativo fora dos parâmetros: o único parâmetro é a marca, e o predicado sobre ativo
+            // fica no texto da consulta, como o Postgres precisa para casar com o WHERE ativo = true dos índices parciais
+            assertThat( sql ).doesNotContainIgnoringCase( "lower(" ).containsIgnoringCase( "ativo" );
+            assertThat( sql.chars().filter( c -> c == '?' ).count() ).isEqualTo( 1 );
+
+            String plano = jdbcTemplate.queryForObject( "EXPLAIN " + sql, String.class, "toyota" );
+            assertThat( plano ).containsIgnoringCase( "IDX_VEICULOS_MARCA_ATIVOS" );
+        } finally {
+            jdbcTemplate.execute( "DROP INDEX IF EXISTS idx_veiculos_marca_ativos" );
+            veiculoRepository.deleteAll();
+        }
     }
-}
\ No newline at end of file
+}
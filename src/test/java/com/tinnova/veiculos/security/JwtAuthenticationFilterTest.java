@@ -0,0 +1,155 @@
+package com.tinnova.veiculos.security;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import com.tinnova.veiculos.entity.Usuario;
+import com.tinnova.veiculos.enums.Role;
+import com.tinnova.veiculos.service.UsuarioService;
+import com.tinnova.veiculos.service.UsuarioStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+@ExtendWith( MockitoExtension.class )
+@DisplayName( "Testes do JwtAuthenticationFilter" )
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "segredo-de-teste-com-pelo-menos-256-bits-1234567890";
+
+    @Mock
+    private UsuarioService usuarioService;
+
+    private JwtUtil jwtUtil;
+
+    private JwtAuthenticationFilter filter;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private Usuario admin;
+
+    @BeforeEach
+    void setUp() {
+
+        jwtUtil = new JwtUtil( SECRET, 60_000L, 100 );
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new JwtAuthenticationFilter( jwtUtil, usuarioService, meterRegistry );
+
+        admin = new Usuario();
+        admin.setUsername( "admin" );
+        admin.setRole( Role.ADMIN );
+        admin.setVersao( 1L );
+    }
+
+
+    @AfterEach
+    void tearDown() {
+
+        SecurityContextHolder.clearContext();
+    }
+
+
+    @Test
+    @DisplayName( "Deve autenticar pelas claims do token sem carregar o usuário do banco" )
+    void deveAutenticarPelasClaims()
+        throws Exception {
+
+        when( usuarioService.getStatus( "admin" ) ).thenReturn( new UsuarioStatus( true, 1L ) );
+
+        filtrar( jwtUtil.generateToken( admin ) );
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat( authentication ).isNotNull();
+        assertThat( authentication.getName() ).isEqualTo( "admin" );
+        assertThat( authentication.getAuthorities() ).extracting( GrantedAuthority::getAuthority ).containsExactly( "ROLE_ADMIN" );
+        verify( usuarioService, never() ).loadUserByUsername( anyString() );
+    }
+
+
+    @Test
+    @DisplayName( "Não deve autenticar usuário desativado" )
+    void naoDeveAutenticarUsuarioDesativado()
+        throws Exception {
+
+        when( usuarioService.getStatus( "admin" ) ).thenReturn( new UsuarioStatus( false, 2L ) );
+
+        filtrar( jwtUtil.generateToken( admin ) );
+
+        assertThat( SecurityContextHolder.getContext().getAuthentication() ).isNull();
+    }
+
+
+    @Test
+    @DisplayName( "Não deve autenticar token emitido para uma versão anterior do usuário" )
+    void naoDeveAutenticarTokenDeVersaoAnterior()
+        throws Exception {
+
+        when( usuarioService.getStatus( "admin" ) ).thenReturn( new UsuarioStatus( true, 2L ) );
+
+        filtrar( jwtUtil.generateToken( admin ) );
+
+        assertThat( SecurityContextHolder.getContext().getAuthentication() ).isNull();
+    }
+
+
+    @Test
+    @DisplayName( "Deve registrar o tempo de autenticação por resultado" )
+    void deveRegistrarTempoDeAutenticacao()
+        throws Exception {
+
+        when( usuarioService.getStatus( "admin" ) ).thenReturn( new UsuarioStatus( true, 1L ) );
+
+        filtrar( jwtUtil.generateToken( admin ) );
+        SecurityContextHolder.clearContext();
+        filtrar( "token-invalido" );
+
+        assertThat( meterRegistry.get( "jwt.filtro" ).tag( "resultado", "autenticado" ).timer().count() ).isEqualTo( 1 );
+        assertThat( meterRegistry.get( "jwt.filtro" ).tag( "resultado", "invalido" ).timer().count() ).isEqualTo( 1 );
+    }
+
+
+    @Test
+    @DisplayName( "Deve carregar o usuário do banco quando o token não tiver as claims de autorização" )
+    void deveCarregarUsuarioQuandoTokenNaoTiverClaims()
+        throws Exception {
+
+        User semVersao = new User( "admin", "senha", List.of() );
+        when( usuarioService.loadUserByUsername( "admin" ) ).thenReturn( admin );
+
+        filtrar( jwtUtil.generateToken( semVersao ) );
+
+        assertThat( SecurityContextHolder.getContext().getAuthentication() ).isNotNull();
+        verify( usuarioService ).loadUserByUsername( "admin" );
+        verify( usuarioService, never() ).getStatus( anyString() );
+    }
+
+
+    private void filtrar( String token )
+        throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest( "GET", "/veiculos" );
+        request.addHeader( "Authorization", "Bearer " + token );
+        filter.doFilter( request, new MockHttpServletResponse(), new MockFilterChain() );
+    }
+}
@@ -0,0 +1,97 @@
+package com.tinnova.veiculos.security;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.tinnova.veiculos.entity.Usuario;
+import com.tinnova.veiculos.enums.Role;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+
+@DisplayName( "Testes do JwtUtil" )
+class JwtUtilTest {
+
+    private static final String SECRET = "segredo-de-teste-com-pelo-menos-256-bits-1234567890";
+
+    private final UserDetails usuario = new User( "admin", "senha", List.of() );
+
+    @Test
+    @DisplayName( "Deve verificar o token e reaproveitar o resultado nas requisições seguintes" )
+    void deveReaproveitarTokenVerificado() {
+
+        JwtUtil jwtUtil = new JwtUtil( SECRET, 60_000L, 100 );
+        String token = jwtUtil.generateToken( usuario );
+
+        TokenVerificado primeiro = jwtUtil.verificarToken( token );
+        TokenVerificado segundo = jwtUtil.verificarToken( token );
+
+        assertThat( primeiro.getUsername() ).isEqualTo( "admin" );
+        assertThat( primeiro.isExpirado() ).isFalse();
+        assertThat( segundo ).isSameAs( primeiro );
+        assertThat( jwtUtil.validateToken( token, usuario ) ).isTrue();
+    }
+
+
+    @Test
+    @DisplayName( "Deve embutir papéis e versão do usuário nas claims" )
+    void deveEmbutirPapeisEVersaoNasClaims() {
+
+        Usuario admin = new Usuario();
+        admin.setUsername( "admin" );
+        admin.setRole( Role.ADMIN );
+        admin.setVersao( 3L );
+
+        JwtUtil jwtUtil = new JwtUtil( SECRET, 60_000L, 100 );
+        TokenVerificado token = jwtUtil.verificarToken( jwtUtil.generateToken( admin ) );
+
+        assertThat( token.hasClaimsDeAutorizacao() ).isTrue();
+        assertThat( token.getRoles() ).containsExactly( "ROLE_ADMIN" );
+        assertThat( token.getVersao() ).isEqualTo( 3L );
+    }
+
+
+    @Test
+    @DisplayName( "Deve rejeitar token com assinatura adulterada" )
+    void deveRejeitarTokenAdulterado() {
+
+        JwtUtil jwtUtil = new JwtUtil( SECRET, 60_000L, 100 );
+        String token = jwtUtil.generateToken( usuario );
+        String adulterado = token.substring( 0, token.length() - 2 ) + ( token.endsWith( "AA" ) ? "BB" : "AA" );
+
+        assertThatThrownBy( () -> jwtUtil.verificarToken( adulterado ) ).isInstanceOf( SignatureException.class );
+    }
+
+
+    @Test
+    @DisplayName( "Deve rejeitar token expirado" )
+    void deveRejeitarTokenExpirado() {
+
+        JwtUtil jwtUtil = new JwtUtil( SECRET, -1_000L, 100 );
+        String token = jwtUtil.generateToken( usuario );
+
+        assertThatThrownBy( () -> jwtUtil.verificarToken( token ) ).isInstanceOf( ExpiredJwtException.class );
+    }
+
+
+    @Test
+    @DisplayName( "Não deve aceitar token assinado com outra chave mesmo após cachear o original" )
+    void naoDeveAceitarTokenDeOutraChave() {
+
+        JwtUtil jwtUtil = new JwtUtil( SECRET, 60_000L, 100 );
+        JwtUtil outraChave = new JwtUtil( SECRET + "-outra", 60_000L, 100 );
+
+        jwtUtil.verificarToken( jwtUtil.generateToken( usuario ) );
+
+        assertThatThrownBy( () -> jwtUtil.verificarToken( outraChave.generateToken( usuario ) ) ).isInstanceOf( SignatureException.class );
+    }
+}
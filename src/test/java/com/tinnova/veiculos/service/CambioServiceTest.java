@@ -2,51 +2,63 @@ package com.tinnova.veiculos.service;
 
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import reactor.core.publisher.Mono;
+import com.tinnova.veiculos.service.parser.AwesomeApiCotacaoParser;
+import com.tinnova.veiculos.service.parser.FrankfurterCotacaoParser;
+import com.tinnova.veiculos.support.StubHttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 
-@ExtendWith( MockitoExtension.class )
 @DisplayName( "Testes do CambioService" )
 class CambioServiceTest {
 
-    @Mock
-    private WebClient.Builder webClientBuilder;
-
-    @Mock
-    private WebClient webClient;
+    private static final String RESPOSTA_AWESOME = "{\"USDBRL\":{\"bid\":\"5.25\"}}";
 
-    @Mock
-    private WebClient.RequestHeadersUriSpec requestHeadersUriSpec;
+    private static final String RESPOSTA_FRANKFURTER = "{\"rates\":{\"BRL\":5.30}}";
 
-    @Mock
-    private WebClient.RequestHeadersSpec requestHeadersSpec;
+    private StubHttpServer awesomeApi;
 
-    @Mock
-    private WebClient.ResponseSpec responseSpec;
+    private StubHttpServer frankfurter;
 
-    @InjectMocks
     private CambioService cambioService;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
-    void setUp() {
+    void setUp()
+        throws Exception {
+
+        awesomeApi = StubHttpServer.iniciar().respondendo( 200, RESPOSTA_AWESOME );
+        frankfurter = StubHttpServer.iniciar().respondendo( 200, RESPOSTA_FRANKFURTER );
+        meterRegistry = new SimpleMeterRegistry();
+
+        cambioService = new CambioService( WebClient.create(), new AwesomeApiCotacaoParser(), new FrankfurterCotacaoParser(), meterRegistry );
+        ReflectionTestUtils.setField( cambioService, "primaryApiUrl", awesomeApi.url( "/json/last/USD-BRL" ) );
+        ReflectionTestUtils.setField( cambioService, "fallbackApiUrl", frankfurter.url( "/latest?from=USD&to=BRL" ) );
+        ReflectionTestUtils.setField( cambioService, "primaryTimeout", Duration.ofSeconds( 2 ) );
+        ReflectionTestUtils.setField( cambioService, "fallbackTimeout", Duration.ofSeconds( 2 ) );
+        // Hedge longo: a primeira chamada (fria) à principal não pode perder para o fallback fora do teste de hedge
+        ReflectionTestUtils.setField( cambioService, "hedgeDelay", Duration.ofSeconds( 5 ) );
+    }
+
+
+    @AfterEach
+    void tearDown() {
 
-        ReflectionTestUtils.setField( cambioService, "primaryApiUrl", "https://economia.awesomeapi.com.br/json/last/USD-BRL" );
-        ReflectionTestUtils.setField( cambioService, "fallbackApiUrl", "https://api.frankfurter.app/latest?from=USD&to=BRL" );
+        awesomeApi.close();
+        frankfurter.close();
     }
 
 
@@ -54,18 +66,10 @@ class CambioServiceTest {
     @DisplayName( "Deve buscar cotação do dólar com sucesso da API principal" )
     void deveBuscarCotacaoComSucesso() {
 
-        String mockResponse = "{\"USDBRL\":{\"bid\":\"5.25\"}}";
-
-        when( webClientBuilder.build() ).thenReturn( webClient );
-        when( webClient.get() ).thenReturn( requestHeadersUriSpec );
-        when( requestHeadersUriSpec.uri( anyString() ) ).thenReturn( requestHeadersSpec );
-        when( requestHeadersSpec.retrieve() ).thenReturn( responseSpec );
-        when( responseSpec.bodyToMono( String.class ) ).thenReturn( Mono.just( mockResponse ) );
-
         BigDecimal cotacao = cambioService.getCotacaoDolar();
 
         assertThat( cotacao ).isEqualByComparingTo( new BigDecimal( "5.25" ) );
-        verify( webClientBuilder, times( 1 ) ).build();
+        assertThat( frankfurter.getRequisicoes() ).isZero();
     }
 
 
@@ -73,19 +77,71 @@ class CambioServiceTest {
     @DisplayName( "Deve usar API de fallback quando a principal falhar" )
     void deveUsarFallbackQuandoPrincipalFalhar() {
 
-        String mockFallbackResponse = "{\"rates\":{\"BRL\":5.30}}";
+        awesomeApi.respondendo( 503, "{\"erro\":\"indisponível\"}" );
 
-        // Primeira chamada falha
-        when( webClientBuilder.build() ).thenReturn( webClient );
-        when( webClient.get() ).thenReturn( requestHeadersUriSpec );
-        when( requestHeadersUriSpec.uri( anyString() ) ).thenReturn( requestHeadersSpec );
-        when( requestHeadersSpec.retrieve() ).thenReturn( responseSpec );
-        when( responseSpec.bodyToMono( String.class ) ).thenThrow( new RuntimeException( "API principal indisponível" ) )
-            .thenReturn( Mono.just( mockFallbackResponse ) );
+        BigDecimal cotacao = cambioService.getCotacaoDolar();
 
+        assertThat( cotacao ).isEqualByComparingTo( new BigDecimal( "5.30" ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve registrar latência e resultado por provedor e o acionamento do fallback" )
+    void deveRegistrarMetricasPorProvedor() {
+
+        awesomeApi.respondendo( 503, "{\"erro\":\"indisponível\"}" );
+
+        cambioService.getCotacaoDolar();
+
+        assertThat( meterRegistry.get( "cambio.provedor" ).tags( "provedor", "AwesomeAPI", "resultado", "erro" ).timer().count() ).isEqualTo( 1 );
+        assertThat( meterRegistry.get( "cambio.provedor" ).tags( "provedor", "Frankfurter", "resultado", "sucesso" ).timer().count() ).isEqualTo( 1 );
+        assertThat( meterRegistry.get( "cambio.fallback" ).counter().count() ).isEqualTo( 1 );
+    }
+
+
+    @Test
+    @DisplayName( "Deve usar API de fallback quando a principal devolver cotação inválida" )
+    void deveUsarFallbackQuandoPrincipalDevolverCotacaoInvalida() {
+
+        awesomeApi.respondendo( 200, "{\"USDBRL\":{}}" );
+
+        BigDecimal cotacao = cambioService.getCotacaoDolar();
+
+        assertThat( cotacao ).isEqualByComparingTo( new BigDecimal( "5.30" ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve disparar o fallback em paralelo quando a principal exceder o orçamento de latência" )
+    void deveDispararFallbackQuandoPrincipalDemorar() {
+
+        awesomeApi.comAtraso( Duration.ofSeconds( 30 ) );
+        ReflectionTestUtils.setField( cambioService, "primaryTimeout", Duration.ofSeconds( 8 ) );
+        ReflectionTestUtils.setField( cambioService, "hedgeDelay", Duration.ofMillis( 300 ) );
+
+        long inicio = System.nanoTime();
         BigDecimal cotacao = cambioService.getCotacaoDolar();
+        Duration decorrido = Duration.ofNanos( System.nanoTime() - inicio );
 
         assertThat( cotacao ).isEqualByComparingTo( new BigDecimal( "5.30" ) );
+        // Não espera o timeout da principal (8s): responde logo após o hedge-delay
+        assertThat( decorrido ).isLessThan( Duration.ofSeconds( 5 ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve lançar exceção quando nenhuma API responder dentro do timeout" )
+    void deveLancarExcecaoQuandoNenhumaApiResponder() {
+
+        awesomeApi.comAtraso( Duration.ofSeconds( 30 ) );
+        frankfurter.comAtraso( Duration.ofSeconds( 30 ) );
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy( () -> cambioService.getCotacaoDolar() ).isInstanceOf( RuntimeException.class )
+            .hasMessageContaining( "Erro ao buscar cotação do dólar" );
+
+        // Os timeouts por provedor encerram a espera bem antes das APIs travadas responderem
+        assertThat( Duration.ofNanos( System.nanoTime() - inicio ) ).isLessThan( Duration.ofSeconds( 10 ) );
     }
 
 
@@ -93,13 +149,7 @@ class CambioServiceTest {
     @DisplayName( "Deve converter BRL para USD corretamente" )
     void deveConverterBrlParaUsd() {
 
-        String mockResponse = "{\"USDBRL\":{\"bid\":\"5.00\"}}";
-
-        when( webClientBuilder.build() ).thenReturn( webClient );
-        when( webClient.get() ).thenReturn( requestHeadersUriSpec );
-        when( requestHeadersUriSpec.uri( anyString() ) ).thenReturn( requestHeadersSpec );
-        when( requestHeadersSpec.retrieve() ).thenReturn( responseSpec );
-        when( responseSpec.bodyToMono( String.class ) ).thenReturn( Mono.just( mockResponse ) );
+        awesomeApi.respondendo( 200, "{\"USDBRL\":{\"bid\":\"5.00\"}}" );
 
         BigDecimal valorBrl = new BigDecimal( "100.00" );
         BigDecimal valorUsd = cambioService.convertBrlToUsd( valorBrl );
@@ -112,17 +162,11 @@ class CambioServiceTest {
     @DisplayName( "Deve converter USD para BRL corretamente" )
     void deveConverterUsdParaBrl() {
 
-        String mockResponse = "{\"USDBRL\":{\"bid\":\"5.00\"}}";
-
-        when( webClientBuilder.build() ).thenReturn( webClient );
-        when( webClient.get() ).thenReturn( requestHeadersUriSpec );
-        when( requestHeadersUriSpec.uri( anyString() ) ).thenReturn( requestHeadersSpec );
-        when( requestHeadersSpec.retrieve() ).thenReturn( responseSpec );
-        when( responseSpec.bodyToMono( String.class ) ).thenReturn( Mono.just( mockResponse ) );
+        awesomeApi.respondendo( 200, "{\"USDBRL\":{\"bid\":\"5.00\"}}" );
 
         BigDecimal valorUsd = new BigDecimal( "20.00" );
         BigDecimal valorBrl = cambioService.convertUsdToBrl( valorUsd );
 
         assertThat( valorBrl ).isEqualByComparingTo( new BigDecimal( "100.00" ) );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.tinnova.veiculos.service;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+@DisplayName( "Testes do CotacaoSnapshot" )
+class CotacaoSnapshotTest {
+
+    private static final String[] COTACOES = { "5.2534", "5.30", "4.98765", "5", "0.0001", "123456.123456789", "5.123456789012345678", "0.123456789012345678" };
+
+    @Test
+    @DisplayName( "Deve arredondar em HALF_UP exatamente como a conversão em BigDecimal" )
+    void deveArredondarComoBigDecimal() {
+
+        CotacaoSnapshot cotacao = CotacaoSnapshot.of( new BigDecimal( "5.00" ) );
+
+        assertThat( cotacao.toBrl( new BigDecimal( "0.001" ) ) ).isEqualTo( new BigDecimal( "0.01" ) );
+        assertThat( cotacao.toBrl( new BigDecimal( "-0.001" ) ) ).isEqualTo( new BigDecimal( "-0.01" ) );
+        assertThat( cotacao.toUsd( new BigDecimal( "0.025" ) ) ).isEqualTo( new BigDecimal( "0.01" ) );
+        assertThat( cotacao.toUsd( new BigDecimal( "0.024" ) ) ).isEqualTo( new BigDecimal( "0.00" ) );
+        assertThat( cotacao.toUsd( new BigDecimal( "100000.00" ) ) ).isEqualTo( new BigDecimal( "20000.00" ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve produzir o mesmo valor e escala que BigDecimal para valores aleatórios" )
+    void deveCoincidirComBigDecimalEmValoresAleatorios() {
+
+        Random random = new Random( 42 );
+        for ( String valorCotacao : COTACOES ) {
+            BigDecimal taxa = new BigDecimal( valorCotacao );
+            CotacaoSnapshot cotacao = CotacaoSnapshot.of( taxa );
+
+            for ( int i = 0; i < 20_000; i++ ) {
+                // Metade em faixa de preço realista, metade no intervalo inteiro de long (exercita o estouro)
+                long unscaled = i % 2 == 0 ? random.nextLong() % 10_000_000_000L : random.nextLong();
+                BigDecimal valor = BigDecimal.valueOf( unscaled, random.nextInt( 5 ) );
+
+                assertThat( cotacao.toBrl( valor ) ).isEqualTo( valor.multiply( taxa ).setScale( 2, RoundingMode.HALF_UP ) );
+                assertThat( cotacao.toUsd( valor ) ).isEqualTo( valor.divide( taxa, 2, RoundingMode.HALF_UP ) );
+            }
+        }
+    }
+
+
+    @Test
+    @DisplayName( "Deve recorrer a BigDecimal quando os valores não cabem em long" )
+    void deveRecorrerABigDecimalNoEstouro() {
+
+        CotacaoSnapshot cotacao = CotacaoSnapshot.of( new BigDecimal( "5.2534" ) );
+        BigDecimal[] valores = { new BigDecimal( "92233720368547758.07" ), new BigDecimal( "-92233720368547758.08" ),
+            new BigDecimal( new BigInteger( "123456789012345678901234567890" ), 2 ), new BigDecimal( "1E+5" ), new BigDecimal( "0.0000000000000000001" ) };
+
+        for ( BigDecimal valor : valores ) {
+            assertThat( cotacao.toBrl( valor ) ).isEqualTo( valor.multiply( cotacao.getCotacao() ).setScale( 2, RoundingMode.HALF_UP ) );
+            assertThat( cotacao.toUsd( valor ) ).isEqualTo( valor.divide( cotacao.getCotacao(), 2, RoundingMode.HALF_UP ) );
+        }
+
+        BigDecimal cotacaoGrande = new BigDecimal( "12345678901234567890.5" );
+        BigDecimal valor = new BigDecimal( "1000.00" );
+        assertThat( CotacaoSnapshot.of( cotacaoGrande ).toBrl( valor ) ).isEqualTo( valor.multiply( cotacaoGrande ).setScale( 2, RoundingMode.HALF_UP ) );
+        assertThat( CotacaoSnapshot.of( cotacaoGrande ).toUsd( valor ) ).isEqualTo( valor.divide( cotacaoGrande, 2, RoundingMode.HALF_UP ) );
+    }
+}
@@ -0,0 +1,101 @@
+package com.tinnova.veiculos.service;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
+import com.tinnova.veiculos.entity.MarcaContagem;
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.repository.MarcaContagemRepository;
+import com.tinnova.veiculos.repository.VeiculoRepository;
+
+
+// Banco próprio no modo PostgreSQL em vez do embutido do @DataJpaTest: criarSeAusente usa INSERT ... ON CONFLICT
+@DataJpaTest( properties = "spring.datasource.url=jdbc:h2:mem:marca_contagem;MODE=PostgreSQL" )
+@AutoConfigureTestDatabase( replace = AutoConfigureTestDatabase.Replace.NONE )
+@Import( MarcaContagemService.class )
+@ActiveProfiles( "test" )
+@DisplayName( "Testes do MarcaContagemService" )
+class MarcaContagemServiceTest {
+
+    @Autowired
+    private MarcaContagemService marcaContagemService;
+
+    @Autowired
+    private MarcaContagemRepository marcaContagemRepository;
+
+    @Autowired
+    private VeiculoRepository veiculoRepository;
+
+    @BeforeEach
+    void setUp() {
+
+        marcaContagemRepository.deleteAll();
+        veiculoRepository.deleteAll();
+    }
+
+
+    @Test
+    @DisplayName( "Deve manter a contagem por marca a cada cadastro, troca de marca e remoção" )
+    void deveManterContagemIncremental() {
+
+        marcaContagemService.registrar( "Toyota", 1 );
+        marcaContagemService.registrar( "Toyota", 1 );
+        marcaContagemService.registrar( "Honda", 1 );
+        marcaContagemService.alterarMarca( "Toyota", "Ford" );
+        marcaContagemService.registrar( "Honda", -1 );
+
+        List< RelatorioMarcaResponse > relatorio = marcaContagemService.getRelatorio();
+
+        assertThat( relatorio ).extracting( RelatorioMarcaResponse::getMarca ).containsExactlyInAnyOrder( "Toyota", "Ford" );
+        assertThat( relatorio ).allMatch( item -> item.getQuantidade() == 1L );
+    }
+
+
+    @Test
+    @DisplayName( "Deve detectar e corrigir divergências na reconciliação" )
+    void deveReconciliarDivergencias() {
+
+        salvarVeiculo( "AAA0001", "Toyota", true );
+        salvarVeiculo( "AAA0002", "Toyota", true );
+        salvarVeiculo( "AAA0003", "Honda", true );
+        salvarVeiculo( "AAA0004", "Honda", false );
+
+        marcaContagemRepository.save( new MarcaContagem( "Toyota", 5L ) );
+        marcaContagemRepository.save( new MarcaContagem( "Fiat", 3L ) );
+
+        int divergentes = marcaContagemService.reconciliar();
+
+        assertThat( divergentes ).isEqualTo( 3 );
+        assertThat( marcaContagemService.getRelatorio() ).extracting( RelatorioMarcaResponse::getMarca, RelatorioMarcaResponse::getQuantidade )
+            .containsExactly( tuple( "Toyota", 2L ), tuple( "Honda", 1L ) );
+        assertThat( marcaContagemService.reconciliar() ).isZero();
+    }
+
+
+    private void salvarVeiculo( String placa, String marca, boolean ativo ) {
+
+        Veiculo veiculo = new Veiculo();
+        veiculo.setMarca( marca );
+        veiculo.setModelo( "Modelo" );
+        veiculo.setAno( 2023 );
+        veiculo.setCor( "Preto" );
+        veiculo.setPlaca( placa );
+        veiculo.setPrecoUsd( new BigDecimal( "10000.00" ) );
+        veiculo.setAtivo( ativo );
+        veiculoRepository.save( veiculo );
+    }
+}
@@ -0,0 +1,360 @@
+package com.tinnova.veiculos.service;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.tinnova.veiculos.dto.request.VeiculoRequest;
+import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.entity.VeiculoEvento;
+import com.tinnova.veiculos.enums.TipoEventoVeiculo;
+import com.tinnova.veiculos.exception.DuplicatePlacaException;
+import com.tinnova.veiculos.exception.VersaoDivergenteException;
+import com.tinnova.veiculos.repository.MarcaContagemRepository;
+import com.tinnova.veiculos.repository.VeiculoEventoRepository;
+import com.tinnova.veiculos.repository.VeiculoRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+
+// Várias threads escrevendo nos mesmos veículos contra o banco real (H2): nenhuma escrita pode sumir sem erro
+@SpringBootTest
+@ActiveProfiles( "test" )
+@DisplayName( "Testes de concorrência do VeiculoService" )
+class VeiculoConcorrenciaTest {
+
+    private static final int THREADS = 8;
+
+    private static final int INCREMENTOS_POR_THREAD = 10;
+
+    @Autowired
+    private VeiculoService veiculoService;
+
+    @Autowired
+    private VeiculoRepository veiculoRepository;
+
+    @Autowired
+    private MarcaContagemRepository marcaContagemRepository;
+
+    @Autowired
+    private VeiculoEventoRepository veiculoEventoRepository;
+
+    @Autowired
+    private MarcaContagemService marcaContagemService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockBean
+    private CambioService cambioService;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+
+        veiculoRepository.deleteAllInBatch();
+        marcaContagemRepository.deleteAllInBatch();
+        veiculoEventoRepository.deleteAllInBatch();
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        executor = Executors.newFixedThreadPool( THREADS );
+    }
+
+
+    @AfterEach
+    void tearDown() {
+
+        executor.shutdownNow();
+    }
+
+
+    @Test
+    @DisplayName( "Incrementos com If-Match e nova tentativa no conflito não perdem nenhuma atualização" )
+    void naoDevePerderIncrementosComIfMatch()
+        throws Exception {
+
+        List< Long > ids = List.of( criar( "AAA0001" ), criar( "AAA0002" ) );
+        AtomicInteger conflitos = new AtomicInteger();
+
+        executarEmParalelo( thread -> {
+            Long id = ids.get( thread % ids.size() );
+            for ( int i = 0; i < INCREMENTOS_POR_THREAD; i++ ) {
+                incrementarAno( id, conflitos );
+            }
+            return null;
+        } );
+
+        // Metade das threads em cada veículo: todos os incrementos aplicados, uma versão por escrita confirmada.
+        // Lido do banco (consulta, não findById): o segundo nível guardaria o que as threads deixaram nele, não o que foi gravado
+        int incrementosPorVeiculo = THREADS / ids.size() * INCREMENTOS_POR_THREAD;
+        for ( Long id : ids ) {
+            Veiculo veiculo = veiculoRepository.recarregarAtivo( id ).orElseThrow();
+            assertThat( veiculo.getAno() ).isEqualTo( 2000 + incrementosPorVeiculo );
+            assertThat( veiculo.getVersao() ).isEqualTo( incrementosPorVeiculo );
+        }
+        assertThat( conflitos.get() ).isPositive();
+    }
+
+
+    @Test
+    @DisplayName( "Escritas sem If-Match sobre o mesmo veículo terminam em sucesso ou conflito, nunca em sobrescrita silenciosa" )
+    void deveDetectarEscritasConcorrentesSemIfMatch()
+        throws Exception {
+
+        Long id = criar( "BBB0001" );
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger conflitos = new AtomicInteger();
+
+        executarEmParalelo( thread -> {
+            for ( int i = 0; i < INCREMENTOS_POR_THREAD; i++ ) {
+                // Com a marca, o PATCH passa pela entidade (ler, alterar, gravar com @Version)
+                VeiculoRequest request = new VeiculoRequest();
+                request.setMarca( "Toyota" );
+                request.setCor( "Cor " + thread + "-" + i );
+                try {
+                    veiculoService.partialUpdate( id, request, null );
+                    sucessos.incrementAndGet();
+                } catch ( OptimisticLockingFailureException e ) {
+                    conflitos.incrementAndGet();
+                }
+            }
+            return null;
+        } );
+
+        assertThat( sucessos.get() + conflitos.get() ).isEqualTo( THREADS * INCREMENTOS_POR_THREAD );
+        assertThat( veiculoRepository.findById( id ).orElseThrow().getVersao() ).isEqualTo( sucessos.get() );
+    }
+
+
+    @Test
+    @DisplayName( "PATCH só de colunas sem If-Match é um UPDATE atômico: nenhuma escrita concorrente falha ou se perde" )
+    void naoDeveConflitarAtualizacaoDeColunas()
+        throws Exception {
+
+        Long id = criar( "BBB0002" );
+
+        executarEmParalelo( thread -> {
+            for ( int i = 0; i < INCREMENTOS_POR_THREAD; i++ ) {
+                VeiculoRequest request = new VeiculoRequest();
+                request.setCor( "Cor " + thread + "-" + i );
+                veiculoService.partialUpdate( id, request, null );
+            }
+            return null;
+        } );
+
+        assertThat( veiculoRepository.recarregarAtivo( id ).orElseThrow().getVersao() ).isEqualTo( THREADS * INCREMENTOS_POR_THREAD );
+    }
+
+
+    @Test
+    @DisplayName( "A resposta do PATCH só de colunas traz a versão gravada, mesmo com o veículo no segundo nível" )
+    void deveResponderPatchDeColunasComVersaoGravada() {
+
+        Long id = criar( "BBB0003" );
+        // Leitura por id: deixa no segundo nível a cópia da versão 0
+        veiculoService.findById( id ).getCorpo();
+
+        VeiculoRequest request = new VeiculoRequest();
+        request.setAno( 2001 );
+        Versionado< VeiculoResponse > resposta = veiculoService.partialUpdate( id, request, 0L );
+
+        assertThat( Versionado.versao( resposta.getEtag() ) ).isEqualTo( 1L );
+        assertThat( resposta.getCorpo().getAno() ).isEqualTo( 2001 );
+    }
+
+
+    @Test
+    @DisplayName( "GET por id com o segundo nível desatualizado serve a linha do banco, no corpo da versão do ETag" )
+    void deveServirLinhaDoBancoQuandoSegundoNivelEstiverDesatualizado() {
+
+        Long id = criar( "BBB0004" );
+        veiculoService.corpo( veiculoService.findById( id ) );
+        assertThat( entityManagerFactory.getCache().contains( Veiculo.class, id ) ).isTrue();
+        // Escrita por fora do Hibernate: o segundo nível continua com a versão 0
+        new JdbcTemplate( dataSource ).update( "UPDATE veiculos SET ano = 2001, versao = 1 WHERE id = ?", id );
+
+        Versionado< VeiculoResponse > resposta = veiculoService.findById( id );
+
+        assertThat( Versionado.versao( resposta.getEtag() ) ).isEqualTo( 1L );
+        assertThat( veiculoService.corpo( resposta ).getAno() ).isEqualTo( 2001 );
+    }
+
+
+    @Test
+    @DisplayName( "Remoções em lote sobrepostas desativam cada veículo uma única vez" )
+    void deveRemoverCadaVeiculoUmaVezEntreLotesSimultaneos()
+        throws Exception {
+
+        List< Long > ids = new ArrayList<>();
+        for ( int i = 0; i < 20; i++ ) {
+            ids.add( criar( String.format( "DDD%04d", i ) ) );
+        }
+        AtomicInteger removidos = new AtomicInteger();
+
+        executarEmParalelo( thread -> {
+            removidos.addAndGet( veiculoService.removerLote( ids ).getRemovidos() );
+            return null;
+        } );
+
+        assertThat( removidos.get() ).isEqualTo( ids.size() );
+        assertThat( veiculoRepository.findAll() ).noneMatch( Veiculo::getAtivo );
+        // Um único REMOVIDO por veículo, com a versão que o UPDATE gravou
+        List< VeiculoEvento > eventos =
+            veiculoEventoRepository.findAll().stream().filter( evento -> evento.getTipo() == TipoEventoVeiculo.REMOVIDO ).toList();
+        assertThat( eventos ).extracting( VeiculoEvento::getVeiculoId ).containsExactlyInAnyOrderElementsOf( ids );
+        assertThat( eventos ).allMatch( evento -> evento.getVersao() == 1L );
+    }
+
+
+    @Test
+    @DisplayName( "Cadastros simultâneos com a mesma placa: um grava e os demais recebem placa duplicada" )
+    void deveAceitarUmaUnicaPlacaEntreCadastrosSimultaneos()
+        throws Exception {
+
+        AtomicInteger duplicadas = new AtomicInteger();
+
+        executarEmParalelo( thread -> {
+            try {
+                veiculoService.create( request( "CCC0001" ) );
+            } catch ( DuplicatePlacaException e ) {
+                duplicadas.incrementAndGet();
+            }
+            return null;
+        } );
+
+        assertThat( veiculoRepository.count() ).isEqualTo( 1 );
+        assertThat( duplicadas.get() ).isEqualTo( THREADS - 1 );
+    }
+
+
+    @Test
+    @DisplayName( "Cadastros simultâneos da primeira ocorrência de uma marca: todos gravam e a contagem fecha" )
+    void deveCriarContagemDeMarcaNovaEntreCadastrosSimultaneos()
+        throws Exception {
+
+        executarEmParalelo( thread -> {
+            criar( String.format( "EEE%04d", thread ) );
+            return null;
+        } );
+
+        assertThat( marcaContagemRepository.findById( "Toyota" ) ).hasValueSatisfying( contagem -> assertThat( contagem.getQuantidade() ).isEqualTo( THREADS ) );
+    }
+
+
+    @Test
+    @DisplayName( "Reconciliação concorrente com cadastros não perde incrementos do agregado" )
+    void naoDevePerderIncrementosDuranteReconciliacao()
+        throws Exception {
+
+        criar( "FFF0000" );
+
+        executarEmParalelo( thread -> {
+            for ( int i = 0; i < INCREMENTOS_POR_THREAD; i++ ) {
+                if ( thread == 0 ) {
+                    marcaContagemService.reconciliar();
+                } else {
+                    criar( String.format( "FFF%02d%02d", thread, i ) );
+                }
+            }
+            return null;
+        } );
+
+        long cadastrados = 1 + ( THREADS - 1 ) * INCREMENTOS_POR_THREAD;
+        assertThat( veiculoRepository.count() ).isEqualTo( cadastrados );
+        assertThat( marcaContagemRepository.findById( "Toyota" ) ).hasValueSatisfying( contagem -> assertThat( contagem.getQuantidade() ).isEqualTo( cadastrados ) );
+    }
+
+
+    // Lê a versão atual, grava com If-Match e repete até vencer
+    private void incrementarAno( Long id, AtomicInteger conflitos ) {
+
+        while ( true ) {
+            Versionado< VeiculoResponse > atual = veiculoService.findById( id );
+            VeiculoRequest request = new VeiculoRequest();
+            request.setAno( atual.getCorpo().getAno() + 1 );
+            try {
+                veiculoService.partialUpdate( id, request, Versionado.versao( atual.getEtag() ) );
+                return;
+            } catch ( VersaoDivergenteException | OptimisticLockingFailureException e ) {
+                conflitos.incrementAndGet();
+            }
+        }
+    }
+
+
+    // Todas as threads partem juntas; qualquer exceção inesperada falha o teste
+    private void executarEmParalelo( Tarefa tarefa )
+        throws Exception {
+
+        CountDownLatch largada = new CountDownLatch( 1 );
+        List< Future< Void > > resultados = new ArrayList<>();
+        for ( int thread = 0; thread < THREADS; thread++ ) {
+            int numero = thread;
+            Callable< Void > corpo = () -> {
+                largada.await();
+                return tarefa.executar( numero );
+            };
+            resultados.add( executor.submit( corpo ) );
+        }
+
+        largada.countDown();
+        for ( Future< Void > resultado : resultados ) {
+            resultado.get( 60, TimeUnit.SECONDS );
+        }
+    }
+
+
+    private Long criar( String placa ) {
+
+        return veiculoService.create( request( placa ) ).getId();
+    }
+
+
+    private VeiculoRequest request( String placa ) {
+
+        VeiculoRequest request = new VeiculoRequest();
+        request.setMarca( "Toyota" );
+        request.setModelo( "Corolla" );
+        request.setAno( 2000 );
+        request.setCor( "Preto" );
+        request.setPlaca( placa );
+        request.setPrecoBrl( new BigDecimal( "100000.00" ) );
+        return request;
+    }
+
+
+    @FunctionalInterface
+    private interface Tarefa {
+
+        Void executar( int thread )
+            throws Exception;
+    }
+}
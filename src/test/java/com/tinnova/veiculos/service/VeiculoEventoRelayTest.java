@@ -0,0 +1,335 @@
+package com.tinnova.veiculos.service;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.tinnova.veiculos.config.TestSecurityConfig;
+import com.tinnova.veiculos.dto.request.VeiculoRequest;
+import com.tinnova.veiculos.dto.response.VeiculoEventoResponse;
+import com.tinnova.veiculos.entity.VeiculoEvento;
+import com.tinnova.veiculos.exception.DuplicatePlacaException;
+import com.tinnova.veiculos.repository.MarcaContagemRepository;
+import com.tinnova.veiculos.repository.VeiculoEventoRepository;
+import com.tinnova.veiculos.repository.VeiculoRepository;
+
+import redis.embedded.RedisServer;
+
+
+// Outbox → relay → Redis Stream → SSE contra um Redis embarcado. Dialeto H2 só aqui: o do PostgreSQL gera, na leitura do relay,
+// FOR NO KEY UPDATE SKIP LOCKED, que o H2 não aceita
+@SpringBootTest( properties = { "veiculos.eventos.relay.enabled=true", "veiculos.eventos.relay.interval=PT0.1S", "veiculos.eventos.sse.enabled=true",
+    "veiculos.eventos.stream=veiculos:eventos:teste", "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect" } )
+@AutoConfigureMockMvc
+@Import( TestSecurityConfig.class )
+@ActiveProfiles( "test" )
+@DisplayName( "Testes do outbox de eventos de veículos" )
+class VeiculoEventoRelayTest {
+
+    private static final String STREAM = "veiculos:eventos:teste";
+
+    private static final Duration ESPERA = Duration.ofSeconds( 10 );
+
+    private static RedisServer redis;
+
+    @Autowired
+    private VeiculoService veiculoService;
+
+    @Autowired
+    private VeiculoEventoStream veiculoEventoStream;
+
+    @Autowired
+    private VeiculoRepository veiculoRepository;
+
+    @Autowired
+    private VeiculoEventoRepository veiculoEventoRepository;
+
+    @Autowired
+    private VeiculoEventoService veiculoEventoService;
+
+    @Autowired
+    private MarcaContagemRepository marcaContagemRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CambioService cambioService;
+
+    @DynamicPropertySource
+    static void redis( DynamicPropertyRegistry registry )
+        throws IOException {
+
+        int porta;
+        try ( ServerSocket socket = new ServerSocket( 0 ) ) {
+            porta = socket.getLocalPort();
+        }
+        redis = RedisServer.newRedisServer().bind( "127.0.0.1" ).port( porta ).build();
+        redis.start();
+
+        registry.add( "spring.data.redis.host", () -> "127.0.0.1" );
+        registry.add( "spring.data.redis.port", () -> porta );
+    }
+
+
+    @AfterAll
+    static void pararRedis()
+        throws IOException {
+
+        redis.stop();
+    }
+
+
+    @BeforeEach
+    void setUp() {
+
+        veiculoEventoRepository.deleteAllInBatch();
+        veiculoRepository.deleteAllInBatch();
+        marcaContagemRepository.deleteAllInBatch();
+        redisTemplate.delete( STREAM );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+    }
+
+
+    @Test
+    @DisplayName( "Criação, alteração e remoção chegam ao stream em ordem, com a versão de cada alteração" )
+    void devePublicarAsEscritasNoStream() {
+
+        Long id = veiculoService.create( cadastro( "EVT0001" ) ).getId();
+        VeiculoRequest parcial = new VeiculoRequest();
+        parcial.setCor( "Azul" );
+        veiculoService.partialUpdate( id, parcial, null );
+        veiculoService.delete( id );
+
+        aguardar( () -> entradas().size() == 3 );
+
+        List< MapRecord< String, Object, Object > > entradas = entradas();
+        assertThat( entradas ).extracting( entrada -> entrada.getValue().get( "tipo" ) ).containsExactly( "CRIADO", "ATUALIZADO", "REMOVIDO" );
+        assertThat( entradas ).extracting( entrada -> entrada.getValue().get( "versao" ) ).containsExactly( "0", "1", "2" );
+        assertThat( entradas ).allSatisfy( entrada -> assertThat( entrada.getValue().get( "veiculoId" ) ).isEqualTo( id.toString() ) );
+        assertThat( ( String ) entradas.get( 1 ).getValue().get( "veiculo" ) ).contains( "\"cor\":\"Azul\"" );
+        aguardar( () -> veiculoEventoRepository.countByPublicadoEmIsNull() == 0 );
+    }
+
+
+    @Test
+    @DisplayName( "Escrita desfeita não deixa evento no outbox" )
+    void naoDeveRegistrarEventoDeEscritaDesfeita() {
+
+        veiculoService.create( cadastro( "EVT0002" ) );
+
+        assertThatThrownBy( () -> veiculoService.create( cadastro( "EVT0002" ) ) ).isInstanceOf( DuplicatePlacaException.class );
+
+        assertThat( veiculoEventoRepository.count() ).isEqualTo( 1 );
+    }
+
+
+    @Test
+    @DisplayName( "Limpeza remove só os eventos publicados há mais que a retenção" )
+    void deveRemoverEventosPublicadosAposRetencao() {
+
+        veiculoService.create( cadastro( "EVT0003" ) );
+        veiculoService.create( cadastro( "EVT0004" ) );
+        veiculoService.create( cadastro( "EVT0005" ) );
+        aguardar( () -> veiculoEventoRepository.countByPublicadoEmIsNull() == 0 );
+
+        List< VeiculoEvento > eventos = veiculoEventoRepository.findAll( Sort.by( "id" ) );
+        eventos.get( 0 ).setPublicadoEm( LocalDateTime.now().minusDays( 8 ) );
+        eventos.get( 1 ).setPublicadoEm( LocalDateTime.now().minusDays( 8 ) );
+        veiculoEventoRepository.saveAll( eventos.subList( 0, 2 ) );
+
+        assertThat( veiculoEventoService.removerPublicados( Duration.ofDays( 7 ) ) ).isEqualTo( 2 );
+        assertThat( veiculoEventoRepository.findAll() ).extracting( VeiculoEvento::getId ).containsExactly( eventos.get( 2 ).getId() );
+    }
+
+
+    @Test
+    @DisplayName( "Reconexão com Last-Event-ID recebe o que perdeu e segue ao vivo, sem repetir eventos" )
+    void deveReenviarEventosPerdidosNaReconexao() {
+
+        veiculoService.create( cadastro( "EVT0003" ) );
+        Long perdido = veiculoService.create( cadastro( "EVT0006" ) ).getId();
+        aguardar( () -> entradas().size() == 2 );
+
+        CompletableFuture< List< ServerSentEvent< Object > > > recebidos =
+            veiculoEventoStream.assinar( entradas().get( 0 ).getId().getValue() ).filter( evento -> evento.event() != null ).take( 2 ).collectList().toFuture();
+        Long aoVivo = veiculoService.create( cadastro( "EVT0004" ) ).getId();
+
+        List< ServerSentEvent< Object > > eventos = recebidos.orTimeout( ESPERA.toSeconds(), TimeUnit.SECONDS ).join();
+        assertThat( eventos ).extracting( evento -> ( ( VeiculoEventoResponse ) evento.data() ).getVeiculoId() ).containsExactly( perdido, aoVivo );
+        assertThat( eventos ).extracting( ServerSentEvent::event ).containsExactly( "CRIADO", "CRIADO" );
+        assertThat( eventos.get( 0 ).id() ).isEqualTo( entradas().get( 1 ).getId().getValue() );
+    }
+
+
+    @Test
+    @DisplayName( "A releitura percorre o stream em páginas até o fim, sem pular nenhum evento" )
+    void deveReenviarEmPaginasAteOFimDoStream() {
+
+        List< RecordId > ids = adicionarEntradas( 450 );
+
+        List< ServerSentEvent< Object > > eventos = veiculoEventoStream.assinar( ids.get( 0 ).getValue() ).filter( evento -> evento.event() != null )
+            .take( 449 ).collectList().block( ESPERA );
+
+        assertThat( eventos ).extracting( ServerSentEvent::id ).containsExactlyElementsOf( ids.subList( 1, 450 ).stream().map( RecordId::getValue ).toList() );
+    }
+
+
+    @Test
+    @DisplayName( "Releitura acima de replay-max termina em resync, com o id do fim do stream" )
+    void deveEnviarResyncQuandoAReleituraPassarDoLimite() {
+
+        List< RecordId > ids = adicionarEntradas( 1002 );
+
+        List< ServerSentEvent< Object > > eventos = veiculoEventoStream.assinar( ids.get( 0 ).getValue() ).filter( evento -> evento.event() != null )
+            .take( 1001 ).collectList().block( ESPERA );
+
+        assertThat( eventos.subList( 0, 1000 ) ).extracting( ServerSentEvent::event ).containsOnly( "CRIADO" );
+        assertThat( eventos.get( 1000 ).event() ).isEqualTo( VeiculoEventoStream.RESYNC );
+        assertThat( eventos.get( 1000 ).id() ).isEqualTo( ids.get( 1001 ).getValue() );
+    }
+
+
+    @Test
+    @DisplayName( "Last-Event-ID já descartado pelo XTRIM recebe resync e segue ao vivo" )
+    void deveEnviarResyncQuandoOIdJaSaiuDoStream() {
+
+        veiculoService.create( cadastro( "EVT0007" ) );
+        veiculoService.create( cadastro( "EVT0008" ) );
+        veiculoService.create( cadastro( "EVT0009" ) );
+        aguardar( () -> entradas().size() == 3 );
+        String descartado = entradas().get( 0 ).getId().getValue();
+        redisTemplate.opsForStream().trim( STREAM, 2 );
+
+        CompletableFuture< List< ServerSentEvent< Object > > > recebidos =
+            veiculoEventoStream.assinar( descartado ).filter( evento -> evento.event() != null ).take( 2 ).collectList().toFuture();
+        Long aoVivo = veiculoService.create( cadastro( "EVT0010" ) ).getId();
+
+        List< ServerSentEvent< Object > > eventos = recebidos.orTimeout( ESPERA.toSeconds(), TimeUnit.SECONDS ).join();
+        assertThat( eventos ).extracting( ServerSentEvent::event ).containsExactly( VeiculoEventoStream.RESYNC, "CRIADO" );
+        assertThat( eventos.get( 0 ).id() ).isEqualTo( entradas().get( 1 ).getId().getValue() );
+        assertThat( ( ( VeiculoEventoResponse ) eventos.get( 1 ).data() ).getVeiculoId() ).isEqualTo( aoVivo );
+    }
+
+
+    @Test
+    @WithMockUser( roles = "USER" )
+    @DisplayName( "GET /veiculos/eventos - Deve enviar os eventos como SSE, com o veículo em JSON" )
+    void deveEnviarEventosPorSse()
+        throws Exception {
+
+        veiculoService.create( cadastro( "EVT0011" ) );
+        Long id = veiculoService.create( cadastro( "EVT0005" ) ).getId();
+        aguardar( () -> entradas().size() == 2 );
+
+        MvcResult resultado = mockMvc.perform(
+            get( "/veiculos/eventos" ).accept( MediaType.TEXT_EVENT_STREAM ).header( "Last-Event-ID", entradas().get( 0 ).getId().getValue() ) )
+            .andExpect( request().asyncStarted() ).andReturn();
+
+        aguardar( () -> conteudo( resultado ).contains( "event:CRIADO" ) );
+        String corpo = conteudo( resultado );
+        assertThat( corpo ).contains( "id:" + entradas().get( 1 ).getId().getValue() ).contains( "\"veiculoId\":" + id )
+            .contains( "\"veiculo\":{\"id\":" + id );
+    }
+
+
+    // Entradas gravadas direto no stream (sem passar pelo outbox), no formato do relay
+    private List< RecordId > adicionarEntradas( int quantidade ) {
+
+        List< RecordId > ids = new ArrayList<>();
+        for ( int i = 1; i <= quantidade; i++ ) {
+            Map< String, String > campos = Map.of( "id", String.valueOf( i ), "tipo", "CRIADO", "veiculoId", String.valueOf( i ), "versao", "0", "ocorridoEm",
+                LocalDateTime.now().toString(), "veiculo", "{}" );
+            ids.add( redisTemplate.opsForStream().add( StreamRecords.string( campos ).withStreamKey( STREAM ) ) );
+        }
+        return ids;
+    }
+
+
+    private List< MapRecord< String, Object, Object > > entradas() {
+
+        return redisTemplate.opsForStream().range( STREAM, Range.unbounded() );
+    }
+
+
+    private static String conteudo( MvcResult resultado ) {
+
+        try {
+            return resultado.getResponse().getContentAsString();
+        } catch ( IOException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+
+    private static void aguardar( BooleanSupplier condicao ) {
+
+        long limite = System.nanoTime() + ESPERA.toNanos();
+        while ( !condicao.getAsBoolean() ) {
+            if ( System.nanoTime() > limite ) {
+                throw new AssertionError( "Condição não atendida em " + ESPERA );
+            }
+            try {
+                Thread.sleep( 50 );
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError( e );
+            }
+        }
+    }
+
+
+    private VeiculoRequest cadastro( String placa ) {
+
+        VeiculoRequest request = new VeiculoRequest();
+        request.setMarca( "Toyota" );
+        request.setModelo( "Corolla" );
+        request.setAno( 2020 );
+        request.setCor( "Preto" );
+        request.setPlaca( placa );
+        request.setPrecoBrl( new BigDecimal( "100000.00" ) );
+        return request;
+    }
+}
@@ -0,0 +1,143 @@
+package com.tinnova.veiculos.service;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinnova.veiculos.dto.request.FormatoExportacao;
+import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.repository.VeiculoRepository;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+
+
+@SpringBootTest
+@ActiveProfiles( "test" )
+@DisplayName( "Testes do VeiculoExportService" )
+class VeiculoExportServiceTest {
+
+    @Autowired
+    private VeiculoExportService veiculoExportService;
+
+    @Autowired
+    private VeiculoRepository veiculoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockBean
+    private CambioService cambioService;
+
+    @BeforeEach
+    void setUp() {
+
+        veiculoRepository.deleteAllInBatch();
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+
+        // Mais linhas que o fetch size (500) da consulta em streaming
+        for ( int i = 0; i < 600; i++ ) {
+            salvar( String.format( "EXP%04d", i ), "Toyota", "Corolla", true );
+        }
+        salvar( "INA0001", "Fiat", "Uno", false );
+        salvar( "CSV0001", "Volkswagen", "Gol, \"Quadrado\"", true );
+    }
+
+
+    @Test
+    @DisplayName( "Deve exportar todos os veículos ativos em NDJSON, um por linha, em ordem de ID" )
+    void deveExportarNdjson()
+        throws Exception {
+
+        List< String > linhas = exportar( FormatoExportacao.NDJSON );
+
+        assertThat( linhas ).hasSize( 601 );
+        VeiculoResponse primeiro = objectMapper.readValue( linhas.get( 0 ), VeiculoResponse.class );
+        assertThat( primeiro.getPlaca() ).isEqualTo( "EXP0000" );
+        assertThat( primeiro.getPrecoUsd() ).isEqualByComparingTo( "20000.00" );
+        assertThat( primeiro.getPrecoBrl() ).isEqualByComparingTo( "100000.00" );
+        assertThat( linhas ).noneMatch( linha -> linha.contains( "INA0001" ) );
+
+        // Uma única cotação para a exportação inteira
+        verify( cambioService, times( 1 ) ).getCotacaoDolar();
+    }
+
+
+    @Test
+    @DisplayName( "Deve exportar em CSV com cabeçalho e campos escapados" )
+    void deveExportarCsv()
+        throws Exception {
+
+        List< String > linhas = exportar( FormatoExportacao.CSV );
+
+        assertThat( linhas ).hasSize( 602 );
+        assertThat( linhas.get( 0 ) ).isEqualTo( "id,marca,modelo,ano,cor,placa,precoUsd,precoBrl,createdAt,updatedAt" );
+        assertThat( linhas.get( 1 ) ).contains( ",Toyota,Corolla,2020,Preto,EXP0000,20000.00,100000.00," );
+        assertThat( linhas.get( 601 ) ).contains( ",Volkswagen,\"Gol, \"\"Quadrado\"\"\",2020," );
+    }
+
+
+    @Test
+    @DisplayName( "A exportação não deve carregar os veículos no segundo nível do Hibernate" )
+    void naoDevePovoarSegundoNivel()
+        throws Exception {
+
+        Cache segundoNivel = entityManagerFactory.getCache();
+        segundoNivel.evictAll();
+
+        exportar( FormatoExportacao.NDJSON );
+
+        // Só os ids: carregar as entidades aqui as poria no segundo nível
+        List< Long > ids = new JdbcTemplate( dataSource ).queryForList( "SELECT id FROM veiculos", Long.class );
+        assertThat( ids ).hasSize( 602 ).noneMatch( id -> segundoNivel.contains( Veiculo.class, id ) );
+    }
+
+
+    private List< String > exportar( FormatoExportacao formato )
+        throws Exception {
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        veiculoExportService.exportar( formato ).writeTo( saida );
+        return saida.toString( StandardCharsets.UTF_8 ).lines().toList();
+    }
+
+
+    private void salvar( String placa, String marca, String modelo, boolean ativo ) {
+
+        Veiculo veiculo = new Veiculo();
+        veiculo.setMarca( marca );
+        veiculo.setModelo( modelo );
+        veiculo.setAno( 2020 );
+        veiculo.setCor( "Preto" );
+        veiculo.setPlaca( placa );
+        veiculo.setPrecoUsd( new BigDecimal( "20000.00" ) );
+        veiculo.setAtivo( ativo );
+        veiculoRepository.save( veiculo );
+    }
+}
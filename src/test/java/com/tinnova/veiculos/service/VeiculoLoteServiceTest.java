@@ -0,0 +1,207 @@
+package com.tinnova.veiculos.service;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinnova.veiculos.dto.request.VeiculoRequest;
+import com.tinnova.veiculos.dto.response.LoteErroResponse;
+import com.tinnova.veiculos.dto.response.LoteResponse;
+import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.repository.MarcaContagemRepository;
+import com.tinnova.veiculos.repository.VeiculoRepository;
+
+
+@SpringBootTest
+@ActiveProfiles( "test" )
+@DisplayName( "Testes do VeiculoLoteService" )
+class VeiculoLoteServiceTest {
+
+    @Autowired
+    private VeiculoLoteService veiculoLoteService;
+
+    @Autowired
+    private VeiculoRepository veiculoRepository;
+
+    @Autowired
+    private MarcaContagemRepository marcaContagemRepository;
+
+    @Autowired
+    private MarcaContagemService marcaContagemService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private CambioService cambioService;
+
+    @BeforeEach
+    void setUp() {
+
+        veiculoRepository.deleteAllInBatch();
+        marcaContagemRepository.deleteAllInBatch();
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve gravar os registros válidos e listar os rejeitados com a linha e o motivo" )
+    void deveImportarLoteComErrosPorLinha()
+        throws Exception {
+
+        Veiculo existente = new Veiculo();
+        existente.setMarca( "Fiat" );
+        existente.setModelo( "Uno" );
+        existente.setAno( 2010 );
+        existente.setCor( "Branco" );
+        existente.setPlaca( "EXI0001" );
+        existente.setPrecoUsd( new BigDecimal( "3000.00" ) );
+        veiculoRepository.save( existente );
+
+        String ndjson = String.join( "\n", linha( "Toyota", "AAA0001" ), linha( "Toyota", "AAA0002" ), linha( "Honda", "AAA0001" ),
+            linha( "Honda", "EXI0001" ), "{\"marca\":\"Ford\",\"placa\":\"placa\"}", "{}", linha( "Honda", "AAA0003" ) );
+
+        LoteResponse resultado = importar( ndjson );
+
+        assertThat( resultado.getTotal() ).isEqualTo( 7 );
+        assertThat( resultado.getInseridos() ).isEqualTo( 3 );
+        assertThat( resultado.getErros() ).extracting( LoteErroResponse::getLinha, LoteErroResponse::getPlaca )
+            .containsExactly( tuple( 3, "AAA0001" ), tuple( 4, "EXI0001" ), tuple( 5, "placa" ), tuple( 6, null ) );
+        assertThat( resultado.getErros().get( 2 ).getMensagens() ).contains( "ano: Ano é obrigatório" );
+
+        // Preço convertido com a cotação única do lote
+        assertThat( veiculoRepository.findAll() ).filteredOn( veiculo -> veiculo.getPlaca().startsWith( "AAA" ) )
+            .allSatisfy( veiculo -> assertThat( veiculo.getPrecoUsd() ).isEqualByComparingTo( "10000.00" ) );
+        verify( cambioService, times( 1 ) ).getCotacaoDolar();
+
+        assertThat( marcaContagemService.getRelatorio() ).extracting( RelatorioMarcaResponse::getMarca, RelatorioMarcaResponse::getQuantidade )
+            .containsExactlyInAnyOrder( tuple( "Toyota", 2L ), tuple( "Honda", 1L ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve aceitar o lote como array JSON e gravar em vários blocos" )
+    void deveImportarArrayJsonEmVariosBlocos()
+        throws Exception {
+
+        StringBuilder json = new StringBuilder( "[" );
+        for ( int i = 0; i < 2500; i++ ) {
+            json.append( i > 0 ? "," : "" ).append( linha( "Toyota", placa( i ) ) );
+        }
+        json.append( "]" );
+
+        LoteResponse resultado = importar( json.toString() );
+
+        assertThat( resultado.getTotal() ).isEqualTo( 2500 );
+        assertThat( resultado.getInseridos() ).isEqualTo( 2500 );
+        assertThat( resultado.getErros() ).isEmpty();
+        assertThat( veiculoRepository.count() ).isEqualTo( 2500 );
+    }
+
+
+    @Test
+    @DisplayName( "Bloco recusado pelo banco é refeito linha a linha: só o registro recusado vira erro" )
+    void deveGravarLinhaALinhaQuandoOBancoRecusarOBloco()
+        throws Exception {
+
+        // Válido para a validação do request, mas além da precisão da coluna preco_usd
+        String precoForaDaColuna = objectMapper.writeValueAsString(
+            new VeiculoRequest( "Honda", "Modelo", 2020, "Preto", "BBB0002", new BigDecimal( "1000000000000.00" ) ) );
+        String ndjson = String.join( "\n", linha( "Toyota", "BBB0001" ), precoForaDaColuna, linha( "Toyota", "BBB0003" ) );
+
+        LoteResponse resultado = importar( ndjson );
+
+        assertThat( resultado.getInseridos() ).isEqualTo( 2 );
+        assertThat( resultado.getErros() ).extracting( LoteErroResponse::getLinha, LoteErroResponse::getPlaca ).containsExactly( tuple( 2, "BBB0002" ) );
+        assertThat( veiculoRepository.findAll() ).extracting( Veiculo::getPlaca ).containsExactlyInAnyOrder( "BBB0001", "BBB0003" );
+        assertThat( marcaContagemService.getRelatorio() ).extracting( RelatorioMarcaResponse::getMarca, RelatorioMarcaResponse::getQuantidade )
+            .containsExactly( tuple( "Toyota", 2L ) );
+    }
+
+
+    @Test
+    @DisplayName( "Corpo malformado depois de um bloco gravado: mantém o que foi lido e aponta a linha com erro" )
+    void deveManterBlocosGravadosQuandoOCorpoQuebrarNoMeio()
+        throws Exception {
+
+        ReflectionTestUtils.setField( veiculoLoteService, "tamanhoBloco", 2 );
+        try {
+            String ndjson = String.join( "\n", linha( "Toyota", "CCC0001" ), linha( "Toyota", "CCC0002" ), linha( "Toyota", "CCC0003" ), "{quebrado" );
+
+            LoteResponse resultado = importar( ndjson );
+
+            assertThat( resultado.getInseridos() ).isEqualTo( 3 );
+            assertThat( resultado.getErros() ).extracting( LoteErroResponse::getLinha ).containsExactly( 4 );
+            assertThat( veiculoRepository.count() ).isEqualTo( 3 );
+        } finally {
+            ReflectionTestUtils.setField( veiculoLoteService, "tamanhoBloco", 1000 );
+        }
+    }
+
+
+    // Medição: mvn test -Dtest=VeiculoLoteServiceTest -Dlote.medicao=true
+    @Test
+    @EnabledIfSystemProperty( named = "lote.medicao", matches = "true" )
+    @DisplayName( "Medição: importação de 100 mil veículos" )
+    void deveMedirImportacaoDeCemMil()
+        throws Exception {
+
+        int quantidade = 100_000;
+        StringBuilder ndjson = new StringBuilder();
+        for ( int i = 0; i < quantidade; i++ ) {
+            ndjson.append( linha( i % 2 == 0 ? "Toyota" : "Honda", placa( i ) ) ).append( '\n' );
+        }
+
+        long inicio = System.nanoTime();
+        LoteResponse resultado = importar( ndjson.toString() );
+        Duration decorrido = Duration.ofNanos( System.nanoTime() - inicio );
+
+        System.out.printf( "Lote de %d veículos importado em %d ms (%.0f registros/s)%n", quantidade, decorrido.toMillis(),
+            quantidade / ( decorrido.toNanos() / 1e9 ) );
+        assertThat( resultado.getInseridos() ).isEqualTo( quantidade );
+        assertThat( veiculoRepository.count() ).isEqualTo( quantidade );
+    }
+
+
+    private LoteResponse importar( String corpo )
+        throws Exception {
+
+        try ( MappingIterator< VeiculoRequest > veiculos = objectMapper.readerFor( VeiculoRequest.class ).readValues( corpo ) ) {
+            return veiculoLoteService.importar( veiculos );
+        }
+    }
+
+
+    private String linha( String marca, String placa )
+        throws Exception {
+
+        return objectMapper.writeValueAsString( new VeiculoRequest( marca, "Modelo", 2020, "Preto", placa, new BigDecimal( "50000.00" ) ) );
+    }
+
+
+    // Placas únicas no formato AAA0A00 a partir de um índice
+    private String placa( int i ) {
+
+        return String.format( "%c%c%c%d%c%02d", 'A' + i % 26, 'A' + i / 26 % 26, 'A' + i / 676 % 26, i / 17576 % 10, 'A' + i / 175760 % 26, i % 100 );
+    }
+}
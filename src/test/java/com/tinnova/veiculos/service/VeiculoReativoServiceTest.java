@@ -0,0 +1,169 @@
+package com.tinnova.veiculos.service;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.tinnova.veiculos.dto.request.VeiculoFiltro;
+import com.tinnova.veiculos.dto.response.RelatorioMarcaResponse;
+import com.tinnova.veiculos.dto.response.VeiculoResponse;
+import com.tinnova.veiculos.entity.MarcaContagem;
+import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.exception.VeiculoNotFoundException;
+import com.tinnova.veiculos.repository.MarcaContagemRepository;
+import com.tinnova.veiculos.repository.VeiculoRepository;
+
+import reactor.core.publisher.Mono;
+
+
+// Grava pelo JPA e lê pelo R2DBC no mesmo banco H2
+@SpringBootTest
+@ActiveProfiles( "test" )
+@DisplayName( "Testes do VeiculoReativoService" )
+class VeiculoReativoServiceTest {
+
+    @Autowired
+    private VeiculoReativoService veiculoReativoService;
+
+    @Autowired
+    private VeiculoRepository veiculoRepository;
+
+    @Autowired
+    private MarcaContagemRepository marcaContagemRepository;
+
+    @MockBean
+    private CambioService cambioService;
+
+    private final PageRequest pageable = PageRequest.of( 0, 10, Sort.by( "id" ) );
+
+    private Veiculo corolla;
+
+    @BeforeEach
+    void setUp() {
+
+        veiculoRepository.deleteAllInBatch();
+        marcaContagemRepository.deleteAllInBatch();
+        when( cambioService.getCotacaoDolarReativa() ).thenReturn( Mono.just( new BigDecimal( "5.00" ) ) );
+
+        corolla = salvar( "REA0001", "Toyota", "Corolla", 2020, "Preto", "20000.00", true );
+        salvar( "REA0002", "Toyota", "Hilux", 2022, "Branco", "40000.00", true );
+        salvar( "REA0003", "Honda", "Civic", 2020, "Preto", "25000.00", true );
+        salvar( "REA0004", "Fiat", "Uno", 2010, "Branco", "5000.00", false );
+    }
+
+
+    @Test
+    @DisplayName( "Deve listar apenas veículos ativos com total e preço em reais" )
+    void deveListarVeiculosAtivos() {
+
+        Page< VeiculoResponse > pagina = veiculoReativoService.findAll( PageRequest.of( 0, 2, Sort.by( "id" ) ) ).block();
+
+        assertThat( pagina.getTotalElements() ).isEqualTo( 3 );
+        assertThat( pagina.getContent() ).extracting( VeiculoResponse::getPlaca ).containsExactly( "REA0001", "REA0002" );
+        assertThat( pagina.getContent().get( 0 ).getPrecoBrl() ).isEqualByComparingTo( "100000.00" );
+    }
+
+
+    @Test
+    @DisplayName( "Deve filtrar por marca e cor sem diferenciar maiúsculas e acentos" )
+    void deveFiltrarPorMarcaECor() {
+
+        Page< VeiculoResponse > pagina = veiculoReativoService.buscar( new VeiculoFiltro( "TOYOTA", null, "preto", null, null ), pageable ).block();
+
+        assertThat( pagina.getTotalElements() ).isEqualTo( 1 );
+        assertThat( pagina.getContent() ).extracting( VeiculoResponse::getModelo ).containsExactly( "Corolla" );
+    }
+
+
+    @Test
+    @DisplayName( "Deve filtrar por faixa de preço em reais convertida com a cotação" )
+    void deveFiltrarPorFaixaDePreco() {
+
+        VeiculoFiltro filtro = new VeiculoFiltro( null, null, null, new BigDecimal( "110000.00" ), new BigDecimal( "200000.00" ) );
+
+        Page< VeiculoResponse > pagina = veiculoReativoService.buscar( filtro, pageable ).block();
+
+        assertThat( pagina.getContent() ).extracting( VeiculoResponse::getPlaca ).containsExactly( "REA0002", "REA0003" );
+        assertThat( pagina.getContent() ).extracting( VeiculoResponse::getPrecoBrl ).usingElementComparator( BigDecimal::compareTo )
+            .containsExactly( new BigDecimal( "200000.00" ), new BigDecimal( "125000.00" ) );
+    }
+
+
+    @Test
+    @DisplayName( "Não deve consultar a cotação quando a página vier vazia" )
+    void naoDeveConsultarCotacaoComPaginaVazia() {
+
+        Page< VeiculoResponse > pagina = veiculoReativoService.buscar( new VeiculoFiltro( "Ferrari", null, null, null, null ), pageable ).block();
+
+        assertThat( pagina.getTotalElements() ).isZero();
+        verify( cambioService, never() ).getCotacaoDolarReativa();
+    }
+
+
+    @Test
+    @DisplayName( "Deve buscar veículo ativo por ID" )
+    void deveBuscarPorId() {
+
+        VeiculoResponse response = veiculoReativoService.findById( corolla.getId() ).block();
+
+        assertThat( response.getPlaca() ).isEqualTo( "REA0001" );
+        assertThat( response.getPrecoBrl() ).isEqualByComparingTo( "100000.00" );
+    }
+
+
+    @Test
+    @DisplayName( "Deve sinalizar VeiculoNotFoundException para ID inexistente ou inativo" )
+    void deveSinalizarNaoEncontrado() {
+
+        Long inativo = veiculoRepository.findAll().stream().filter( veiculo -> !veiculo.getAtivo() ).findFirst().orElseThrow().getId();
+
+        assertThatThrownBy( () -> veiculoReativoService.findById( 999999L ).block() ).isInstanceOf( VeiculoNotFoundException.class );
+        assertThatThrownBy( () -> veiculoReativoService.findById( inativo ).block() ).isInstanceOf( VeiculoNotFoundException.class );
+    }
+
+
+    @Test
+    @DisplayName( "Deve servir o relatório por marca a partir do agregado" )
+    void deveServirRelatorioPorMarca() {
+
+        marcaContagemRepository.save( new MarcaContagem( "Toyota", 2L ) );
+        marcaContagemRepository.save( new MarcaContagem( "Honda", 1L ) );
+        marcaContagemRepository.save( new MarcaContagem( "Fiat", 0L ) );
+
+        List< RelatorioMarcaResponse > relatorio = veiculoReativoService.getRelatorioPorMarca().collectList().block();
+
+        assertThat( relatorio ).extracting( RelatorioMarcaResponse::getMarca ).containsExactly( "Toyota", "Honda" );
+        assertThat( relatorio ).extracting( RelatorioMarcaResponse::getQuantidade ).containsExactly( 2L, 1L );
+    }
+
+
+    private Veiculo salvar( String placa, String marca, String modelo, int ano, String cor, String precoUsd, boolean ativo ) {
+
+        Veiculo veiculo = new Veiculo();
+        veiculo.setMarca( marca );
+        veiculo.setModelo( modelo );
+        veiculo.setAno( ano );
+        veiculo.setCor( cor );
+        veiculo.setPlaca( placa );
+        veiculo.setPrecoUsd( new BigDecimal( precoUsd ) );
+        veiculo.setAtivo( ativo );
+        return veiculoRepository.save( veiculo );
+    }
+}
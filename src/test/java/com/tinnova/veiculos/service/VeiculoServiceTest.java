@@ -4,12 +4,22 @@ package com.tinnova.veiculos.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -18,17 +28,36 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
+import com.tinnova.veiculos.cache.EntityCacheInvalidator;
+import com.tinnova.veiculos.dto.request.VeiculoFiltro;
 import com.tinnova.veiculos.dto.request.VeiculoRequest;
+import com.tinnova.veiculos.dto.response.CursorPageResponse;
+import com.tinnova.veiculos.dto.response.RemocaoLoteResponse;
 import com.tinnova.veiculos.dto.response.VeiculoResponse;
 import com.tinnova.veiculos.entity.Veiculo;
+import com.tinnova.veiculos.enums.TipoEventoVeiculo;
+import com.tinnova.veiculos.exception.CursorInvalidoException;
 import com.tinnova.veiculos.exception.DuplicatePlacaException;
 import com.tinnova.veiculos.exception.VeiculoNotFoundException;
+import com.tinnova.veiculos.exception.VersaoDivergenteException;
+import com.tinnova.veiculos.repository.RelatorioAnaliticoRepository;
 import com.tinnova.veiculos.repository.VeiculoRepository;
+import com.tinnova.veiculos.repository.VeiculoResumo;
+import com.tinnova.veiculos.repository.VeiculoVersao;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 
 
 @ExtendWith( MockitoExtension.class )
@@ -41,6 +70,24 @@ class VeiculoServiceTest {
     @Mock
     private CambioService cambioService;
 
+    @Mock
+    private MarcaContagemService marcaContagemService;
+
+    @Mock
+    private RelatorioAnaliticoRepository relatorioAnaliticoRepository;
+
+    @Mock
+    private VeiculoPlacaService veiculoPlacaService;
+
+    @Mock
+    private VeiculoEventoService veiculoEventoService;
+
+    @Mock
+    private ObjectProvider< EntityCacheInvalidator > entityCacheInvalidator;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private VeiculoService veiculoService;
 
@@ -60,6 +107,8 @@ class VeiculoServiceTest {
         veiculo.setPlaca( "ABC1234" );
         veiculo.setPrecoUsd( new BigDecimal( "20000.00" ) );
         veiculo.setAtivo( true );
+        veiculo.setUpdatedAt( LocalDateTime.of( 2024, 1, 15, 10, 30 ) );
+        veiculo.setVersao( 3L );
 
         veiculoRequest = new VeiculoRequest();
         veiculoRequest.setMarca( "Toyota" );
@@ -79,9 +128,9 @@ class VeiculoServiceTest {
         Page< Veiculo > page = new PageImpl<>( List.of( veiculo ) );
 
         when( veiculoRepository.findByAtivoTrue( pageable ) ).thenReturn( page );
-        when( cambioService.convertUsdToBrl( any() ) ).thenReturn( new BigDecimal( "100000.00" ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
 
-        Page< VeiculoResponse > result = veiculoService.findAll( pageable );
+        Page< VeiculoResponse > result = veiculoService.findAll( pageable ).getCorpo();
 
         assertThat( result.getContent() ).hasSize( 1 );
         assertThat( result.getContent().get( 0 ).getMarca() ).isEqualTo( "Toyota" );
@@ -89,14 +138,52 @@ class VeiculoServiceTest {
     }
 
 
+    @Test
+    @DisplayName( "Deve resolver a cotação uma única vez por página" )
+    void deveResolverCotacaoUmaVezPorPagina() {
+
+        Pageable pageable = PageRequest.of( 0, 100 );
+        List< Veiculo > veiculos = new ArrayList<>();
+        for ( int i = 0; i < 100; i++ ) {
+            veiculos.add( veiculo );
+        }
+
+        when( veiculoRepository.findByAtivoTrue( pageable ) ).thenReturn( new PageImpl<>( veiculos, pageable, 100 ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+
+        Page< VeiculoResponse > result = veiculoService.findAll( pageable ).getCorpo();
+
+        assertThat( result.getContent() ).hasSize( 100 ).allMatch( r -> r.getPrecoBrl().compareTo( new BigDecimal( "100000.00" ) ) == 0 );
+        // Antes: uma leitura da cotação (ida ao Redis) por linha; agora: uma por página
+        verify( cambioService, times( 1 ) ).getCotacaoDolar();
+        verify( cambioService, never() ).convertUsdToBrl( any() );
+    }
+
+
+    @Test
+    @DisplayName( "Não deve buscar a cotação para página vazia" )
+    void naoDeveBuscarCotacaoParaPaginaVazia() {
+
+        Pageable pageable = PageRequest.of( 0, 10 );
+
+        when( veiculoRepository.findByAtivoTrue( pageable ) ).thenReturn( Page.empty( pageable ) );
+
+        Page< VeiculoResponse > result = veiculoService.findAll( pageable ).getCorpo();
+
+        assertThat( result.getContent() ).isEmpty();
+        verify( cambioService, never() ).getCotacaoDolar();
+    }
+
+
     @Test
     @DisplayName( "Deve buscar veículo por ID com sucesso" )
     void deveBuscarVeiculoPorId() {
 
-        when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
-        when( cambioService.convertUsdToBrl( any() ) ).thenReturn( new BigDecimal( "100000.00" ) );
+        when( veiculoRepository.findVersaoByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( versao( veiculo ) ) );
+        when( veiculoRepository.findById( 1L ) ).thenReturn( Optional.of( veiculo ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
 
-        VeiculoResponse result = veiculoService.findById( 1L );
+        VeiculoResponse result = veiculoService.findById( 1L ).getCorpo();
 
         assertThat( result ).isNotNull();
         assertThat( result.getId() ).isEqualTo( 1L );
@@ -104,11 +191,76 @@ class VeiculoServiceTest {
     }
 
 
+    @Test
+    @DisplayName( "Deve buscar o veículo no banco quando o segundo nível guardar outra versão" )
+    void deveRecarregarVeiculoQuandoSegundoNivelTiverOutraVersao() {
+
+        Veiculo atual = new Veiculo( 1L, "Toyota", "Corolla", 2024, "Preto", "toyota", "preto", "ABC1234", new BigDecimal( "20000.00" ), true, 4L,
+            veiculo.getUpdatedAt(), veiculo.getUpdatedAt().plusMinutes( 1 ) );
+        Cache segundoNivel = mock( Cache.class );
+        EntityManagerFactory entityManagerFactory = mock( EntityManagerFactory.class );
+        when( veiculoRepository.findVersaoByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( versao( atual ) ) );
+        when( veiculoRepository.findById( 1L ) ).thenReturn( Optional.of( veiculo ) );
+        when( veiculoRepository.recarregarAtivo( 1L ) ).thenReturn( Optional.of( atual ) );
+        when( entityManager.getEntityManagerFactory() ).thenReturn( entityManagerFactory );
+        when( entityManagerFactory.getCache() ).thenReturn( segundoNivel );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+
+        Versionado< VeiculoResponse > resposta = veiculoService.findById( 1L );
+
+        assertThat( resposta.getEtag() ).startsWith( "4-" );
+        assertThat( resposta.getCorpo().getAno() ).isEqualTo( 2024 );
+        verify( entityManager ).detach( veiculo );
+        verify( segundoNivel ).evict( Veiculo.class, 1L );
+    }
+
+
+    @Test
+    @DisplayName( "Deve versionar o veículo pela versão e pela cotação sem carregar a entidade" )
+    void deveVersionarVeiculoSemCarregarEntidade() {
+
+        Instant cotacaoDesde = Instant.parse( "2024-01-15T14:00:00Z" );
+        when( veiculoRepository.findVersaoByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( versao( veiculo ) ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ), new BigDecimal( "5.00" ), new BigDecimal( "5.10" ) );
+        when( cambioService.observadaDesde( any() ) ).thenReturn( cotacaoDesde );
+
+        Versionado< VeiculoResponse > primeira = veiculoService.findById( 1L );
+        Versionado< VeiculoResponse > segunda = veiculoService.findById( 1L );
+        Versionado< VeiculoResponse > outraCotacao = veiculoService.findById( 1L );
+
+        assertThat( segunda.getEtag() ).isEqualTo( primeira.getEtag() ).startsWith( "3-" );
+        assertThat( outraCotacao.getEtag() ).isNotEqualTo( primeira.getEtag() ).startsWith( "3-" );
+        // A cotação mudou depois da última alteração do veículo
+        assertThat( primeira.getUltimaModificacao() ).isEqualTo( cotacaoDesde );
+        verify( veiculoRepository, never() ).findByIdAndAtivoTrue( any() );
+    }
+
+
+    @Test
+    @DisplayName( "Deve mudar o ETag da página quando uma linha for alterada" )
+    void deveMudarEtagDaPaginaQuandoLinhaMudar() {
+
+        Pageable pageable = PageRequest.of( 0, 10 );
+        when( veiculoRepository.findByAtivoTrue( pageable ) ).thenReturn( new PageImpl<>( List.of( veiculo ) ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+
+        String antes = veiculoService.findAll( pageable ).getEtag();
+        assertThat( veiculoService.findAll( pageable ).getEtag() ).isEqualTo( antes );
+
+        veiculo.setVersao( veiculo.getVersao() + 1 );
+        veiculo.setUpdatedAt( veiculo.getUpdatedAt().plusSeconds( 1 ) );
+        Versionado< Page< VeiculoResponse > > depois = veiculoService.findAll( pageable );
+
+        assertThat( depois.getEtag() ).isNotEqualTo( antes );
+        assertThat( depois.getUltimaModificacao() ).isEqualTo( veiculo.getUpdatedAt().atZone( ZoneId.systemDefault() ).toInstant() );
+    }
+
+
     @Test
     @DisplayName( "Deve lançar exceção quando veículo não for encontrado" )
     void deveLancarExcecaoQuandoVeiculoNaoEncontrado() {
 
-        when( veiculoRepository.findByIdAndAtivoTrue( 999L ) ).thenReturn( Optional.empty() );
+        when( veiculoRepository.findVersaoByIdAndAtivoTrue( 999L ) ).thenReturn( Optional.empty() );
 
         assertThatThrownBy( () -> veiculoService.findById( 999L ) ).isInstanceOf( VeiculoNotFoundException.class )
             .hasMessageContaining( "Veículo não encontrado com ID: 999" );
@@ -119,16 +271,16 @@ class VeiculoServiceTest {
     @DisplayName( "Deve criar veículo com sucesso" )
     void deveCriarVeiculoComSucesso() {
 
-        when( veiculoRepository.existsByPlacaAndAtivoTrue( anyString() ) ).thenReturn( false );
-        when( cambioService.convertBrlToUsd( any() ) ).thenReturn( new BigDecimal( "20000.00" ) );
-        when( cambioService.convertUsdToBrl( any() ) ).thenReturn( new BigDecimal( "100000.00" ) );
-        when( veiculoRepository.save( any( Veiculo.class ) ) ).thenReturn( veiculo );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.saveAndFlush( any( Veiculo.class ) ) ).thenReturn( veiculo );
 
         VeiculoResponse result = veiculoService.create( veiculoRequest );
 
         assertThat( result ).isNotNull();
         assertThat( result.getMarca() ).isEqualTo( "Toyota" );
-        verify( veiculoRepository, times( 1 ) ).save( any( Veiculo.class ) );
+        verify( veiculoRepository, times( 1 ) ).saveAndFlush( any( Veiculo.class ) );
+        verify( marcaContagemService ).registrar( "Toyota", 1 );
+        verify( veiculoEventoService ).registrar( eq( TipoEventoVeiculo.CRIADO ), eq( veiculo ), any( CotacaoSnapshot.class ) );
     }
 
 
@@ -136,12 +288,12 @@ class VeiculoServiceTest {
     @DisplayName( "Deve validar duplicidade de placa ao criar" )
     void deveValidarDuplicidadeDePlacaAoCriar() {
 
-        when( veiculoRepository.existsByPlacaAndAtivoTrue( "ABC1234" ) ).thenReturn( true );
+        when( veiculoPlacaService.findIdAtivo( "ABC1234" ) ).thenReturn( Optional.of( 2L ) );
 
         assertThatThrownBy( () -> veiculoService.create( veiculoRequest ) ).isInstanceOf( DuplicatePlacaException.class )
             .hasMessageContaining( "Já existe um veículo cadastrado com a placa: ABC1234" );
 
-        verify( veiculoRepository, never() ).save( any() );
+        verify( veiculoRepository, never() ).saveAndFlush( any() );
     }
 
 
@@ -150,15 +302,28 @@ class VeiculoServiceTest {
     void deveAtualizarVeiculoComSucesso() {
 
         when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
-        when( veiculoRepository.existsByPlacaAndAtivoTrueAndIdNot( anyString(), anyLong() ) ).thenReturn( false );
-        when( cambioService.convertBrlToUsd( any() ) ).thenReturn( new BigDecimal( "20000.00" ) );
-        when( cambioService.convertUsdToBrl( any() ) ).thenReturn( new BigDecimal( "100000.00" ) );
-        when( veiculoRepository.save( any( Veiculo.class ) ) ).thenReturn( veiculo );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.saveAndFlush( any( Veiculo.class ) ) ).thenReturn( veiculo );
 
-        VeiculoResponse result = veiculoService.update( 1L, veiculoRequest );
+        VeiculoResponse result = veiculoService.update( 1L, veiculoRequest, null ).getCorpo();
 
         assertThat( result ).isNotNull();
-        verify( veiculoRepository, times( 1 ) ).save( any( Veiculo.class ) );
+        verify( veiculoRepository, times( 1 ) ).saveAndFlush( any( Veiculo.class ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve mover a contagem do relatório quando a marca mudar" )
+    void deveMoverContagemQuandoMarcaMudar() {
+
+        veiculoRequest.setMarca( "Honda" );
+        when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.saveAndFlush( any( Veiculo.class ) ) ).thenReturn( veiculo );
+
+        veiculoService.update( 1L, veiculoRequest, null );
+
+        verify( marcaContagemService ).alterarMarca( "Toyota", "Honda" );
     }
 
 
@@ -167,40 +332,207 @@ class VeiculoServiceTest {
     void deveValidarDuplicidadeDePlacaAoAtualizar() {
 
         when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
-        when( veiculoRepository.existsByPlacaAndAtivoTrueAndIdNot( "ABC1234", 1L ) ).thenReturn( true );
+        when( veiculoPlacaService.findIdAtivo( "ABC1234" ) ).thenReturn( Optional.of( 2L ) );
 
-        assertThatThrownBy( () -> veiculoService.update( 1L, veiculoRequest ) ).isInstanceOf( DuplicatePlacaException.class );
+        assertThatThrownBy( () -> veiculoService.update( 1L, veiculoRequest, null ) ).isInstanceOf( DuplicatePlacaException.class );
     }
 
 
     @Test
-    @DisplayName( "Deve atualizar parcialmente veículo com sucesso" )
-    void deveAtualizarParcialmenteVeiculo() {
+    @DisplayName( "Deve aceitar a própria placa ao atualizar sem tirá-la do cache" )
+    void deveAceitarPropriaPlacaAoAtualizar() {
+
+        when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
+        when( veiculoPlacaService.findIdAtivo( "ABC1234" ) ).thenReturn( Optional.of( 1L ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.saveAndFlush( any( Veiculo.class ) ) ).thenReturn( veiculo );
+
+        veiculoService.update( 1L, veiculoRequest, null );
+
+        verify( veiculoPlacaService, never() ).evict( any() );
+        verify( entityCacheInvalidator ).ifAvailable( any() );
+    }
+
+
+    @Test
+    @DisplayName( "Deve devolver o ETag da nova versão ao atualizar com If-Match da versão atual" )
+    void deveAtualizarComIfMatchDaVersaoAtual() {
+
+        when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.saveAndFlush( veiculo ) ).thenAnswer( invocacao -> {
+            veiculo.setVersao( 4L );
+            return veiculo;
+        } );
+
+        Versionado< VeiculoResponse > result = veiculoService.update( 1L, veiculoRequest, 3L );
+
+        assertThat( result.getEtag() ).startsWith( "4-" );
+        assertThat( Versionado.versao( "\"" + result.getEtag() + "\"" ) ).isEqualTo( 4L );
+    }
+
+
+    @Test
+    @DisplayName( "Deve recusar If-Match de uma versão que não é mais a atual" )
+    void deveRecusarIfMatchDeVersaoAntiga() {
+
+        when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
+
+        assertThatThrownBy( () -> veiculoService.partialUpdate( 1L, veiculoRequest, 2L ) ).isInstanceOf( VersaoDivergenteException.class )
+            .hasMessageContaining( "versão atual: 3" );
+        verify( veiculoRepository, never() ).saveAndFlush( any() );
+        verify( marcaContagemService, never() ).alterarMarca( any(), any() );
+        verifyNoInteractions( veiculoEventoService );
+    }
+
+
+    @Test
+    @DisplayName( "Deve converter a violação do índice único de placa em placa duplicada" )
+    void deveConverterViolacaoDoIndiceDePlaca() {
+
+        when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        // Outra transação gravou a mesma placa depois da consulta em cache
+        when( veiculoRepository.saveAndFlush( veiculo ) )
+            .thenThrow( new DataIntegrityViolationException( "placa", new SQLException( "unique constraint violated", "23505" ) ) );
+
+        assertThatThrownBy( () -> veiculoService.update( 1L, veiculoRequest, null ) ).isInstanceOf( DuplicatePlacaException.class );
+    }
+
+
+    @Test
+    @DisplayName( "Não deve tratar como placa duplicada uma violação que não é de chave única" )
+    void naoDeveConverterOutrasViolacoesEmPlacaDuplicada() {
+
+        DataIntegrityViolationException estouro = new DataIntegrityViolationException( "preco_usd", new SQLException( "numeric field overflow", "22003" ) );
+        when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.saveAndFlush( veiculo ) ).thenThrow( estouro );
+
+        assertThatThrownBy( () -> veiculoService.update( 1L, veiculoRequest, null ) ).isSameAs( estouro );
+    }
+
+
+    @Test
+    @DisplayName( "Deve remover do cache a placa anterior e a nova quando a placa mudar" )
+    void deveRemoverPlacasDoCacheQuandoPlacaMudar() {
 
         VeiculoRequest requestParcial = new VeiculoRequest();
-        requestParcial.setCor( "Azul" );
+        requestParcial.setPlaca( "XYZ9876" );
 
         when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
-        when( cambioService.convertUsdToBrl( any() ) ).thenReturn( new BigDecimal( "100000.00" ) );
-        when( veiculoRepository.save( any( Veiculo.class ) ) ).thenReturn( veiculo );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.saveAndFlush( any( Veiculo.class ) ) ).thenReturn( veiculo );
 
-        VeiculoResponse result = veiculoService.partialUpdate( 1L, requestParcial );
+        veiculoService.partialUpdate( 1L, requestParcial, null );
 
-        assertThat( result ).isNotNull();
-        verify( veiculoRepository, times( 1 ) ).save( any( Veiculo.class ) );
+        verify( veiculoPlacaService ).evict( "ABC1234" );
+        verify( veiculoPlacaService ).evict( "XYZ9876" );
+    }
+
+
+    @Test
+    @DisplayName( "Deve atualizar parcialmente as colunas num único UPDATE, sem carregar e salvar a entidade" )
+    void deveAtualizarParcialmenteVeiculo() {
+
+        VeiculoRequest requestParcial = new VeiculoRequest();
+        requestParcial.setCor( " Azul " );
+        requestParcial.setPrecoBrl( new BigDecimal( "50000.00" ) );
+
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.atualizarColunas( eq( 1L ), isNull(), isNull(), eq( " Azul " ), eq( "azul" ), eq( new BigDecimal( "10000.00" ) ), isNull(),
+            any( LocalDateTime.class ) ) ).thenReturn( 1 );
+        when( veiculoRepository.recarregarAtivo( 1L ) ).thenReturn( Optional.of( veiculo ) );
+
+        Versionado< VeiculoResponse > result = veiculoService.partialUpdate( 1L, requestParcial, null );
+
+        assertThat( result.getCorpo() ).isNotNull();
+        assertThat( Versionado.versao( result.getEtag() ) ).isEqualTo( 3L );
+        verify( veiculoRepository, never() ).saveAndFlush( any() );
+        verifyNoInteractions( marcaContagemService, veiculoPlacaService );
+        verify( veiculoEventoService ).registrar( eq( TipoEventoVeiculo.ATUALIZADO ), eq( veiculo ), any( CotacaoSnapshot.class ) );
     }
 
 
     @Test
-    @DisplayName( "Deve realizar soft delete com sucesso" )
+    @DisplayName( "Deve distinguir versão divergente de veículo inexistente quando o UPDATE de colunas não afeta linhas" )
+    void deveRecusarAtualizacaoDeColunasSemLinhaAfetada() {
+
+        VeiculoRequest requestParcial = new VeiculoRequest();
+        requestParcial.setAno( 2024 );
+
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.atualizarColunas( any(), any(), any(), any(), any(), any(), any(), any() ) ).thenReturn( 0 );
+        when( veiculoRepository.findVersaoByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( versao( veiculo ) ) );
+        when( veiculoRepository.findVersaoByIdAndAtivoTrue( 99L ) ).thenReturn( Optional.empty() );
+
+        assertThatThrownBy( () -> veiculoService.partialUpdate( 1L, requestParcial, 2L ) ).isInstanceOf( VersaoDivergenteException.class )
+            .hasMessageContaining( "versão atual: 3" );
+        assertThatThrownBy( () -> veiculoService.partialUpdate( 99L, requestParcial, 2L ) ).isInstanceOf( VeiculoNotFoundException.class );
+        verify( veiculoRepository, never() ).recarregarAtivo( any() );
+    }
+
+
+    @Test
+    @DisplayName( "Sem If-Match, UPDATE de colunas sem linha afetada responde veículo não encontrado, sem nova consulta" )
+    void deveResponderNaoEncontradoSemIfMatchQuandoNenhumaLinhaForAfetada() {
+
+        VeiculoRequest requestParcial = new VeiculoRequest();
+        requestParcial.setAno( 2024 );
+
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.atualizarColunas( any(), any(), any(), any(), any(), any(), any(), any() ) ).thenReturn( 0 );
+
+        assertThatThrownBy( () -> veiculoService.partialUpdate( 1L, requestParcial, null ) ).isInstanceOf( VeiculoNotFoundException.class );
+        verify( veiculoRepository, never() ).findVersaoByIdAndAtivoTrue( any() );
+    }
+
+
+    @Test
+    @DisplayName( "Deve realizar soft delete com um UPDATE e usar as linhas afetadas" )
     void deveRealizarSoftDelete() {
 
-        when( veiculoRepository.findByIdAndAtivoTrue( 1L ) ).thenReturn( Optional.of( veiculo ) );
-        when( veiculoRepository.save( any( Veiculo.class ) ) ).thenReturn( veiculo );
+        VeiculoResumo resumo = resumo( 1L, "Toyota", "ABC1234" );
+        when( veiculoRepository.findResumoParaDesativar( List.of( 1L ) ) ).thenReturn( List.of( resumo ) );
+        when( veiculoRepository.desativar( eq( List.of( 1L ) ), any( LocalDateTime.class ) ) ).thenReturn( 1 );
 
         veiculoService.delete( 1L );
 
-        verify( veiculoRepository, times( 1 ) ).save( any( Veiculo.class ) );
+        verify( veiculoRepository, never() ).save( any() );
+        verify( marcaContagemService ).registrarPorMarca( Map.of( "Toyota", -1L ) );
+        verify( veiculoPlacaService ).evict( "ABC1234" );
+        verify( veiculoEventoService ).registrarRemovidos( List.of( resumo ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve lançar exceção ao remover veículo inexistente ou já removido" )
+    void deveLancarExcecaoAoRemoverVeiculoInexistente() {
+
+        when( veiculoRepository.findResumoParaDesativar( List.of( 99L ) ) ).thenReturn( List.of() );
+
+        assertThatThrownBy( () -> veiculoService.delete( 99L ) ).isInstanceOf( VeiculoNotFoundException.class );
+        verify( veiculoRepository, never() ).desativar( any(), any() );
+        verifyNoInteractions( marcaContagemService, veiculoPlacaService );
+    }
+
+
+    @Test
+    @DisplayName( "Deve remover em lote com um UPDATE e ajustar a contagem uma vez por marca" )
+    void deveRemoverEmLote() {
+
+        List< Long > ativos = List.of( 1L, 2L, 3L );
+        when( veiculoRepository.findResumoParaDesativar( Set.of( 1L, 2L, 3L, 4L ) ) ).thenReturn(
+            List.of( resumo( 1L, "Toyota", "ABC1234" ), resumo( 2L, "Toyota", "DEF5678" ), resumo( 3L, "Honda", "GHI9012" ) ) );
+        when( veiculoRepository.desativar( eq( ativos ), any( LocalDateTime.class ) ) ).thenReturn( 3 );
+
+        RemocaoLoteResponse response = veiculoService.removerLote( List.of( 1L, 2L, 2L, 3L, 4L ) );
+
+        assertThat( response.getSolicitados() ).isEqualTo( 4 );
+        assertThat( response.getRemovidos() ).isEqualTo( 3 );
+        verify( marcaContagemService ).registrarPorMarca( Map.of( "Toyota", -2L, "Honda", -1L ) );
+        verify( veiculoPlacaService ).evictAll();
+        verify( veiculoPlacaService, never() ).evict( any() );
     }
 
 
@@ -211,13 +543,13 @@ class VeiculoServiceTest {
         Pageable pageable = PageRequest.of( 0, 10 );
         Page< Veiculo > page = new PageImpl<>( List.of( veiculo ) );
 
-        when( veiculoRepository.findByFiltros( "Toyota", 2023, "Preto", pageable ) ).thenReturn( page );
-        when( cambioService.convertUsdToBrl( any() ) ).thenReturn( new BigDecimal( "100000.00" ) );
+        when( veiculoRepository.findByCriterios( "Toyota", 2023, "Preto", null, null, pageable ) ).thenReturn( page );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
 
-        Page< VeiculoResponse > result = veiculoService.findByFiltros( "Toyota", 2023, "Preto", pageable );
+        Page< VeiculoResponse > result = veiculoService.buscar( new VeiculoFiltro( "Toyota", 2023, "Preto", null, null ), pageable ).getCorpo();
 
         assertThat( result.getContent() ).hasSize( 1 );
-        verify( veiculoRepository, times( 1 ) ).findByFiltros( "Toyota", 2023, "Preto", pageable );
+        verify( veiculoRepository, times( 1 ) ).findByCriterios( "Toyota", 2023, "Preto", null, null, pageable );
     }
 
 
@@ -228,12 +560,117 @@ class VeiculoServiceTest {
         Pageable pageable = PageRequest.of( 0, 10 );
         Page< Veiculo > page = new PageImpl<>( List.of( veiculo ) );
 
-        when( cambioService.convertBrlToUsd( any() ) ).thenReturn( new BigDecimal( "20000.00" ) );
-        when( veiculoRepository.findByPrecoRange( any(), any(), eq( pageable ) ) ).thenReturn( page );
-        when( cambioService.convertUsdToBrl( any() ) ).thenReturn( new BigDecimal( "100000.00" ) );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.findByCriterios( any(), any(), any(), any(), any(), eq( pageable ) ) ).thenReturn( page );
 
-        Page< VeiculoResponse > result = veiculoService.findByPrecoRange( new BigDecimal( "50000" ), new BigDecimal( "150000" ), pageable );
+        Page< VeiculoResponse > result =
+            veiculoService.buscar( new VeiculoFiltro( null, null, null, new BigDecimal( "50000" ), new BigDecimal( "150000" ) ), pageable ).getCorpo();
 
         assertThat( result.getContent() ).hasSize( 1 );
     }
-}
\ No newline at end of file
+
+
+    @Test
+    @DisplayName( "Deve combinar marca e faixa de preço numa única consulta, convertendo os limites com uma única cotação" )
+    void deveCombinarFiltrosEFaixaDePreco() {
+
+        Pageable pageable = PageRequest.of( 0, 10 );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+        when( veiculoRepository.findByCriterios( "Ford", null, null, new BigDecimal( "10000.00" ), null, pageable ) )
+            .thenReturn( new PageImpl<>( List.of( veiculo ) ) );
+
+        Page< VeiculoResponse > result = veiculoService.buscar( new VeiculoFiltro( "Ford", null, null, new BigDecimal( "50000" ), null ), pageable ).getCorpo();
+
+        assertThat( result.getContent() ).hasSize( 1 );
+        assertThat( result.getContent().get( 0 ).getPrecoBrl() ).isEqualByComparingTo( new BigDecimal( "100000.00" ) );
+        verify( cambioService, times( 1 ) ).getCotacaoDolar();
+    }
+
+
+    @Test
+    @DisplayName( "Deve devolver cursor da próxima página com a ordenação e a chave da última linha" )
+    void deveDevolverCursorDaProximaPagina() {
+
+        Pageable pageable = PageRequest.of( 0, 1, Sort.by( Sort.Direction.DESC, "marca" ) );
+        Window< Veiculo > window = Window.from( List.of( veiculo ), i -> ScrollPosition.forward( Map.of( "marca", "Toyota", "id", 1L ) ), true );
+
+        when( veiculoRepository.scrollByAtivoTrue( any(), any(), eq( 1 ) ) ).thenReturn( window );
+        when( cambioService.getCotacaoDolar() ).thenReturn( new BigDecimal( "5.00" ) );
+
+        CursorPageResponse< VeiculoResponse > result = veiculoService.findAllCursor( "", pageable );
+
+        assertThat( result.getContent() ).hasSize( 1 );
+        assertThat( result.getHasNext() ).isTrue();
+
+        VeiculoCursor proximo = VeiculoCursor.decode( result.getNextCursor() );
+        assertThat( proximo.getSort() ).isEqualTo( Sort.by( Sort.Direction.DESC, "marca" ).and( Sort.by( "id" ) ) );
+        assertThat( proximo.getPosicao().getKeys() ).containsEntry( "marca", "Toyota" ).containsEntry( "id", 1L );
+    }
+
+
+    @Test
+    @DisplayName( "Deve rejeitar cursor adulterado ou com ordenação não suportada" )
+    void deveRejeitarCursorInvalido() {
+
+        Pageable pageable = PageRequest.of( 0, 10 );
+        String ordenacaoInvalida = Base64.getUrlEncoder().encodeToString( "_sort=password:ASC&password=x".getBytes( StandardCharsets.UTF_8 ) );
+
+        assertThatThrownBy( () -> veiculoService.findAllCursor( "nao-e-um-cursor", pageable ) ).isInstanceOf( CursorInvalidoException.class );
+        assertThatThrownBy( () -> veiculoService.findAllCursor( ordenacaoInvalida, pageable ) ).isInstanceOf( CursorInvalidoException.class );
+        verifyNoInteractions( veiculoRepository );
+    }
+
+
+    private static VeiculoResumo resumo( Long id, String marca, String placa ) {
+
+        return new VeiculoResumo() {
+
+            @Override
+            public Long getId() {
+
+                return id;
+            }
+
+
+            @Override
+            public String getMarca() {
+
+                return marca;
+            }
+
+
+            @Override
+            public String getPlaca() {
+
+                return placa;
+            }
+
+
+            @Override
+            public Long getVersao() {
+
+                return 3L;
+            }
+        };
+    }
+
+
+    private static VeiculoVersao versao( Veiculo veiculo ) {
+
+        return new VeiculoVersao() {
+
+            @Override
+            public Long getVersao() {
+
+                return veiculo.getVersao();
+            }
+
+
+            @Override
+            public LocalDateTime getUpdatedAt() {
+
+                return veiculo.getUpdatedAt();
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.tinnova.veiculos.service.parser;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+
+@DisplayName( "Testes dos parsers de cotação" )
+class CotacaoParserTest {
+
+    private final AwesomeApiCotacaoParser awesomeApiParser = new AwesomeApiCotacaoParser();
+
+    private final FrankfurterCotacaoParser frankfurterParser = new FrankfurterCotacaoParser();
+
+    @Test
+    @DisplayName( "Deve ler o bid da AwesomeAPI entre os demais campos" )
+    void deveLerBidDaAwesomeApi()
+        throws IOException {
+
+        String corpo = "{\"USDBRL\":{\"code\":\"USD\",\"high\":\"5.43\",\"bid\":\"5.4021\",\"ask\":\"5.4051\"}}";
+
+        assertThat( awesomeApiParser.parse( stream( corpo ) ) ).isEqualByComparingTo( new BigDecimal( "5.4021" ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve tolerar espaços, quebras de linha e outra ordem de campos" )
+    void deveTolerarEspacosEOrdemDosCampos()
+        throws IOException {
+
+        String corpo = "{\n  \"outro\": { \"bid\": \"1.00\" },\n  \"USDBRL\" : {\n    \"ask\" : \"5.41\",\n    \"bid\" : \"5.40\"\n  }\n}";
+
+        assertThat( awesomeApiParser.parse( stream( corpo ) ) ).isEqualByComparingTo( new BigDecimal( "5.40" ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve ler a taxa numérica da Frankfurter" )
+    void deveLerTaxaNumericaDaFrankfurter()
+        throws IOException {
+
+        String corpo = "{\"amount\":1.0,\"base\":\"USD\",\"date\":\"2024-06-07\",\"rates\":{\"BRL\":5.3118}}";
+
+        assertThat( frankfurterParser.parse( stream( corpo ) ) ).isEqualByComparingTo( new BigDecimal( "5.3118" ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve aceitar a cotação como número ou como texto" )
+    void deveAceitarNumeroOuTexto()
+        throws IOException {
+
+        assertThat( awesomeApiParser.parse( stream( "{\"USDBRL\":{\"bid\":5.25}}" ) ) ).isEqualByComparingTo( new BigDecimal( "5.25" ) );
+        assertThat( frankfurterParser.parse( stream( "{\"rates\":{\"BRL\":\"5.30\"}}" ) ) ).isEqualByComparingTo( new BigDecimal( "5.30" ) );
+    }
+
+
+    @Test
+    @DisplayName( "Deve lançar exceção quando o campo não existir" )
+    void deveLancarExcecaoQuandoCampoNaoExistir() {
+
+        assertThatThrownBy( () -> awesomeApiParser.parse( stream( "{\"USDBRL\":{\"ask\":\"5.41\"}}" ) ) )
+            .isInstanceOf( IllegalStateException.class ).hasMessageContaining( "USDBRL.bid" );
+        assertThatThrownBy( () -> frankfurterParser.parse( stream( "{\"erro\":\"indisponível\"}" ) ) )
+            .isInstanceOf( IllegalStateException.class ).hasMessageContaining( "rates.BRL" );
+    }
+
+
+    private ByteArrayInputStream stream( String corpo ) {
+
+        return new ByteArrayInputStream( corpo.getBytes( StandardCharsets.UTF_8 ) );
+    }
+}
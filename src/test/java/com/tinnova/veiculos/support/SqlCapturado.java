@@ -0,0 +1,41 @@
+package com.tinnova.veiculos.support;
+
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+
+// Guarda o SQL que o Hibernate envia ao banco, para os testes examinarem a consulta realmente gerada (ex.: com EXPLAIN).
+// Registrado pela propriedade hibernate.session_factory.statement_inspector
+public class SqlCapturado implements StatementInspector {
+
+    private static final List< String > COMANDOS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect( String sql ) {
+
+        COMANDOS.add( sql );
+        return sql;
+    }
+
+
+    public static void limpar() {
+
+        COMANDOS.clear();
+    }
+
+
+    // Último comando que começa com o prefixo (ex.: "select"), sem diferenciar maiúsculas
+    public static String ultimo( String prefixo ) {
+
+        for ( int i = COMANDOS.size() - 1; i >= 0; i-- ) {
+            String sql = COMANDOS.get( i );
+            if ( sql.regionMatches( true, 0, prefixo, 0, prefixo.length() ) ) {
+                return sql;
+            }
+        }
+        throw new IllegalStateException( "Nenhum comando capturado começando com: " + prefixo );
+    }
+}
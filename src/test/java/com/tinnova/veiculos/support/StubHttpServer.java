@@ -0,0 +1,104 @@
+package com.tinnova.veiculos.support;
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+
+// Servidor HTTP local que simula as APIs de câmbio, com status, corpo e atraso configuráveis
+public class StubHttpServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final AtomicInteger requisicoes = new AtomicInteger();
+
+    private volatile int status = 200;
+
+    private volatile String corpo = "{}";
+
+    private volatile Duration atraso = Duration.ZERO;
+
+    private StubHttpServer()
+        throws IOException {
+
+        server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0 ), 0 );
+        server.createContext( "/", this::responder );
+        server.setExecutor( executor );
+        server.start();
+    }
+
+
+    public static StubHttpServer iniciar()
+        throws IOException {
+
+        return new StubHttpServer();
+    }
+
+
+    public StubHttpServer respondendo( int status, String corpo ) {
+
+        this.status = status;
+        this.corpo = corpo;
+        return this;
+    }
+
+
+    public StubHttpServer comAtraso( Duration atraso ) {
+
+        this.atraso = atraso;
+        return this;
+    }
+
+
+    public String url( String path ) {
+
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+
+    public int getRequisicoes() {
+
+        return requisicoes.get();
+    }
+
+
+    private void responder( HttpExchange exchange )
+        throws IOException {
+
+        requisicoes.incrementAndGet();
+
+        try {
+            Thread.sleep( atraso.toMillis() );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+            return;
+        }
+
+        byte[] resposta = corpo.getBytes( StandardCharsets.UTF_8 );
+        exchange.getResponseHeaders().add( "Content-Type", "application/json" );
+        exchange.sendResponseHeaders( status, resposta.length );
+        try ( OutputStream out = exchange.getResponseBody() ) {
+            out.write( resposta );
+        }
+    }
+
+
+    @Override
+    public void close() {
+
+        server.stop( 0 );
+        executor.shutdownNow();
+    }
+}